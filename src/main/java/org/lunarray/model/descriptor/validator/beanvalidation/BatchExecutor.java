@@ -0,0 +1,81 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.validation.ValidationException;
+
+/**
+ * Runs the chunks of a batch validation in parallel.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class BatchExecutor {
+
+	/** The number of items validated per chunk. */
+	static final int CHUNK_SIZE = 64;
+
+	/**
+	 * Runs chunks through an executor and waits for all of them. Once a chunk
+	 * fails or the caller is interrupted, the other chunks are cancelled.
+	 * 
+	 * @param executor
+	 *            The executor.
+	 * @param chunks
+	 *            The chunks.
+	 * @param subject
+	 *            The validated items, for failure messages.
+	 * @param <T>
+	 *            The chunk result type.
+	 * @return The chunk results, in the order of the chunks.
+	 */
+	static <T> List<T> invokeAll(final ExecutorService executor, final List<? extends Callable<T>> chunks, final String subject) {
+		final List<Future<T>> futures = new LinkedList<Future<T>>();
+		final List<T> result = new ArrayList<T>(chunks.size());
+		for (final Callable<T> chunk : chunks) {
+			futures.add(executor.submit(chunk));
+		}
+		try {
+			for (final Future<T> future : futures) {
+				result.add(future.get());
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ValidationException("Interrupted while validating " + subject + ".", e);
+		} catch (final ExecutionException e) {
+			throw new ValidationException("Could not validate " + subject + ".", e.getCause());
+		} finally {
+			for (final Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return result;
+	}
+
+	/** Only static methods. */
+	private BatchExecutor() {
+		// Only static methods.
+	}
+}
@@ -17,7 +17,12 @@
  */
 package org.lunarray.model.descriptor.validator.beanvalidation;
 
+import java.util.Locale;
+
+import javax.validation.MessageInterpolator;
+
 import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
 import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
 import org.lunarray.model.descriptor.validator.ParameterViolation;
 
@@ -42,7 +47,13 @@ public final class BeanValidationParameterViolation<P>
 		return new Builder<P>();
 	}
 
-	/** The parameter descriptor. */
+	/** The message interpolator, may be null. */
+	private MessageInterpolator interpolator;
+
+	/** The localized messages, created on first use. */
+	private LocalizedMessages messages;
+
+	/** The parameter descriptor, null for a cross-parameter violation. */
 	private ParameterDescriptor<P> parameterDescriptor;
 
 	/** The violation. */
@@ -57,6 +68,7 @@ public final class BeanValidationParameterViolation<P>
 	protected BeanValidationParameterViolation(final Builder<P> builder) {
 		this.parameterDescriptor = builder.parameterDescriptorBuilder;
 		this.violation = builder.violationBuilder;
+		this.interpolator = builder.interpolatorBuilder;
 	}
 
 	/** {@inheritDoc} */
@@ -65,6 +77,25 @@ public final class BeanValidationParameterViolation<P>
 		return this.violation.getMessage();
 	}
 
+	/**
+	 * Gets the message in another locale. The message is interpolated from
+	 * the template and constraint attributes of the violation, without
+	 * validating again, and memoized per locale.
+	 * 
+	 * @param locale
+	 *            The locale, may be null for the default locale.
+	 * @return The message, or the message as validated if the violation was
+	 *         built without an interpolator.
+	 */
+	public String getMessage(final Locale locale) {
+		LocalizedMessages localizedMessages = this.messages;
+		if (CheckUtil.isNull(localizedMessages)) {
+			localizedMessages = new LocalizedMessages(this.violation, this.interpolator);
+			this.messages = localizedMessages;
+		}
+		return localizedMessages.getMessage(locale);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public ParameterDescriptor<P> getParameter() {
@@ -107,13 +138,19 @@ public final class BeanValidationParameterViolation<P>
 	 */
 	public void setViolation(final javax.validation.ConstraintViolation<?> violation) {
 		this.violation = violation;
+		this.messages = null;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public String toString() {
 		final StringBuilder builder = new StringBuilder();
-		builder.append("BeanValidationParameterViolation[\n\tParameter: ").append(this.parameterDescriptor.getIndex());
+		builder.append("BeanValidationParameterViolation[\n\tParameter: ");
+		if (CheckUtil.isNull(this.parameterDescriptor)) {
+			builder.append("cross-parameter");
+		} else {
+			builder.append(this.parameterDescriptor.getIndex());
+		}
 		builder.append("\n\tMessage Key: ").append(this.violation.getMessage());
 		builder.append("\n]");
 		return builder.toString();
@@ -127,6 +164,8 @@ public final class BeanValidationParameterViolation<P>
 	 *            The parameter type.
 	 */
 	public static final class Builder<P> {
+		/** The message interpolator. */
+		private transient MessageInterpolator interpolatorBuilder;
 		/** The parameter descriptor. */
 		private transient ParameterDescriptor<P> parameterDescriptorBuilder;
 		/** The violation. */
@@ -143,16 +182,29 @@ public final class BeanValidationParameterViolation<P>
 		 * @return The violation.
 		 */
 		public BeanValidationParameterViolation<P> build() {
-			Validate.notNull(this.parameterDescriptorBuilder, "Parameter descriptor was null.");
 			Validate.notNull(this.violationBuilder, "Violation was null.");
 			return new BeanValidationParameterViolation<P>(this);
 		}
 
+		/**
+		 * Sets the message interpolator, used to render the message in other
+		 * locales.
+		 * 
+		 * @param interpolator
+		 *            The interpolator, may be null.
+		 * @return The builder.
+		 */
+		public Builder<P> interpolator(final MessageInterpolator interpolator) {
+			this.interpolatorBuilder = interpolator;
+			return this;
+		}
+
 		/**
 		 * Sets the parameter descriptor.
 		 * 
 		 * @param parameterDescriptor
-		 *            The parameter descriptor.
+		 *            The parameter descriptor, null for a cross-parameter
+		 *            violation.
 		 * @return The builder.
 		 */
 		@SuppressWarnings("unchecked")
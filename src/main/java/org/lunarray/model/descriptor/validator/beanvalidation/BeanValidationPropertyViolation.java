@@ -17,7 +17,12 @@
  */
 package org.lunarray.model.descriptor.validator.beanvalidation;
 
+import java.util.Locale;
+
+import javax.validation.MessageInterpolator;
+
 import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
 import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
 import org.lunarray.model.descriptor.validator.PropertyViolation;
 
@@ -46,6 +51,12 @@ public final class BeanValidationPropertyViolation<E, P>
 		return new Builder<E, P>();
 	}
 
+	/** The message interpolator, may be null. */
+	private MessageInterpolator interpolator;
+
+	/** The localized messages, created on first use. */
+	private LocalizedMessages messages;
+
 	/** The property descriptor. */
 	private PropertyDescriptor<P, E> propertyDescriptor;
 
@@ -64,6 +75,7 @@ public final class BeanValidationPropertyViolation<E, P>
 	protected BeanValidationPropertyViolation(final Builder<E, P> builder) {
 		this.propertyDescriptor = builder.propertyDescriptorBuilder;
 		this.violation = (javax.validation.ConstraintViolation<E>) builder.violationBuilder;
+		this.interpolator = builder.interpolatorBuilder;
 	}
 
 	/** {@inheritDoc} */
@@ -72,6 +84,25 @@ public final class BeanValidationPropertyViolation<E, P>
 		return this.violation.getMessage();
 	}
 
+	/**
+	 * Gets the message in another locale. The message is interpolated from
+	 * the template and constraint attributes of the violation, without
+	 * validating again, and memoized per locale.
+	 * 
+	 * @param locale
+	 *            The locale, may be null for the default locale.
+	 * @return The message, or the message as validated if the violation was
+	 *         built without an interpolator.
+	 */
+	public String getMessage(final Locale locale) {
+		LocalizedMessages localizedMessages = this.messages;
+		if (CheckUtil.isNull(localizedMessages)) {
+			localizedMessages = new LocalizedMessages(this.violation, this.interpolator);
+			this.messages = localizedMessages;
+		}
+		return localizedMessages.getMessage(locale);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public PropertyDescriptor<P, E> getProperty() {
@@ -114,6 +145,7 @@ public final class BeanValidationPropertyViolation<E, P>
 	 */
 	public void setViolation(final javax.validation.ConstraintViolation<E> violation) {
 		this.violation = violation;
+		this.messages = null;
 	}
 
 	/** {@inheritDoc} */
@@ -136,6 +168,8 @@ public final class BeanValidationPropertyViolation<E, P>
 	 *            The property type.
 	 */
 	public static final class Builder<E, P> {
+		/** The message interpolator. */
+		private transient MessageInterpolator interpolatorBuilder;
 		/** The property descriptor. */
 		private transient PropertyDescriptor<P, E> propertyDescriptorBuilder;
 		/** The violation. */
@@ -157,6 +191,19 @@ public final class BeanValidationPropertyViolation<E, P>
 			return new BeanValidationPropertyViolation<E, P>(this);
 		}
 
+		/**
+		 * Sets the message interpolator, used to render the message in other
+		 * locales.
+		 * 
+		 * @param interpolator
+		 *            The interpolator, may be null.
+		 * @return The builder.
+		 */
+		public Builder<E, P> interpolator(final MessageInterpolator interpolator) {
+			this.interpolatorBuilder = interpolator;
+			return this;
+		}
+
 		/**
 		 * Sets the property descriptor.
 		 * 
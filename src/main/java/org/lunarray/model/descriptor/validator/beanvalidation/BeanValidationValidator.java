@@ -17,13 +17,25 @@
  */
 package org.lunarray.model.descriptor.validator.beanvalidation;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
+import javax.validation.ConstraintValidatorFactory;
 import javax.validation.ConstraintViolation;
 import javax.validation.Path;
 import javax.validation.Validation;
@@ -31,13 +43,17 @@ import javax.validation.Validator;
 import javax.validation.ValidatorContext;
 import javax.validation.ValidatorFactory;
 import javax.validation.executable.ExecutableValidator;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.GroupConversionDescriptor;
 
 import org.apache.commons.lang.Validate;
 import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.Model;
 import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
 import org.lunarray.model.descriptor.model.operation.OperationDescriptor;
-import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
 import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.qualifier.QualifierEntityDescriptor;
 import org.lunarray.model.descriptor.qualifier.QualifierSelected;
 import org.lunarray.model.descriptor.util.OperationInvocationBuilder;
 import org.lunarray.model.descriptor.validator.EntityValidator;
@@ -46,7 +62,6 @@ import org.lunarray.model.descriptor.validator.ParameterViolation;
 import org.lunarray.model.descriptor.validator.PropertyValidator;
 import org.lunarray.model.descriptor.validator.PropertyViolation;
 import org.lunarray.model.descriptor.validator.ValueValidator;
-import org.lunarray.model.descriptor.validator.beanvalidation.BeanValidationPropertyViolation.Builder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +73,10 @@ import org.slf4j.LoggerFactory;
 public final class BeanValidationValidator
 		implements EntityValidator, PropertyValidator, ValueValidator, InvocationValidator {
 
+	/** Validation message. */
+	private static final String CONSUMER_NULL = "Consumer may not be null.";
+	/** Validation message. */
+	private static final String ENTITIES_NULL = "Entities may not be null.";
 	/** Validation message. */
 	private static final String ENTITY_DESCRIPTOR_NULL = "Entity descriptor may not be null.";
 	/** Validation message. */
@@ -67,9 +86,45 @@ public final class BeanValidationValidator
 	/** The logger. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(BeanValidationValidator.class);
 	/** Validation message. */
+	private static final String OPERATION_DESCRIPTOR_NULL = "Operation descriptor may not be null.";
+	/** Validation message. */
 	private static final String PROPERTY_DESCRIPTOR_NULL = "Property descriptor may not be null.";
+
+	/**
+	 * Creates a builder.
+	 * 
+	 * @return The builder.
+	 */
+	public static Builder createBuilder() {
+		return new Builder();
+	}
+
+	/** The request coalescer, may be null. */
+	private final transient RequestCoalescer coalescer;
+	/** The constraint index, may be null. */
+	private final transient ConstraintIndex constraintIndex;
+	/** The violation converter. */
+	private final transient ViolationConverter converter;
+	/** Whether to check built-in constraints directly. */
+	private final transient boolean directConstraints;
+	/** The direct constraint engine. */
+	private final transient DirectConstraintEngine directEngine;
+	/** The invocation validation. */
+	private final transient InvocationValidation invocationValidation;
+	/** The maximum number of violations per call. */
+	private final transient int maximumViolations;
+	/** The constraint profiler, null if not profiling. */
+	private final transient ConstraintProfiler profiler;
+	/** The result cache, may be null. */
+	private final transient ResultCache resultCache;
+	/** The entity sampler, null if not sampling. */
+	private final transient EntitySampler sampler;
 	/** The validator. */
 	private final transient ValidatorFactory validatorFactory;
+	/** The value validation. */
+	private final transient ValueValidation valueValidation;
+	/** The violation limiter. */
+	private final transient ViolationLimiter violationLimiter;
 
 	/**
 	 * Default constructor, resolves the default factory.
@@ -86,213 +141,1825 @@ public final class BeanValidationValidator
 	 */
 	public BeanValidationValidator(final ValidatorFactory factory) {
 		this.validatorFactory = factory;
+		this.coalescer = null;
+		this.constraintIndex = null;
+		this.directConstraints = false;
+		this.directEngine = new DirectConstraintEngine(factory.getValidator());
+		this.maximumViolations = Integer.MAX_VALUE;
+		this.converter = new ViolationConverter(false, factory.getMessageInterpolator(), this.maximumViolations);
+		this.profiler = null;
+		this.resultCache = null;
+		this.sampler = null;
+		this.violationLimiter = new ViolationLimiter(this.maximumViolations, factory.getConstraintValidatorFactory(),
+				factory.getTraversableResolver());
+		this.invocationValidation = new InvocationValidation(this.violationLimiter, this.converter, this.maximumViolations);
+		this.valueValidation = new ValueValidation(this.violationLimiter, this.converter, this.directEngine, this.directConstraints);
 	}
 
-	/** {@inheritDoc} */
-	@Override
-	public <E> Collection<PropertyViolation<E, ?>> validate(final EntityDescriptor<E> entityDescriptor, final E entity) {
-		return this.validate(entityDescriptor, entity, null);
+	/**
+	 * Constructs the validator.
+	 * 
+	 * @param builder
+	 *            The builder.
+	 */
+	protected BeanValidationValidator(final Builder builder) {
+		this.validatorFactory = builder.factoryBuilder;
+		this.constraintIndex = builder.constraintIndexBuilder;
+		if (builder.coalescingBuilder) {
+			this.coalescer = new RequestCoalescer(builder.coalescingKeysBuilder);
+		} else {
+			this.coalescer = null;
+		}
+		this.directConstraints = builder.directConstraintsBuilder;
+		this.directEngine = new DirectConstraintEngine(this.validatorFactory.getValidator());
+		this.maximumViolations = builder.maximumViolationsBuilder;
+		this.converter = new ViolationConverter(builder.detachedBuilder, this.validatorFactory.getMessageInterpolator(),
+				this.maximumViolations);
+		this.resultCache = builder.resultCacheBuilder;
+		if (!CheckUtil.isNull(this.resultCache) && !builder.detachedBuilder) {
+			BeanValidationValidator.LOGGER.warn("Results are not cached, as violations are not detached.");
+		}
+		this.violationLimiter = new ViolationLimiter(this.maximumViolations, this.validatorFactory.getConstraintValidatorFactory(),
+				this.validatorFactory.getTraversableResolver());
+		this.invocationValidation = new InvocationValidation(this.violationLimiter, this.converter, this.maximumViolations);
+		this.valueValidation = new ValueValidation(this.violationLimiter, this.converter, this.directEngine, this.directConstraints);
+		if (builder.profilingBuilder) {
+			ConstraintValidatorFactory delegateFactory = this.validatorFactory.getConstraintValidatorFactory();
+			if (this.violationLimiter.isCounting()) {
+				delegateFactory = this.violationLimiter.getFactory();
+			}
+			this.profiler = new ConstraintProfiler(this.validatorFactory.getValidator(), delegateFactory,
+					this.violationLimiter.getResolver());
+		} else {
+			this.profiler = null;
+		}
+		if (CheckUtil.isNull(builder.samplingPolicyBuilder)) {
+			this.sampler = null;
+		} else {
+			this.sampler = new EntitySampler(builder.samplingPolicyBuilder, this.violationLimiter, this.converter);
+		}
 	}
 
-	/** {@inheritDoc} */
-	@Override
-	public <E> Collection<PropertyViolation<E, ?>> validate(final EntityDescriptor<E> entityDescriptor, final E entity, final Locale locale) {
-		BeanValidationValidator.LOGGER.debug("Validating with locale {} entity: {}, value {}.", locale, entity, entity);
-		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
-		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
-		Set<javax.validation.ConstraintViolation<E>> violations;
-		final Validator validator = this.createValidator(locale);
-		if (entityDescriptor.adaptable(QualifierSelected.class)) {
-			final QualifierSelected selected = entityDescriptor.adapt(QualifierSelected.class);
-			violations = validator.validate(entity, selected.getQualifier());
+	/**
+	 * Creates a session that validates a cascaded collection property
+	 * incrementally. The session keeps the results of the elements and only
+	 * validates elements that were added or changed. Elements are validated
+	 * in the group the property converts the validated group to, if any.
+	 * 
+	 * @param propertyDescriptor
+	 *            The collection property descriptor. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param versionExtractor
+	 *            The element version extractor, may be null to only detect
+	 *            added elements.
+	 * @param <P>
+	 *            The property type.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The session.
+	 */
+	public <P, E> CollectionValidationSession<E, P> createCollectionSession(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Locale locale, final VersionExtractor versionExtractor) {
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		return new CollectionValidationSession<E, P>(this, propertyDescriptor, this.createValidator(locale, null),
+				this.resolveElementGroup(propertyDescriptor), locale, versionExtractor, this.maximumViolations,
+				this.violationLimiter, this.constraintIndex);
+	}
+
+	/**
+	 * Creates a session that validates an invocation while its parameters
+	 * are set. The session keeps the violations per parameter and only
+	 * checks the parameter that was set. Parameters with only common
+	 * built-in constraints are checked directly if direct constraints are
+	 * on.
+	 * 
+	 * @param invocation
+	 *            The invocation, with its target set. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The session, holding the violations of the current parameters.
+	 */
+	public <E> InvocationValidationSession<E> createInvocationSession(final OperationInvocationBuilder<E> invocation,
+			final Locale locale) {
+		Validate.notNull(invocation, BeanValidationValidator.INVOCATION_NULL);
+		Validate.notNull(invocation.getTarget(), "Target may not be null.");
+		final Method method = invocation.getOperationDescriptor().getOperationReference().getReferencedOperation().getOperation();
+		DirectConstraint[][] constraints;
+		if (!CheckUtil.isNull(this.constraintIndex)
+				&& this.constraintIndex.isMethodSkippable(method.getDeclaringClass(), method.getName())) {
+			constraints = new DirectConstraint[method.getParameterTypes().length][0];
 		} else {
-			violations = validator.validate(entity);
+			constraints = this.directEngine.compileParameters(invocation.getTarget().getClass(), method);
 		}
-		return this.convertViolations(entityDescriptor, violations);
+		final InvocationValidationSession<E> session = new InvocationValidationSession<E>(this.invocationValidation, invocation,
+				this.createValidator(locale, null).forExecutables(), method, constraints, this.directConstraints,
+				this.maximumViolations);
+		session.revalidate();
+		return session;
 	}
 
-	/** {@inheritDoc} */
-	@Override
-	public Collection<ParameterViolation<?>> validateInvocation(final OperationInvocationBuilder<?> invocation) {
-		return this.validateInvocation(invocation, null);
+	/**
+	 * Gets the request coalescer.
+	 * 
+	 * @return The coalescer, or null if coalescing is off.
+	 * @see Builder#coalescing(boolean)
+	 */
+	public RequestCoalescer getCoalescer() {
+		return this.coalescer;
 	}
 
-	/** {@inheritDoc} */
-	@Override
-	public Collection<ParameterViolation<?>> validateInvocation(final OperationInvocationBuilder<?> invocation, final Locale locale) {
-		BeanValidationValidator.LOGGER.debug("Validating with locale {} invocation: {}", locale, invocation);
-		Validate.notNull(invocation, BeanValidationValidator.INVOCATION_NULL);
-		final ExecutableValidator validator = this.createValidator(locale).forExecutables();
-		final Object[] parameters = new Object[invocation.getOperationDescriptor().getParameterCount()];
-		for (final Map.Entry<ParameterDescriptor<?>, ?> entry : invocation.getParameters().entrySet()) {
-			parameters[entry.getKey().getIndex()] = entry.getValue();
+	/**
+	 * Gets the constraint profiler.
+	 * 
+	 * @return The profiler, or null if profiling is off.
+	 * @see Builder#profiling(boolean)
+	 */
+	public ConstraintProfiler getProfiler() {
+		return this.profiler;
+	}
+
+	/**
+	 * Gets the result cache.
+	 * 
+	 * @return The result cache, or null if results are not cached.
+	 * @see Builder#resultCache(ResultCache)
+	 */
+	public ResultCache getResultCache() {
+		return this.resultCache;
+	}
+
+	/**
+	 * Invalidates everything cached for the entity types of a model, such as
+	 * when the model is redeployed. Cached metadata is kept with the entity
+	 * types and does not keep their class loaders reachable, invalidation
+	 * only releases it earlier.
+	 * 
+	 * @param model
+	 *            The model. May not be null.
+	 */
+	public void invalidate(final Model<?> model) {
+		Validate.notNull(model, "Model may not be null.");
+		for (final EntityDescriptor<?> entityDescriptor : model.getEntities()) {
+			this.directEngine.invalidate(entityDescriptor.getEntityType());
+			if (!CheckUtil.isNull(this.profiler)) {
+				this.profiler.invalidate(entityDescriptor.getEntityType());
+			}
+		}
+		if (!CheckUtil.isNull(this.resultCache)) {
+			this.resultCache.clear();
 		}
-		return this.innerValidateInvocation(invocation, validator, parameters);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public <P, E> Collection<PropertyViolation<E, P>> validateProperty(final PropertyDescriptor<P, E> propertyDescriptor, final E entity) {
-		return this.validateProperty(propertyDescriptor, entity, null);
+	public <E> ValidationResult<PropertyViolation<E, ?>> validate(final EntityDescriptor<E> entityDescriptor, final E entity) {
+		return this.validate(entityDescriptor, entity, null);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public <P, E> Collection<PropertyViolation<E, P>> validateProperty(final PropertyDescriptor<P, E> propertyDescriptor, final E entity,
+	public <E> ValidationResult<PropertyViolation<E, ?>> validate(final EntityDescriptor<E> entityDescriptor, final E entity,
 			final Locale locale) {
-		BeanValidationValidator.LOGGER.debug("Validating with locale {} property: {}, entity {}", locale, propertyDescriptor, entity);
-		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
-		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
-		final String name = propertyDescriptor.getName();
-		Set<javax.validation.ConstraintViolation<E>> violations;
-		final Validator validator = this.createValidator(locale);
-		if (propertyDescriptor.adaptable(QualifierSelected.class)) {
-			final QualifierSelected selected = propertyDescriptor.adapt(QualifierSelected.class);
-			violations = validator.validateProperty(entity, name, selected.getQualifier());
+		return this.validate(entityDescriptor, entity, locale, null);
+	}
+
+	/**
+	 * Validates an entity within a deadline. Once the deadline expires,
+	 * validation stops and the violations found so far are returned. If
+	 * there is no deadline, a cached result of the same entity version may
+	 * be returned and, if coalescing is on, concurrent validations of the
+	 * same entity share a single validation. An entity descriptor selecting a
+	 * sampled qualifier is validated in the default group, the sampled groups
+	 * are validated on sampled calls only.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 * @see ValidationResult#isIncomplete()
+	 */
+	public <E> ValidationResult<PropertyViolation<E, ?>> validate(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Locale locale, final Deadline deadline) {
+		ValidationResult<PropertyViolation<E, ?>> result;
+		if (!CheckUtil.isNull(deadline)) {
+			result = this.collectEntity(entityDescriptor, entity, locale, deadline);
+		} else if (CheckUtil.isNull(this.resultCache) || !this.converter.isDetached()) {
+			result = this.shareEntity(entityDescriptor, entity, locale);
 		} else {
-			violations = validator.validateProperty(entity, name);
+			result = this.cachedEntity(entityDescriptor, entity, locale);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates an entity within a deadline, pushing each violation to a
+	 * consumer as it is converted. The consumer may stop validation early,
+	 * properties are validated one at a time so that no further constraints
+	 * are validated once it has stopped.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer. May not be null.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	public <E> void validate(final EntityDescriptor<E> entityDescriptor, final E entity, final Locale locale,
+			final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, ?>> consumer) {
+		Validate.notNull(consumer, BeanValidationValidator.CONSUMER_NULL);
+		this.streamEntity(entityDescriptor, entity, locale, deadline, consumer);
+	}
+
+	/**
+	 * Validates a batch of entities.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entities
+	 *            The entities. May not be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, per record.
+	 * @see #validateAll(EntityDescriptor, Iterable, Locale)
+	 */
+	public <E> ColumnarViolations<E> validateAll(final EntityDescriptor<E> entityDescriptor, final Iterable<? extends E> entities) {
+		return this.validateAll(entityDescriptor, entities, null);
+	}
+
+	/**
+	 * Validates a batch of entities. The violations are stored in columns as
+	 * they are found, no provider violations are retained. Records of which
+	 * the provider stopped traversal due to the maximum number of violations
+	 * are marked truncated, as that maximum is approximate a truncated record
+	 * may hold slightly more violations. An entity descriptor selecting a
+	 * sampled qualifier is validated in the default group instead, its
+	 * sampled group is not validated.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entities
+	 *            The entities. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, per record.
+	 */
+	public <E> ColumnarViolations<E> validateAll(final EntityDescriptor<E> entityDescriptor, final Iterable<? extends E> entities,
+			final Locale locale) {
+		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
+		Validate.notNull(entities, BeanValidationValidator.ENTITIES_NULL);
+		final Class<?> group = this.resolveEntityGroup(entityDescriptor);
+		final Validator validator = this.createValidator(locale, null);
+		final ColumnarViolations<E> result = new ColumnarViolations<E>();
+		int record = 0;
+		for (final E entity : entities) {
+			Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+			if (!this.isTypeSkippable(entity.getClass(), group)
+					&& !(this.directConstraints && this.directEngine.isValid(entityDescriptor, entity, group))) {
+				final ViolationLimiter.Counter counter = this.violationLimiter.begin(null);
+				try {
+					for (final javax.validation.ConstraintViolation<E> violation : validator.validate(entity, group)) {
+						result.add(record, this.converter.resolveProperty(entityDescriptor, violation.getPropertyPath()),
+								violation.getMessage());
+					}
+				} finally {
+					this.violationLimiter.end(counter);
+				}
+				if (counter.isStopped()) {
+					result.truncate(record);
+				}
+			}
+			record++;
+		}
+		result.setRecordCount(record);
+		return result;
+	}
+
+	/**
+	 * Summarizes the violations of a stream of entities. Only the number of
+	 * violations per property path and constraint type is kept, messages are
+	 * not interpolated and no violations are retained, so entities may be
+	 * scanned in constant memory. Indices and keys of collection elements are
+	 * stripped from property paths, so that all elements of a collection
+	 * share their counters. All violations are counted, regardless of the
+	 * maximum number of violations. Summaries of separate scans, such as
+	 * those of separate workers, may be merged. An entity descriptor
+	 * selecting a sampled qualifier is validated in the default group
+	 * instead, its sampled group is not validated.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entities
+	 *            The entities. May not be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The summary.
+	 * @see ViolationSummary#merge(ViolationSummary)
+	 */
+	public <E> ViolationSummary summarize(final EntityDescriptor<E> entityDescriptor, final Iterable<? extends E> entities) {
+		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
+		Validate.notNull(entities, BeanValidationValidator.ENTITIES_NULL);
+		final Class<?> group = this.resolveEntityGroup(entityDescriptor);
+		final Validator validator = this.createContext(null, null).messageInterpolator(new TemplateMessageInterpolator())
+				.getValidator();
+		final ViolationSummary result = new ViolationSummary(entityDescriptor.getEntityType().getName());
+		for (final E entity : entities) {
+			Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+			boolean invalid = false;
+			if (!this.isTypeSkippable(entity.getClass(), group)
+					&& !(this.directConstraints && this.directEngine.isValid(entityDescriptor, entity, group))) {
+				for (final ConstraintViolation<E> violation : validator.validate(entity, group)) {
+					result.add(this.resolvePropertyPath(violation.getPropertyPath()), violation.getConstraintDescriptor()
+							.getAnnotation().annotationType().getName(), 1);
+					invalid = true;
+				}
+			}
+			result.addEntity(invalid);
 		}
-		return this.convertViolations(propertyDescriptor, violations);
+		return result;
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public <E, P> Collection<PropertyViolation<E, P>> validateValue(final PropertyDescriptor<P, E> propertyDescriptor, final P value) {
-		return this.validateValue(propertyDescriptor, value, null);
+	public ValidationResult<ParameterViolation<?>> validateInvocation(final OperationInvocationBuilder<?> invocation) {
+		return this.validateInvocation(invocation, null);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public <E, P> Collection<PropertyViolation<E, P>> validateValue(final PropertyDescriptor<P, E> propertyDescriptor, final P value,
+	public ValidationResult<ParameterViolation<?>> validateInvocation(final OperationInvocationBuilder<?> invocation,
 			final Locale locale) {
-		BeanValidationValidator.LOGGER.debug("Validating with locale {} property: {}, with value {}", locale, propertyDescriptor, value);
-		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
-		final String name = propertyDescriptor.getName();
-		final Class<E> entityType = propertyDescriptor.getEntityType();
-		Set<javax.validation.ConstraintViolation<E>> violations;
-		final Validator validator = this.createValidator(locale);
-		if (propertyDescriptor.adaptable(QualifierSelected.class)) {
-			final QualifierSelected selected = propertyDescriptor.adapt(QualifierSelected.class);
-			violations = validator.validateValue(entityType, name, value, selected.getQualifier());
+		return this.validateInvocation(invocation, locale, null);
+	}
+
+	/**
+	 * Validates an invocation within a deadline. If the deadline has expired,
+	 * the invocation is not validated.
+	 * 
+	 * @param invocation
+	 *            The invocation. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @return The violations.
+	 * @see ValidationResult#isIncomplete()
+	 */
+	public ValidationResult<ParameterViolation<?>> validateInvocation(final OperationInvocationBuilder<?> invocation,
+			final Locale locale, final Deadline deadline) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} invocation: {}", locale, invocation);
+		Validate.notNull(invocation, BeanValidationValidator.INVOCATION_NULL);
+		final Method method = invocation.getOperationDescriptor().getOperationReference().getReferencedOperation().getOperation();
+		ValidationResult<ParameterViolation<?>> result;
+		if (!CheckUtil.isNull(this.constraintIndex)
+				&& this.constraintIndex.isMethodSkippable(method.getDeclaringClass(), method.getName())) {
+			result = new ValidationResult<ParameterViolation<?>>(this.maximumViolations);
 		} else {
-			violations = validator.validateValue(entityType, name, value);
+			final ExecutableValidator validator = this.createValidator(locale, deadline).forExecutables();
+			result = this.invocationValidation.validate(invocation, validator, method, deadline);
 		}
-		return this.convertViolations(propertyDescriptor, violations);
+		return result;
 	}
 
 	/**
-	 * Convert violations.
+	 * Validates an invocation within a deadline, pushing each violation to a
+	 * consumer as it is converted. The consumer may stop validation early.
 	 * 
-	 * @param entityDescriptor
-	 *            The entity descriptor.
-	 * @param violations
-	 *            The violations.
+	 * @param invocation
+	 *            The invocation. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer. May not be null.
+	 */
+	public void validateInvocation(final OperationInvocationBuilder<?> invocation, final Locale locale, final Deadline deadline,
+			final ViolationConsumer<? super ParameterViolation<?>> consumer) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} invocation: {}", locale, invocation);
+		Validate.notNull(invocation, BeanValidationValidator.INVOCATION_NULL);
+		Validate.notNull(consumer, BeanValidationValidator.CONSUMER_NULL);
+		final Method method = invocation.getOperationDescriptor().getOperationReference().getReferencedOperation().getOperation();
+		if ((CheckUtil.isNull(deadline) || !deadline.isExpired())
+				&& (CheckUtil.isNull(this.constraintIndex) || !this.constraintIndex.isMethodSkippable(method.getDeclaringClass(),
+						method.getName()))) {
+			this.invocationValidation.consume(invocation, this.createValidator(locale, deadline).forExecutables(), method, deadline,
+					consumer);
+		}
+	}
+
+	/**
+	 * Validates many invocations of the same operation. The operation and
+	 * validator are resolved once for all invocations.
+	 * 
+	 * @param operationDescriptor
+	 *            The operation descriptor. May not be null.
+	 * @param invocations
+	 *            The invocations of the operation. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
 	 * @param <E>
 	 *            The entity type.
-	 * @return The violations.
+	 * @return The violations, per invocation.
+	 */
+	public <E> Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> validateInvocations(
+			final OperationDescriptor<E> operationDescriptor, final Collection<OperationInvocationBuilder<E>> invocations,
+			final Locale locale) {
+		return this.validateInvocations(operationDescriptor, invocations, locale, null, null);
+	}
+
+	/**
+	 * Validates many invocations of the same operation. The operation and
+	 * validator are resolved once for all invocations. If an executor is
+	 * given, the invocations are validated in parallel in chunks.
+	 * 
+	 * @param operationDescriptor
+	 *            The operation descriptor. May not be null.
+	 * @param invocations
+	 *            The invocations of the operation. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param executor
+	 *            The executor to validate in parallel with, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, per invocation.
+	 */
+	public <E> Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> validateInvocations(
+			final OperationDescriptor<E> operationDescriptor, final Collection<OperationInvocationBuilder<E>> invocations,
+			final Locale locale, final ExecutorService executor) {
+		return this.validateInvocations(operationDescriptor, invocations, locale, executor, null);
+	}
+
+	/**
+	 * Validates many invocations of the same operation within a deadline.
+	 * Invocations that are reached after the deadline expired are not
+	 * validated, their results are marked incomplete.
+	 * 
+	 * @param operationDescriptor
+	 *            The operation descriptor. May not be null.
+	 * @param invocations
+	 *            The invocations of the operation. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param executor
+	 *            The executor to validate in parallel with, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, per invocation.
+	 * @see ValidationResult#isIncomplete()
 	 */
-	private <E> Collection<PropertyViolation<E, ?>> convertViolations(final EntityDescriptor<E> entityDescriptor,
-			final Collection<javax.validation.ConstraintViolation<E>> violations) {
-		final Collection<PropertyViolation<E, ?>> results = new HashSet<PropertyViolation<E, ?>>();
-		for (final javax.validation.ConstraintViolation<E> violation : violations) {
-			final Builder<E, ?> builder = BeanValidationPropertyViolation.createBuilder();
-			builder.propertyDescriptor(entityDescriptor.getProperty(violation.getPropertyPath().toString())).violation(violation);
-			results.add(builder.build());
+	public <E> Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> validateInvocations(
+			final OperationDescriptor<E> operationDescriptor, final Collection<OperationInvocationBuilder<E>> invocations,
+			final Locale locale, final ExecutorService executor, final Deadline deadline) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} {} invocations of: {}", locale, invocations,
+				operationDescriptor);
+		Validate.notNull(operationDescriptor, BeanValidationValidator.OPERATION_DESCRIPTOR_NULL);
+		Validate.notNull(invocations, BeanValidationValidator.INVOCATION_NULL);
+		final Method method = operationDescriptor.getOperationReference().getReferencedOperation().getOperation();
+		final boolean skippable = !CheckUtil.isNull(this.constraintIndex)
+				&& this.constraintIndex.isMethodSkippable(method.getDeclaringClass(), method.getName());
+		final ExecutableValidator validator = this.createValidator(locale, deadline).forExecutables();
+		final Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> result = new IdentityHashMap<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>>();
+		for (final OperationInvocationBuilder<E> invocation : invocations) {
+			Validate.notNull(invocation, BeanValidationValidator.INVOCATION_NULL);
+			Validate.isTrue(operationDescriptor.equals(invocation.getOperationDescriptor()), "Invocation is of another operation.");
+			if (skippable) {
+				result.put(invocation, new ValidationResult<ParameterViolation<?>>(this.maximumViolations));
+			}
 		}
-		return results;
+		if (!skippable) {
+			this.invocationValidation.validateAll(invocations, validator, method, deadline, executor, result);
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <P, E> ValidationResult<PropertyViolation<E, P>> validateProperty(final PropertyDescriptor<P, E> propertyDescriptor,
+			final E entity) {
+		return this.validateProperty(propertyDescriptor, entity, null);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <P, E> ValidationResult<PropertyViolation<E, P>> validateProperty(final PropertyDescriptor<P, E> propertyDescriptor,
+			final E entity, final Locale locale) {
+		return this.validateProperty(propertyDescriptor, entity, locale, null);
 	}
 
 	/**
-	 * Convert violations.
+	 * Validates a property within a deadline.
 	 * 
 	 * @param propertyDescriptor
-	 *            The property descriptor.
-	 * @param violations
-	 *            The violations.
+	 *            The property descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
 	 * @param <P>
 	 *            The property type.
 	 * @param <E>
 	 *            The entity type.
 	 * @return The violations.
+	 * @see ValidationResult#isIncomplete()
 	 */
-	private <P, E> Collection<PropertyViolation<E, P>> convertViolations(final PropertyDescriptor<P, E> propertyDescriptor,
-			final Collection<javax.validation.ConstraintViolation<E>> violations) {
-		final Collection<PropertyViolation<E, P>> results = new HashSet<PropertyViolation<E, P>>();
-		for (final javax.validation.ConstraintViolation<E> violation : violations) {
-			final Builder<E, P> builder = BeanValidationPropertyViolation.createBuilder();
-			builder.propertyDescriptor(propertyDescriptor).violation(violation);
-			results.add(builder.build());
-		}
-		return results;
+	public <P, E> ValidationResult<PropertyViolation<E, P>> validateProperty(final PropertyDescriptor<P, E> propertyDescriptor,
+			final E entity, final Locale locale, final Deadline deadline) {
+		final ValidationResult<PropertyViolation<E, P>> result = new ValidationResult<PropertyViolation<E, P>>(this.maximumViolations);
+		this.converter.markLimits(result, this.consumeProperty(propertyDescriptor, entity, locale, deadline, result));
+		return result;
 	}
 
 	/**
-	 * Create the builder.
+	 * Validates a property within a deadline, pushing each violation to a
+	 * consumer as it is converted. The consumer may stop validation early.
 	 * 
-	 * @param node
-	 *            The node.
-	 * @param descriptor
-	 *            The operation descriptor.
-	 * @return The builder.
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer. May not be null.
+	 * @param <P>
+	 *            The property type.
 	 * @param <E>
 	 *            The entity type.
-	 * @param <P>
-	 *            The parameter type.
 	 */
-	private <E, P> BeanValidationParameterViolation.Builder<P> createBuilder(final Path.ParameterNode node,
-			final OperationDescriptor<E> descriptor) {
-		final BeanValidationParameterViolation.Builder<P> builder = BeanValidationParameterViolation.createBuilder();
-		builder.parameterDescriptor(descriptor.getParameter(node.getParameterIndex()));
-		return builder;
+	public <P, E> void validateProperty(final PropertyDescriptor<P, E> propertyDescriptor, final E entity, final Locale locale,
+			final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, P>> consumer) {
+		Validate.notNull(consumer, BeanValidationValidator.CONSUMER_NULL);
+		this.consumeProperty(propertyDescriptor, entity, locale, deadline, consumer);
 	}
 
 	/**
-	 * Creates a validator.
+	 * Validates several properties of an entity. A single validator is used
+	 * for all properties and is only created if a property is not known to
+	 * be valid.
 	 * 
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param propertyDescriptors
+	 *            The property descriptors. May not be null.
 	 * @param locale
 	 *            The message locale, may be null.
-	 * @return A validator.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations per property, in the order of the descriptors.
 	 */
-	private Validator createValidator(final Locale locale) {
-		final ValidatorContext validatorContext = this.validatorFactory.usingContext();
-		if (!CheckUtil.isNull(locale)) {
-			final DelegatingLocaleAwareMessageInterpolator interpolator = new DelegatingLocaleAwareMessageInterpolator();
-			interpolator.delegate(this.validatorFactory.getMessageInterpolator()).locale(locale);
-			validatorContext.messageInterpolator(interpolator);
+	public <E> Map<PropertyDescriptor<?, E>, ValidationResult<PropertyViolation<E, ?>>> validateProperties(final E entity,
+			final Collection<? extends PropertyDescriptor<?, E>> propertyDescriptors, final Locale locale) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} properties: {}, entity {}", locale, propertyDescriptors,
+				entity);
+		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+		Validate.notNull(propertyDescriptors, "Property descriptors may not be null.");
+		final Map<PropertyDescriptor<?, E>, ValidationResult<PropertyViolation<E, ?>>> result = new LinkedHashMap<PropertyDescriptor<?, E>, ValidationResult<PropertyViolation<E, ?>>>();
+		final Class<?> entityType = entity.getClass();
+		Validator validator = null;
+		for (final PropertyDescriptor<?, E> propertyDescriptor : propertyDescriptors) {
+			Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+			final String name = propertyDescriptor.getName();
+			final Class<?> group = this.resolveGroup(propertyDescriptor);
+			final ValidationResult<PropertyViolation<E, ?>> results = new ValidationResult<PropertyViolation<E, ?>>(
+					this.maximumViolations);
+			if (!this.isPropertySkippable(entityType, name)
+					&& !(this.directConstraints && this.directEngine.isValid(entityType, name, group,
+							propertyDescriptor.getValue(entity)))) {
+				if (CheckUtil.isNull(validator)) {
+					validator = this.createValidator(locale, null);
+				}
+				Set<javax.validation.ConstraintViolation<E>> violations;
+				final ViolationLimiter.Counter counter = this.violationLimiter.begin(null);
+				try {
+					violations = validator.validateProperty(entity, name, group);
+				} finally {
+					this.violationLimiter.end(counter);
+				}
+				this.converter.pushViolations(propertyDescriptor, violations, results);
+				this.converter.markLimits(results, counter);
+			}
+			result.put(propertyDescriptor, results);
 		}
-		return validatorContext.getValidator();
+		return result;
 	}
 
 	/**
-	 * Inner invocation validation.
+	 * Validates an entity under several qualifiers.
 	 * 
-	 * @param invocation
-	 *            The invocation.
-	 * @param validator
-	 *            The validator.
-	 * @param parameters
-	 *            The invocation parameters.
-	 * @return The exceptions.
-	 * @param <E>
-	 *            The entity type.
-	 */
-	private <E> Collection<ParameterViolation<?>> innerValidateInvocation(final OperationInvocationBuilder<E> invocation,
-			final ExecutableValidator validator, final Object[] parameters) {
-		final Set<ConstraintViolation<E>> violations = validator.validateParameters(invocation.getTarget(), invocation
-				.getOperationDescriptor().getOperationReference().getReferencedOperation().getOperation(), parameters);
-		final Set<ParameterViolation<?>> result = new HashSet<ParameterViolation<?>>();
-		for (final ConstraintViolation<E> violation : violations) {
-			final Iterator<Path.Node> pathIt = violation.getPropertyPath().iterator();
-			pathIt.next();
-			final Path.Node node = pathIt.next();
-			if (node instanceof Path.ParameterNode) {
-				final Path.ParameterNode paramNode = (Path.ParameterNode) node;
-				final BeanValidationParameterViolation.Builder<?> builder = this.createBuilder(paramNode,
-						invocation.getOperationDescriptor());
-				builder.violation(violation);
-				result.add(builder.build());
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param qualifiers
+	 *            The qualifiers. May not be empty.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations per qualifier.
+	 * @see #validateQualifiers(EntityDescriptor, Object, Collection, Locale)
+	 */
+	public <E> Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> validateQualifiers(final EntityDescriptor<E> entityDescriptor,
+			final E entity, final Collection<Class<?>> qualifiers) {
+		return this.validateQualifiers(entityDescriptor, entity, qualifiers, null);
+	}
+
+	/**
+	 * Validates an entity under several qualifiers in a single pass. A
+	 * constraint shared by several qualifiers is validated once, and its
+	 * violations are reported for every qualifier whose group includes the
+	 * constraint. The default group is selected with {@link Default}. The
+	 * violations of a qualifier equal those of validating the qualifier
+	 * entity descriptor. Types redefining groups through sequences or group
+	 * conversions are validated once per qualifier. A sampled qualifier is
+	 * validated in the default group, so its violations are those of the
+	 * default group.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor. May not be null.
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @param qualifiers
+	 *            The qualifiers. May not be empty.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations per qualifier, in the order of the qualifiers.
+	 */
+	public <E> Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> validateQualifiers(final EntityDescriptor<E> entityDescriptor,
+			final E entity, final Collection<Class<?>> qualifiers, final Locale locale) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} entity {} for qualifiers: {}", locale, entity, qualifiers);
+		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
+		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+		Validate.notEmpty(qualifiers, "Qualifiers may not be empty.");
+		final Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> result = new LinkedHashMap<Class<?>, ValidationResult<PropertyViolation<E, ?>>>();
+		final Map<Class<?>, Class<?>> groups = new LinkedHashMap<Class<?>, Class<?>>();
+		for (final Class<?> qualifier : qualifiers) {
+			Class<?> group = qualifier;
+			if (this.isSampledGroup(group)) {
+				group = Default.class;
+			}
+			if (!this.isTypeSkippable(entity.getClass(), group)) {
+				groups.put(qualifier, group);
 			}
 		}
-		return result;
+		final Set<Class<?>> validatedGroups = new LinkedHashSet<Class<?>>(groups.values());
+		if (this.isSinglePass(entity.getClass(), validatedGroups)) {
+			Set<javax.validation.ConstraintViolation<E>> violations = Collections.emptySet();
+			ViolationLimiter.Counter counter = null;
+			if (!validatedGroups.isEmpty()) {
+				counter = this.violationLimiter.begin(null);
+				try {
+					violations = this.createValidator(locale, null).validate(entity,
+							validatedGroups.toArray(new Class<?>[validatedGroups.size()]));
+				} finally {
+					this.violationLimiter.end(counter);
+				}
+			}
+			for (final Class<?> qualifier : qualifiers) {
+				final List<javax.validation.ConstraintViolation<E>> qualifierViolations = new LinkedList<javax.validation.ConstraintViolation<E>>();
+				if (groups.containsKey(qualifier)) {
+					for (final javax.validation.ConstraintViolation<E> violation : violations) {
+						if (this.isInGroup(violation, groups.get(qualifier))) {
+							qualifierViolations.add(violation);
+						}
+					}
+				}
+				result.put(qualifier, this.converter.convertViolations(this.resolveQualifierEntity(entityDescriptor, qualifier),
+						qualifierViolations, counter));
+			}
+		} else {
+			for (final Class<?> qualifier : qualifiers) {
+				result.put(qualifier, this.validate(this.resolveQualifierEntity(entityDescriptor, qualifier), entity, locale));
+			}
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <E, P> ValidationResult<PropertyViolation<E, P>> validateValue(final PropertyDescriptor<P, E> propertyDescriptor,
+			final P value) {
+		return this.validateValue(propertyDescriptor, value, null);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <E, P> ValidationResult<PropertyViolation<E, P>> validateValue(final PropertyDescriptor<P, E> propertyDescriptor,
+			final P value, final Locale locale) {
+		return this.validateValue(propertyDescriptor, value, locale, null);
+	}
+
+	/**
+	 * Validates a value within a deadline. If coalescing is on and there is
+	 * no deadline, concurrent validations of the same value instance share a
+	 * single validation.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The violations.
+	 * @see ValidationResult#isIncomplete()
+	 */
+	public <E, P> ValidationResult<PropertyViolation<E, P>> validateValue(final PropertyDescriptor<P, E> propertyDescriptor,
+			final P value, final Locale locale, final Deadline deadline) {
+		ValidationResult<PropertyViolation<E, P>> result;
+		if (CheckUtil.isNull(this.coalescer) || !CheckUtil.isNull(deadline)) {
+			result = this.collectValue(propertyDescriptor, value, locale, deadline);
+		} else {
+			result = this.coalescer.coalesce(propertyDescriptor, value, locale,
+					new Callable<ValidationResult<PropertyViolation<E, P>>>() {
+						/** {@inheritDoc} */
+						@Override
+						public ValidationResult<PropertyViolation<E, P>> call() {
+							return BeanValidationValidator.this.collectValue(propertyDescriptor, value, locale, null);
+						}
+					});
+		}
+		return result;
+	}
+
+	/**
+	 * Validates a value within a deadline, pushing each violation to a
+	 * consumer as it is converted. The consumer may stop validation early.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer. May not be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	public <E, P> void validateValue(final PropertyDescriptor<P, E> propertyDescriptor, final P value, final Locale locale,
+			final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, P>> consumer) {
+		Validate.notNull(consumer, BeanValidationValidator.CONSUMER_NULL);
+		this.consumeValue(propertyDescriptor, value, locale, deadline, consumer);
+	}
+
+	/**
+	 * Validates candidate values of a property.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param values
+	 *            The values. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The results, per value in iteration order.
+	 */
+	public <E, P> ValueValidationResults<E, P> validateValues(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Collection<? extends P> values, final Locale locale) {
+		return this.validateValues(propertyDescriptor, values, locale, null);
+	}
+
+	/**
+	 * Validates candidate values of a property. Metadata is resolved and the
+	 * validator is created once for all values. If an executor is given and
+	 * there are more values than fit a single chunk, the chunks are validated
+	 * in parallel.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param values
+	 *            The values. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param executor
+	 *            The executor, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The results, per value in iteration order.
+	 */
+	public <E, P> ValueValidationResults<E, P> validateValues(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Collection<? extends P> values, final Locale locale, final ExecutorService executor) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} property: {}, with values {}", locale, propertyDescriptor,
+				values);
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		Validate.notNull(values, "Values may not be null.");
+		final ValueValidationResults<E, P> result = new ValueValidationResults<E, P>(values.size(), this.maximumViolations);
+		if (this.isPropertySkippable(propertyDescriptor.getEntityType(), propertyDescriptor.getName())) {
+			result.markValid();
+		} else {
+			this.valueValidation.validateAll(propertyDescriptor, values, this.createValidator(locale, null),
+					this.resolveGroup(propertyDescriptor), executor, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates candidate values of a property.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param values
+	 *            The values. May not be null.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The results, per value in array order.
+	 */
+	public <E, P> ValueValidationResults<E, P> validateValues(final PropertyDescriptor<P, E> propertyDescriptor, final P[] values,
+			final Locale locale) {
+		Validate.notNull(values, "Values may not be null.");
+		return this.validateValues(propertyDescriptor, Arrays.asList(values), locale, null);
+	}
+
+	/**
+	 * Validates a primitive floating point value. With direct constraints,
+	 * numeric constraints are checked without boxing, the value is only boxed
+	 * and validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Double>> validateDoubleValue(final PropertyDescriptor<Double, E> propertyDescriptor,
+			final double value) {
+		return this.validateDoubleValue(propertyDescriptor, value, null);
+	}
+
+	/**
+	 * Validates a primitive floating point value. With direct constraints,
+	 * numeric constraints are checked without boxing, the value is only boxed
+	 * and validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Double>> validateDoubleValue(final PropertyDescriptor<Double, E> propertyDescriptor,
+			final double value, final Locale locale) {
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		final String name = propertyDescriptor.getName();
+		final Class<E> entityType = propertyDescriptor.getEntityType();
+		Collection<PropertyViolation<E, Double>> result;
+		if (this.isPropertySkippable(entityType, name)
+				|| (this.directConstraints && this.directEngine.isValid(entityType, name,
+						this.resolveGroup(propertyDescriptor), value))) {
+			result = Collections.emptySet();
+		} else {
+			result = this.validateValue(propertyDescriptor, Double.valueOf(value), locale);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates a primitive integer value. With direct constraints, numeric
+	 * constraints are checked without boxing, the value is only boxed and
+	 * validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Integer>> validateIntValue(final PropertyDescriptor<Integer, E> propertyDescriptor,
+			final int value) {
+		return this.validateIntValue(propertyDescriptor, value, null);
+	}
+
+	/**
+	 * Validates a primitive integer value. With direct constraints, numeric
+	 * constraints are checked without boxing, the value is only boxed and
+	 * validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Integer>> validateIntValue(final PropertyDescriptor<Integer, E> propertyDescriptor,
+			final int value, final Locale locale) {
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		final String name = propertyDescriptor.getName();
+		final Class<E> entityType = propertyDescriptor.getEntityType();
+		Collection<PropertyViolation<E, Integer>> result;
+		if (this.isPropertySkippable(entityType, name)
+				|| (this.directConstraints && this.directEngine.isValid(entityType, name,
+						this.resolveGroup(propertyDescriptor), (long) value))) {
+			result = Collections.emptySet();
+		} else {
+			result = this.validateValue(propertyDescriptor, Integer.valueOf(value), locale);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates a primitive long value. With direct constraints, numeric
+	 * constraints are checked without boxing, the value is only boxed and
+	 * validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Long>> validateLongValue(final PropertyDescriptor<Long, E> propertyDescriptor,
+			final long value) {
+		return this.validateLongValue(propertyDescriptor, value, null);
+	}
+
+	/**
+	 * Validates a primitive long value. With direct constraints, numeric
+	 * constraints are checked without boxing, the value is only boxed and
+	 * validated by the provider if it may be invalid or is constrained
+	 * otherwise.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor. May not be null.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, an immutable empty collection if the value is
+	 *         valid.
+	 */
+	public <E> Collection<PropertyViolation<E, Long>> validateLongValue(final PropertyDescriptor<Long, E> propertyDescriptor,
+			final long value, final Locale locale) {
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		final String name = propertyDescriptor.getName();
+		final Class<E> entityType = propertyDescriptor.getEntityType();
+		Collection<PropertyViolation<E, Long>> result;
+		if (this.isPropertySkippable(entityType, name)
+				|| (this.directConstraints && this.directEngine.isValid(entityType, name,
+						this.resolveGroup(propertyDescriptor), value))) {
+			result = Collections.emptySet();
+		} else {
+			result = this.validateValue(propertyDescriptor, Long.valueOf(value), locale);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates an entity through the result cache.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations, a copy of the cached violations if the entity
+	 *         version is unchanged.
+	 */
+	@SuppressWarnings("unchecked")
+	// Results are cached per entity descriptor.
+	private <E> ValidationResult<PropertyViolation<E, ?>> cachedEntity(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Locale locale) {
+		final Object version = this.resultCache.getVersion(entity);
+		ValidationResult<PropertyViolation<E, ?>> result = null;
+		if (!CheckUtil.isNull(version)) {
+			result = (ValidationResult<PropertyViolation<E, ?>>) this.resultCache.get(entityDescriptor, entity, locale, version);
+		}
+		if (CheckUtil.isNull(result)) {
+			result = this.shareEntity(entityDescriptor, entity, locale);
+			if (!CheckUtil.isNull(version)) {
+				this.resultCache.put(entityDescriptor, entity, locale, version, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Validates an entity, collecting the violations.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 */
+	private <E> ValidationResult<PropertyViolation<E, ?>> collectEntity(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Locale locale, final Deadline deadline) {
+		final ValidationResult<PropertyViolation<E, ?>> result = new ValidationResult<PropertyViolation<E, ?>>(
+				this.maximumViolations);
+		this.converter.markLimits(result, this.consumeEntity(entityDescriptor, entity, locale, deadline, result));
+		return result;
+	}
+
+	/**
+	 * Validates a value, collecting the violations.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The violations.
+	 */
+	private <E, P> ValidationResult<PropertyViolation<E, P>> collectValue(final PropertyDescriptor<P, E> propertyDescriptor,
+			final P value, final Locale locale, final Deadline deadline) {
+		final ValidationResult<PropertyViolation<E, P>> result = new ValidationResult<PropertyViolation<E, P>>(this.maximumViolations);
+		this.converter.markLimits(result, this.consumeValue(propertyDescriptor, value, locale, deadline, result));
+		return result;
+	}
+
+	/**
+	 * Validates an entity without a deadline, sharing the validation with
+	 * identical concurrent requests if coalescing is on.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 */
+	private <E> ValidationResult<PropertyViolation<E, ?>> shareEntity(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Locale locale) {
+		ValidationResult<PropertyViolation<E, ?>> result;
+		if (CheckUtil.isNull(this.coalescer)) {
+			result = this.collectEntity(entityDescriptor, entity, locale, null);
+		} else {
+			result = this.coalescer.coalesce(entityDescriptor, entity, locale,
+					new Callable<ValidationResult<PropertyViolation<E, ?>>>() {
+						/** {@inheritDoc} */
+						@Override
+						public ValidationResult<PropertyViolation<E, ?>> call() {
+							return BeanValidationValidator.this.collectEntity(entityDescriptor, entity, locale, null);
+						}
+					});
+		}
+		return result;
+	}
+
+	/**
+	 * Validates an entity, pushing the violations to a consumer.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The counter of the provider call, may be null.
+	 */
+	private <E> ViolationLimiter.Counter consumeEntity(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Locale locale, final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, ?>> consumer) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} entity: {}, value {}.", locale, entity, entity);
+		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
+		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+		final Class<?> group = this.resolveEntityGroup(entityDescriptor);
+		Set<javax.validation.ConstraintViolation<E>> violations;
+		ViolationLimiter.Counter counter = null;
+		if (this.isTypeSkippable(entity.getClass(), group)
+				|| (this.directConstraints && this.directEngine.isValid(entityDescriptor, entity, group))) {
+			violations = Collections.emptySet();
+		} else {
+			counter = this.violationLimiter.begin(deadline);
+			try {
+				violations = this.createValidator(locale, deadline).validate(entity, group);
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+		}
+		if (!this.converter.pushViolations(entityDescriptor, violations, consumer) && !CheckUtil.isNull(counter)) {
+			counter.stop();
+		}
+		this.sampleEntity(entityDescriptor, entity, locale, counter);
+		return counter;
+	}
+
+	/**
+	 * Validates a property, pushing the violations to a consumer.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <P>
+	 *            The property type.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The counter of the provider call, may be null.
+	 */
+	private <P, E> ViolationLimiter.Counter consumeProperty(final PropertyDescriptor<P, E> propertyDescriptor, final E entity,
+			final Locale locale, final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, P>> consumer) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} property: {}, entity {}", locale, propertyDescriptor, entity);
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+		final String name = propertyDescriptor.getName();
+		final Class<?> group = this.resolveGroup(propertyDescriptor);
+		Set<javax.validation.ConstraintViolation<E>> violations;
+		ViolationLimiter.Counter counter = null;
+		if (this.isPropertySkippable(entity.getClass(), name)
+				|| (this.directConstraints && this.directEngine.isValid(entity.getClass(), name, group,
+						propertyDescriptor.getValue(entity)))) {
+			violations = Collections.emptySet();
+		} else {
+			counter = this.violationLimiter.begin(deadline);
+			try {
+				violations = this.createValidator(locale, deadline).validateProperty(entity, name, group);
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+		}
+		this.converter.pushViolations(propertyDescriptor, violations, consumer);
+		return counter;
+	}
+
+	/**
+	 * Validates a value, pushing the violations to a consumer.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param value
+	 *            The value.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 * @return The counter of the provider call, may be null.
+	 */
+	private <E, P> ViolationLimiter.Counter consumeValue(final PropertyDescriptor<P, E> propertyDescriptor, final P value,
+			final Locale locale, final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, P>> consumer) {
+		BeanValidationValidator.LOGGER.debug("Validating with locale {} property: {}, with value {}", locale, propertyDescriptor, value);
+		Validate.notNull(propertyDescriptor, BeanValidationValidator.PROPERTY_DESCRIPTOR_NULL);
+		final String name = propertyDescriptor.getName();
+		final Class<E> entityType = propertyDescriptor.getEntityType();
+		final Class<?> group = this.resolveGroup(propertyDescriptor);
+		Set<javax.validation.ConstraintViolation<E>> violations;
+		ViolationLimiter.Counter counter = null;
+		if (this.isPropertySkippable(entityType, name)
+				|| (this.directConstraints && this.directEngine.isValid(entityType, name, group, value))) {
+			violations = Collections.emptySet();
+		} else {
+			counter = this.violationLimiter.begin(deadline);
+			try {
+				violations = this.createValidator(locale, deadline).validateValue(entityType, name, value, group);
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+		}
+		this.converter.pushViolations(propertyDescriptor, violations, consumer);
+		return counter;
+	}
+
+	/**
+	 * Creates a validator.
+	 * 
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @return A validator.
+	 */
+	private Validator createValidator(final Locale locale, final Deadline deadline) {
+		return this.createContext(locale, deadline).getValidator();
+	}
+
+	/**
+	 * Creates a validator context.
+	 * 
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @return A validator context.
+	 */
+	private ValidatorContext createContext(final Locale locale, final Deadline deadline) {
+		final ValidatorContext validatorContext = this.validatorFactory.usingContext();
+		if (!CheckUtil.isNull(locale)) {
+			final DelegatingLocaleAwareMessageInterpolator interpolator = new DelegatingLocaleAwareMessageInterpolator();
+			interpolator.delegate(this.validatorFactory.getMessageInterpolator()).locale(locale);
+			validatorContext.messageInterpolator(interpolator);
+		}
+		if (!CheckUtil.isNull(this.profiler)) {
+			validatorContext.constraintValidatorFactory(this.profiler.getFactory());
+			validatorContext.traversableResolver(this.profiler.getResolver());
+		} else {
+			if (this.violationLimiter.isCounting()) {
+				validatorContext.constraintValidatorFactory(this.violationLimiter.getFactory());
+			}
+			if (this.violationLimiter.isCounting() || !CheckUtil.isNull(deadline)) {
+				validatorContext.traversableResolver(this.violationLimiter.getResolver());
+			}
+		}
+		return validatorContext;
+	}
+
+	/**
+	 * Tests if a violation is of a constraint in a group, directly or through
+	 * group inheritance.
+	 * 
+	 * @param violation
+	 *            The violation.
+	 * @param group
+	 *            The group.
+	 * @return True if and only if validating the group reports the violation.
+	 */
+	private boolean isInGroup(final ConstraintViolation<?> violation, final Class<?> group) {
+		boolean result = false;
+		for (final Class<?> constraintGroup : violation.getConstraintDescriptor().getGroups()) {
+			result = result || constraintGroup.isAssignableFrom(group);
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if property validation may be skipped according to the constraint
+	 * index.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param name
+	 *            The property name.
+	 * @return True if and only if the property is known to be unconstrained.
+	 */
+	private boolean isPropertySkippable(final Class<?> entityType, final String name) {
+		return !CheckUtil.isNull(this.constraintIndex) && this.constraintIndex.isPropertySkippable(entityType, name);
+	}
+
+	/**
+	 * Tests if a group is only validated on samples.
+	 * 
+	 * @param group
+	 *            The group.
+	 * @return True if and only if the group is sampled.
+	 */
+	private boolean isSampledGroup(final Class<?> group) {
+		return !CheckUtil.isNull(this.sampler) && this.sampler.isSampled(group);
+	}
+
+	/**
+	 * Tests if groups may be validated in a single pass. Group sequences and
+	 * group conversions change which constraints a group includes, so the
+	 * violations could not be partitioned by constraint groups. These are
+	 * looked up on the entity type and, by their declared types, on all
+	 * cascaded beans. Cascaded containers are not resolved to their element
+	 * types and are not validated in a single pass.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param groups
+	 *            The groups.
+	 * @return True if and only if the groups may be validated together.
+	 */
+	private boolean isSinglePass(final Class<?> entityType, final Collection<Class<?>> groups) {
+		boolean result = true;
+		for (final Class<?> group : groups) {
+			result = result && !DirectConstraintEngine.hasSequence(group);
+		}
+		final Validator validator = this.validatorFactory.getValidator();
+		final Set<Class<?>> visited = new HashSet<Class<?>>();
+		final LinkedList<Class<?>> pending = new LinkedList<Class<?>>();
+		pending.add(entityType);
+		while (result && !pending.isEmpty()) {
+			final Class<?> type = pending.removeFirst();
+			if (visited.add(type)) {
+				result = !DirectConstraintEngine.hasSequence(type);
+				for (final javax.validation.metadata.PropertyDescriptor property : validator.getConstraintsForClass(type)
+						.getConstrainedProperties()) {
+					result = result && property.getGroupConversions().isEmpty();
+					if (property.isCascaded()) {
+						final Class<?> elementType = property.getElementClass();
+						result = result && !elementType.isArray() && !Iterable.class.isAssignableFrom(elementType)
+								&& !Map.class.isAssignableFrom(elementType);
+						pending.add(elementType);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if entity validation may be skipped according to the constraint
+	 * index.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param group
+	 *            The validated group.
+	 * @return True if and only if the entity is known to be unconstrained.
+	 */
+	private boolean isTypeSkippable(final Class<?> entityType, final Class<?> group) {
+		return !CheckUtil.isNull(this.constraintIndex) && this.constraintIndex.isTypeSkippable(entityType, group);
+	}
+
+	/**
+	 * Resolves the validated group of the elements of a cascaded property,
+	 * applying the group conversions of the property.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @return The converted group, or the validated group of the property if
+	 *         it is not converted.
+	 */
+	private Class<?> resolveElementGroup(final PropertyDescriptor<?, ?> propertyDescriptor) {
+		final Class<?> group = this.resolveGroup(propertyDescriptor);
+		Class<?> result = group;
+		final javax.validation.metadata.PropertyDescriptor property = this.validatorFactory.getValidator()
+				.getConstraintsForClass(propertyDescriptor.getEntityType()).getConstraintsForProperty(propertyDescriptor.getName());
+		if (!CheckUtil.isNull(property)) {
+			for (final GroupConversionDescriptor conversion : property.getGroupConversions()) {
+				if (conversion.getFrom().equals(group)) {
+					result = conversion.getTo();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the validated group of an entity. A sampled qualifier is
+	 * validated in the default group instead.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @return The selected qualifier, or the default group.
+	 */
+	private Class<?> resolveEntityGroup(final EntityDescriptor<?> entityDescriptor) {
+		Class<?> group = Default.class;
+		if (entityDescriptor.adaptable(QualifierSelected.class)) {
+			group = entityDescriptor.adapt(QualifierSelected.class).getQualifier();
+		}
+		if (this.isSampledGroup(group)) {
+			group = Default.class;
+		}
+		return group;
+	}
+
+	/**
+	 * Resolves the validated group of a property.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @return The selected qualifier, or the default group.
+	 */
+	private Class<?> resolveGroup(final PropertyDescriptor<?, ?> propertyDescriptor) {
+		Class<?> group = Default.class;
+		if (propertyDescriptor.adaptable(QualifierSelected.class)) {
+			group = propertyDescriptor.adapt(QualifierSelected.class).getQualifier();
+		}
+		return group;
+	}
+
+	/**
+	 * Resolves the property path of a violation, without the indices and keys
+	 * of collection elements.
+	 * 
+	 * @param path
+	 *            The violation path.
+	 * @return The property path, empty for entity constraints.
+	 */
+	private String resolvePropertyPath(final Path path) {
+		final StringBuilder builder = new StringBuilder();
+		for (final Path.Node node : path) {
+			if (!CheckUtil.isNull(node.getName())) {
+				if (builder.length() > 0) {
+					builder.append('.');
+				}
+				builder.append(node.getName());
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Resolves the entity descriptor of a qualifier.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param qualifier
+	 *            The qualifier, or the default group.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The qualifier entity descriptor.
+	 */
+	@SuppressWarnings("unchecked")
+	// Qualifier entities describe the same entity type.
+	private <E> EntityDescriptor<E> resolveQualifierEntity(final EntityDescriptor<E> entityDescriptor, final Class<?> qualifier) {
+		EntityDescriptor<E> result = entityDescriptor;
+		if (!Default.class.equals(qualifier) && entityDescriptor.adaptable(QualifierEntityDescriptor.class)) {
+			result = entityDescriptor.adapt(QualifierEntityDescriptor.class).getQualifierEntity(qualifier);
+		}
+		return result;
+	}
+
+	/**
+	 * Samples an entity, unless its validation was cut short.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param counter
+	 *            The counter of the provider call, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private <E> void sampleEntity(final EntityDescriptor<E> entityDescriptor, final E entity, final Locale locale,
+			final ViolationLimiter.Counter counter) {
+		if (!CheckUtil.isNull(this.sampler) && this.sampler.isDue(counter)) {
+			this.sampler.sample(entityDescriptor, entity, this.createValidator(locale, null));
+		}
+	}
+
+	/**
+	 * Validates an entity for a consumer one property at a time, so that the
+	 * provider does no further work once the consumer stops. Class
+	 * constraints and cascaded properties are validated in a last pass, in
+	 * which the already validated properties are not reachable. An entity of
+	 * which the group is redefined by a sequence is validated in a single
+	 * pass.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private <E> void streamEntity(final EntityDescriptor<E> entityDescriptor, final E entity, final Locale locale,
+			final Deadline deadline, final ViolationConsumer<? super PropertyViolation<E, ?>> consumer) {
+		Validate.notNull(entityDescriptor, BeanValidationValidator.ENTITY_DESCRIPTOR_NULL);
+		Validate.notNull(entity, BeanValidationValidator.ENTITY_NULL);
+		final Class<?> entityType = entity.getClass();
+		final Class<?> group = this.resolveEntityGroup(entityDescriptor);
+		if (DirectConstraintEngine.hasSequence(entityType) || DirectConstraintEngine.hasSequence(group)) {
+			this.consumeEntity(entityDescriptor, entity, locale, deadline, consumer);
+		} else if (this.isTypeSkippable(entityType, group)
+				|| (this.directConstraints && this.directEngine.isValid(entityDescriptor, entity, group))) {
+			this.sampleEntity(entityDescriptor, entity, locale, null);
+		} else {
+			final BeanDescriptor beanDescriptor = this.validatorFactory.getValidator().getConstraintsForClass(entityType);
+			final ValidatorContext validatorContext = this.createContext(locale, deadline);
+			if (CheckUtil.isNull(this.profiler)) {
+				validatorContext.traversableResolver(this.violationLimiter.getResolver());
+			}
+			final Validator validator = validatorContext.getValidator();
+			final Set<String> validated = new HashSet<String>();
+			boolean cascaded = false;
+			boolean proceed = true;
+			final ViolationLimiter.Counter counter = this.violationLimiter.begin(deadline);
+			try {
+				final Iterator<javax.validation.metadata.PropertyDescriptor> propertyIt = beanDescriptor.getConstrainedProperties()
+						.iterator();
+				while (proceed && propertyIt.hasNext() && !this.violationLimiter.isExhausted()) {
+					final javax.validation.metadata.PropertyDescriptor property = propertyIt.next();
+					final String name = property.getPropertyName();
+					if (property.isCascaded()) {
+						cascaded = true;
+					} else {
+						validated.add(name);
+						final PropertyDescriptor<?, E> propertyDescriptor = entityDescriptor.getProperty(name);
+						if (!this.isPropertySkippable(entityType, name)
+								&& !(this.directConstraints && !CheckUtil.isNull(propertyDescriptor) && this.directEngine.isValid(
+										entityType, name, group, propertyDescriptor.getValue(entity)))) {
+							proceed = this.converter.pushViolations(entityDescriptor, validator.validateProperty(entity, name, group),
+									consumer);
+						}
+					}
+				}
+				if (proceed && (cascaded || beanDescriptor.hasConstraints()) && !this.violationLimiter.isExhausted()) {
+					counter.skip(validated);
+					proceed = this.converter.pushViolations(entityDescriptor, validator.validate(entity, group), consumer);
+				}
+				if (!proceed) {
+					counter.stop();
+				}
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+			this.sampleEntity(entityDescriptor, entity, locale, counter);
+		}
+	}
+
+	/**
+	 * A builder.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	public static final class Builder {
+		/** Whether to coalesce identical concurrent requests. */
+		private transient boolean coalescingBuilder;
+		/** The coalescing key extractors, per validated type. */
+		private transient Map<Class<?>, CoalescingKeyExtractor> coalescingKeysBuilder;
+		/** The constraint index. */
+		private transient ConstraintIndex constraintIndexBuilder;
+		/** Whether violations are detached. */
+		private transient boolean detachedBuilder;
+		/** Whether to check built-in constraints directly. */
+		private transient boolean directConstraintsBuilder;
+		/** The validator factory. */
+		private transient ValidatorFactory factoryBuilder;
+		/** The maximum number of violations per call. */
+		private transient int maximumViolationsBuilder;
+		/** Whether to profile constraints. */
+		private transient boolean profilingBuilder;
+		/** The result cache. */
+		private transient ResultCache resultCacheBuilder;
+		/** The sampling policy. */
+		private transient SamplingPolicy samplingPolicyBuilder;
+
+		/** Default constructor. */
+		protected Builder() {
+			this.coalescingKeysBuilder = new HashMap<Class<?>, CoalescingKeyExtractor>();
+			this.maximumViolationsBuilder = Integer.MAX_VALUE;
+		}
+
+		/**
+		 * Builds the validator. Resolves the default factory if none was set.
+		 * 
+		 * @return The validator.
+		 */
+		public BeanValidationValidator build() {
+			if (CheckUtil.isNull(this.factoryBuilder)) {
+				this.factoryBuilder = Validation.buildDefaultValidatorFactory();
+			}
+			return new BeanValidationValidator(this);
+		}
+
+		/**
+		 * Sets whether identical concurrent requests are coalesced. Entity
+		 * and value validations without a deadline then share a validation
+		 * in flight of the same entity or value instance, per descriptor and
+		 * locale, or of an equal coalescing key if declared. Every request
+		 * receives its own copy of the result.
+		 * 
+		 * @param coalescing
+		 *            True to coalesce requests.
+		 * @return The builder.
+		 * @see RequestCoalescer
+		 * @see #coalescingKey(Class, CoalescingKeyExtractor)
+		 */
+		public Builder coalescing(final boolean coalescing) {
+			this.coalescingBuilder = coalescing;
+			return this;
+		}
+
+		/**
+		 * Declares the coalescing key extractor of an entity or value type.
+		 * Coalesced requests for distinct entities or values of the type
+		 * with equal keys then share a validation. The extractor applies to
+		 * the type and its subtypes, the extractor of the most specific
+		 * declared type applies. Only used if coalescing is on.
+		 * 
+		 * @param type
+		 *            The entity or value type. May not be null.
+		 * @param extractor
+		 *            The key extractor. May not be null.
+		 * @return The builder.
+		 * @see #coalescing(boolean)
+		 */
+		public Builder coalescingKey(final Class<?> type, final CoalescingKeyExtractor extractor) {
+			Validate.notNull(type, "Type may not be null.");
+			Validate.notNull(extractor, "Extractor may not be null.");
+			this.coalescingKeysBuilder.put(type, extractor);
+			return this;
+		}
+
+		/**
+		 * Sets the constraint index. Members the index knows to be
+		 * unconstrained are not validated. Without an index, nothing is
+		 * skipped. The index only knows annotated constraints, it must not be
+		 * set if constraints are declared programmatically.
+		 * 
+		 * @param constraintIndex
+		 *            The constraint index, may be null.
+		 * @return The builder.
+		 * @see ConstraintIndex#load()
+		 */
+		public Builder constraintIndex(final ConstraintIndex constraintIndex) {
+			this.constraintIndexBuilder = constraintIndex;
+			return this;
+		}
+
+		/**
+		 * Sets whether violations are detached. Detached violations only
+		 * keep the descriptor, message, message template and path, so they
+		 * do not keep the validated objects reachable.
+		 * 
+		 * @param detached
+		 *            True to detach violations.
+		 * @return The builder.
+		 * @see DetachedPropertyViolation
+		 * @see DetachedParameterViolation
+		 */
+		public Builder detached(final boolean detached) {
+			this.detachedBuilder = detached;
+			return this;
+		}
+
+		/**
+		 * Sets whether the common built-in constraints are checked directly.
+		 * Values that are not proven valid are still validated by the
+		 * provider, which then produces the violations.
+		 * 
+		 * @param directConstraints
+		 *            True to check constraints directly.
+		 * @return The builder.
+		 */
+		public Builder directConstraints(final boolean directConstraints) {
+			this.directConstraintsBuilder = directConstraints;
+			return this;
+		}
+
+		/**
+		 * Sets the validator factory.
+		 * 
+		 * @param factory
+		 *            The validator factory used to instanciate validators.
+		 * @return The builder.
+		 */
+		public Builder factory(final ValidatorFactory factory) {
+			this.factoryBuilder = factory;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of violations per call. Once reached,
+		 * further violations are only counted, provider traversal is stopped
+		 * where possible and the result is marked truncated.
+		 * 
+		 * @param maximumViolations
+		 *            The maximum, must be positive.
+		 * @return The builder.
+		 * @see ValidationResult#isTruncated()
+		 */
+		public Builder maximumViolations(final int maximumViolations) {
+			Validate.isTrue(maximumViolations > 0, "Maximum violations must be positive.");
+			this.maximumViolationsBuilder = maximumViolations;
+			return this;
+		}
+
+		/**
+		 * Sets whether constraint validators are profiled. Profiling measures
+		 * the invocation count and time per constraint and property. When
+		 * off, constraint validators are not wrapped.
+		 * 
+		 * @param profiling
+		 *            True to profile constraints.
+		 * @return The builder.
+		 * @see BeanValidationValidator#getProfiler()
+		 */
+		public Builder profiling(final boolean profiling) {
+			this.profilingBuilder = profiling;
+			return this;
+		}
+
+		/**
+		 * Sets the result cache. Entity validations without a deadline
+		 * then return the cached result while the entity version is
+		 * unchanged. The version has to change whenever any bean of the
+		 * cascaded graph changes. Results are only cached if violations are
+		 * detached, as attached violations keep the cached entities
+		 * reachable.
+		 * 
+		 * @param resultCache
+		 *            The result cache, may be null.
+		 * @return The builder.
+		 * @see ResultCache
+		 * @see #detached(boolean)
+		 */
+		public Builder resultCache(final ResultCache resultCache) {
+			this.resultCacheBuilder = resultCache;
+			return this;
+		}
+
+		/**
+		 * Sets the sampling policy. Entity validation of the sampled groups
+		 * only happens on sampled calls, in addition to the blocking
+		 * validation, and is reported through the executor of the policy.
+		 * Entity descriptors selecting a sampled qualifier are validated in
+		 * the default group by every blocking method, including batches,
+		 * summaries and multi-qualifier validation.
+		 * 
+		 * @param samplingPolicy
+		 *            The sampling policy, may be null.
+		 * @return The builder.
+		 */
+		public Builder samplingPolicy(final SamplingPolicy samplingPolicy) {
+			this.samplingPolicyBuilder = samplingPolicy;
+			return this;
+		}
 	}
 }
@@ -0,0 +1,73 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+/**
+ * An exported client side constraint schema.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ClientSchemaExporter
+ */
+public final class ClientSchema {
+
+	/** The JSON content. */
+	private final String content;
+	/** The entity tag. */
+	private final String entityTag;
+
+	/**
+	 * Constructs the schema.
+	 * 
+	 * @param content
+	 *            The JSON content.
+	 * @param entityTag
+	 *            The entity tag.
+	 */
+	protected ClientSchema(final String content, final String entityTag) {
+		this.content = content;
+		this.entityTag = entityTag;
+	}
+
+	/**
+	 * Gets the content.
+	 * 
+	 * @return The JSON content.
+	 */
+	public String getContent() {
+		return this.content;
+	}
+
+	/**
+	 * Gets the entity tag. The tag only changes if the content changes.
+	 * 
+	 * @return The quoted entity tag, as used in an ETag header.
+	 */
+	public String getETag() {
+		return this.entityTag;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ClientSchema[\n\tETag: ").append(this.entityTag);
+		builder.append("\n\tLength: ").append(this.content.length());
+		builder.append("\n]");
+		return builder.toString();
+	}
+}
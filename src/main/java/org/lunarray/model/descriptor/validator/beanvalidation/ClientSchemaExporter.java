@@ -0,0 +1,485 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import javax.validation.MessageInterpolator;
+import javax.validation.Validation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.AssertFalse;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.groups.Default;
+import javax.validation.metadata.ConstraintDescriptor;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.qualifier.QualifierEntityDescriptor;
+
+/**
+ * Exports the portable constraints of a model as a compact JSON schema, so
+ * that clients may check them before submitting. Per entity and qualifier,
+ * every property lists its required, size, numeric, digits, pattern and
+ * assertion constraints, with messages interpolated for a locale.
+ * Constraints that are not portable are left out and remain validated by
+ * the server only. Patterns are exported in Java syntax. The schema has an
+ * entity tag derived from its content, so it may be cached by clients.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+public final class ClientSchemaExporter {
+
+	/** The hexadecimal digits. */
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	/** The Hibernate Validator not empty constraint. */
+	private static final String NOT_EMPTY = "org.hibernate.validator.constraints.NotEmpty";
+	/** The nested property separator. */
+	private static final Pattern PROPERTY_SEPARATOR = Pattern.compile("\\.");
+	/** The digest algorithm of entity tags. */
+	private static final String TAG_ALGORITHM = "SHA-256";
+
+	/**
+	 * Creates a builder.
+	 * 
+	 * @return The builder.
+	 */
+	public static Builder createBuilder() {
+		return new Builder();
+	}
+
+	/** The exported qualifiers. */
+	private final Set<Class<?>> qualifiers;
+	/** The validator factory. */
+	private final ValidatorFactory validatorFactory;
+
+	/**
+	 * Constructs the exporter.
+	 * 
+	 * @param builder
+	 *            The builder.
+	 */
+	protected ClientSchemaExporter(final Builder builder) {
+		this.qualifiers = Collections.unmodifiableSet(new LinkedHashSet<Class<?>>(builder.qualifiersBuilder));
+		this.validatorFactory = builder.factoryBuilder;
+	}
+
+	/**
+	 * Exports the schema of a model.
+	 * 
+	 * @param model
+	 *            The model. May not be null.
+	 * @param locale
+	 *            The message locale. May not be null.
+	 * @return The schema.
+	 */
+	public ClientSchema export(final Model<?> model, final Locale locale) {
+		Validate.notNull(model, "Model may not be null.");
+		Validate.notNull(locale, "Locale may not be null.");
+		final Validator validator = this.validatorFactory.getValidator();
+		final SortedMap<String, EntityDescriptor<?>> entities = new TreeMap<String, EntityDescriptor<?>>();
+		for (final EntityDescriptor<?> entityDescriptor : model.getEntities()) {
+			entities.put(entityDescriptor.getName(), entityDescriptor);
+		}
+		final StringBuilder json = new StringBuilder();
+		json.append("{\"entities\":{");
+		for (final Map.Entry<String, EntityDescriptor<?>> entity : entities.entrySet()) {
+			this.appendSeparator(json);
+			this.appendString(json, entity.getKey());
+			json.append(":{");
+			for (final Class<?> qualifier : this.qualifiers) {
+				this.appendSeparator(json);
+				this.appendString(json, qualifier.getName());
+				json.append(':');
+				this.appendEntity(json, validator, this.resolveQualifierEntity(entity.getValue(), qualifier), qualifier, locale);
+			}
+			json.append('}');
+		}
+		json.append("}}");
+		final String content = json.toString();
+		return new ClientSchema(content, this.createTag(content));
+	}
+
+	/**
+	 * Gets the exported qualifiers.
+	 * 
+	 * @return The qualifiers.
+	 */
+	public Set<Class<?>> getQualifiers() {
+		return this.qualifiers;
+	}
+
+	/**
+	 * Appends a constraint.
+	 * 
+	 * @param json
+	 *            The JSON to append to.
+	 * @param descriptor
+	 *            The constraint descriptor.
+	 * @param locale
+	 *            The message locale.
+	 * @return True if and only if the constraint is portable and appended.
+	 */
+	private boolean appendConstraint(final StringBuilder json, final ConstraintDescriptor<?> descriptor, final Locale locale) {
+		final Annotation annotation = descriptor.getAnnotation();
+		final Class<? extends Annotation> annotationType = annotation.annotationType();
+		boolean result = true;
+		json.append("{\"type\":");
+		if (NotNull.class.equals(annotationType)) {
+			this.appendString(json, "required");
+		} else if (ClientSchemaExporter.NOT_EMPTY.equals(annotationType.getName())) {
+			this.appendString(json, "notEmpty");
+		} else if (Size.class.equals(annotationType)) {
+			final Size size = (Size) annotation;
+			this.appendString(json, "size");
+			json.append(",\"min\":").append(size.min());
+			if (size.max() != Integer.MAX_VALUE) {
+				json.append(",\"max\":").append(size.max());
+			}
+		} else if (Min.class.equals(annotationType)) {
+			this.appendString(json, "min");
+			json.append(",\"value\":").append(((Min) annotation).value());
+		} else if (Max.class.equals(annotationType)) {
+			this.appendString(json, "max");
+			json.append(",\"value\":").append(((Max) annotation).value());
+		} else if (DecimalMin.class.equals(annotationType)) {
+			final DecimalMin decimalMin = (DecimalMin) annotation;
+			this.appendString(json, "decimalMin");
+			json.append(",\"value\":").append(new BigDecimal(decimalMin.value()).toPlainString());
+			json.append(",\"inclusive\":").append(decimalMin.inclusive());
+		} else if (DecimalMax.class.equals(annotationType)) {
+			final DecimalMax decimalMax = (DecimalMax) annotation;
+			this.appendString(json, "decimalMax");
+			json.append(",\"value\":").append(new BigDecimal(decimalMax.value()).toPlainString());
+			json.append(",\"inclusive\":").append(decimalMax.inclusive());
+		} else if (Digits.class.equals(annotationType)) {
+			final Digits digits = (Digits) annotation;
+			this.appendString(json, "digits");
+			json.append(",\"integer\":").append(digits.integer());
+			json.append(",\"fraction\":").append(digits.fraction());
+		} else if (javax.validation.constraints.Pattern.class.equals(annotationType)) {
+			final javax.validation.constraints.Pattern pattern = (javax.validation.constraints.Pattern) annotation;
+			this.appendString(json, "pattern");
+			json.append(",\"regexp\":");
+			this.appendString(json, pattern.regexp());
+			json.append(",\"flags\":[");
+			for (final javax.validation.constraints.Pattern.Flag flag : pattern.flags()) {
+				this.appendSeparator(json);
+				this.appendString(json, flag.name());
+			}
+			json.append(']');
+		} else if (AssertTrue.class.equals(annotationType)) {
+			this.appendString(json, "assertTrue");
+		} else if (AssertFalse.class.equals(annotationType)) {
+			this.appendString(json, "assertFalse");
+		} else {
+			result = false;
+		}
+		if (result) {
+			final MessageInterpolator interpolator = this.validatorFactory.getMessageInterpolator();
+			json.append(",\"message\":");
+			this.appendString(json, interpolator.interpolate(descriptor.getMessageTemplate(), new SchemaContext(descriptor), locale));
+			json.append('}');
+		}
+		return result;
+	}
+
+	/**
+	 * Appends the properties of an entity.
+	 * 
+	 * @param json
+	 *            The JSON to append to.
+	 * @param validator
+	 *            The validator to resolve metadata with.
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param group
+	 *            The validated group.
+	 * @param locale
+	 *            The message locale.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private <E> void appendEntity(final StringBuilder json, final Validator validator, final EntityDescriptor<E> entityDescriptor,
+			final Class<?> group, final Locale locale) {
+		final SortedSet<String> names = new TreeSet<String>();
+		for (final PropertyDescriptor<?, E> propertyDescriptor : entityDescriptor.getProperties()) {
+			names.add(propertyDescriptor.getName());
+		}
+		json.append('{');
+		for (final String name : names) {
+			final SortedSet<String> constraints = new TreeSet<String>();
+			for (final ConstraintDescriptor<?> descriptor : this.resolveConstraints(validator, entityDescriptor.getEntityType(), name,
+					group)) {
+				final StringBuilder constraint = new StringBuilder();
+				if (this.appendConstraint(constraint, descriptor, locale)) {
+					constraints.add(constraint.toString());
+				}
+			}
+			if (!constraints.isEmpty()) {
+				this.appendSeparator(json);
+				this.appendString(json, name);
+				json.append(":[");
+				for (final String constraint : constraints) {
+					this.appendSeparator(json);
+					json.append(constraint);
+				}
+				json.append(']');
+			}
+		}
+		json.append('}');
+	}
+
+	/**
+	 * Appends a separator, unless at the start of an object or array.
+	 * 
+	 * @param json
+	 *            The JSON to append to.
+	 */
+	private void appendSeparator(final StringBuilder json) {
+		final char last = json.charAt(json.length() - 1);
+		if ((last != '{') && (last != '[')) {
+			json.append(',');
+		}
+	}
+
+	/**
+	 * Appends a JSON string.
+	 * 
+	 * @param json
+	 *            The JSON to append to.
+	 * @param value
+	 *            The value.
+	 */
+	private void appendString(final StringBuilder json, final String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			final char character = value.charAt(i);
+			if ((character == '"') || (character == '\\')) {
+				json.append('\\').append(character);
+			} else if (character < ' ') {
+				json.append("\\u00").append(ClientSchemaExporter.HEX[character >> 4]).append(ClientSchemaExporter.HEX[character & 0xF]);
+			} else {
+				json.append(character);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Creates the entity tag of content.
+	 * 
+	 * @param content
+	 *            The content.
+	 * @return The quoted entity tag.
+	 */
+	private String createTag(final String content) {
+		final StringBuilder tag = new StringBuilder();
+		try {
+			final byte[] digest = MessageDigest.getInstance(ClientSchemaExporter.TAG_ALGORITHM).digest(
+					content.getBytes(StandardCharsets.UTF_8));
+			tag.append('"');
+			for (final byte value : digest) {
+				tag.append(ClientSchemaExporter.HEX[(value >> 4) & 0xF]).append(ClientSchemaExporter.HEX[value & 0xF]);
+			}
+			tag.append('"');
+		} catch (final NoSuchAlgorithmException e) {
+			throw new ValidationException("Could not create entity tag.", e);
+		}
+		return tag.toString();
+	}
+
+	/**
+	 * Resolves the constraints of a property, following nested properties.
+	 * 
+	 * @param validator
+	 *            The validator to resolve metadata with.
+	 * @param entityType
+	 *            The entity type.
+	 * @param name
+	 *            The property name.
+	 * @param group
+	 *            The validated group.
+	 * @return The constraint descriptors.
+	 */
+	private Set<ConstraintDescriptor<?>> resolveConstraints(final Validator validator, final Class<?> entityType, final String name,
+			final Class<?> group) {
+		javax.validation.metadata.PropertyDescriptor property = null;
+		Class<?> current = entityType;
+		for (final String part : ClientSchemaExporter.PROPERTY_SEPARATOR.split(name)) {
+			property = null;
+			if (!CheckUtil.isNull(current)) {
+				property = validator.getConstraintsForClass(current).getConstraintsForProperty(part);
+			}
+			current = null;
+			if (!CheckUtil.isNull(property)) {
+				current = property.getElementClass();
+			}
+		}
+		Set<ConstraintDescriptor<?>> result = Collections.emptySet();
+		if (!CheckUtil.isNull(property)) {
+			result = property.findConstraints().unorderedAndMatchingGroups(group).getConstraintDescriptors();
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the entity descriptor of a qualifier.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param qualifier
+	 *            The qualifier, or the default group.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The qualifier entity descriptor.
+	 */
+	@SuppressWarnings("unchecked")
+	// Qualifier entities describe the same entity type.
+	private <E> EntityDescriptor<E> resolveQualifierEntity(final EntityDescriptor<E> entityDescriptor, final Class<?> qualifier) {
+		EntityDescriptor<E> result = entityDescriptor;
+		if (!Default.class.equals(qualifier) && entityDescriptor.adaptable(QualifierEntityDescriptor.class)) {
+			result = entityDescriptor.adapt(QualifierEntityDescriptor.class).getQualifierEntity(qualifier);
+		}
+		return result;
+	}
+
+	/**
+	 * A builder.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	public static final class Builder {
+		/** The validator factory. */
+		private transient ValidatorFactory factoryBuilder;
+		/** The exported qualifiers. */
+		private final transient Set<Class<?>> qualifiersBuilder;
+
+		/** Default constructor. */
+		protected Builder() {
+			this.qualifiersBuilder = new LinkedHashSet<Class<?>>();
+		}
+
+		/**
+		 * Builds the exporter. Resolves the default factory if none was set
+		 * and exports the default group if no qualifier was added.
+		 * 
+		 * @return The exporter.
+		 */
+		public ClientSchemaExporter build() {
+			if (CheckUtil.isNull(this.factoryBuilder)) {
+				this.factoryBuilder = Validation.buildDefaultValidatorFactory();
+			}
+			if (this.qualifiersBuilder.isEmpty()) {
+				this.qualifiersBuilder.add(Default.class);
+			}
+			return new ClientSchemaExporter(this);
+		}
+
+		/**
+		 * Sets the validator factory.
+		 * 
+		 * @param factory
+		 *            The validator factory to resolve metadata and messages
+		 *            with.
+		 * @return The builder.
+		 */
+		public Builder factory(final ValidatorFactory factory) {
+			this.factoryBuilder = factory;
+			return this;
+		}
+
+		/**
+		 * Adds an exported qualifier. The default view is exported with
+		 * {@link Default}.
+		 * 
+		 * @param qualifier
+		 *            The qualifier. May not be null.
+		 * @return The builder.
+		 */
+		public Builder qualifier(final Class<?> qualifier) {
+			Validate.notNull(qualifier, "Qualifier may not be null.");
+			this.qualifiersBuilder.add(qualifier);
+			return this;
+		}
+	}
+
+	/**
+	 * An interpolation context without a validated value.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class SchemaContext
+			implements MessageInterpolator.Context {
+		/** The constraint descriptor. */
+		private final ConstraintDescriptor<?> descriptor;
+
+		/**
+		 * Constructs the context.
+		 * 
+		 * @param descriptor
+		 *            The constraint descriptor.
+		 */
+		protected SchemaContext(final ConstraintDescriptor<?> descriptor) {
+			this.descriptor = descriptor;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public ConstraintDescriptor<?> getConstraintDescriptor() {
+			return this.descriptor;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Object getValidatedValue() {
+			return null;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public <T> T unwrap(final Class<T> type) {
+			throw new ValidationException("Type " + type + " is not supported.");
+		}
+	}
+}
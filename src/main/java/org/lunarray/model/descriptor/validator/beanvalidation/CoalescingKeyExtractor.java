@@ -0,0 +1,41 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+/**
+ * Extracts the coalescing key of an object, such as an identifier or the
+ * object itself for value objects. Concurrent requests for objects with
+ * equal keys share a validation, so objects with equal keys must have the
+ * same violations. Attached violations of a shared validation refer to the
+ * object that was validated.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see RequestCoalescer
+ */
+public interface CoalescingKeyExtractor {
+
+	/**
+	 * Gets the coalescing key of an object.
+	 * 
+	 * @param object
+	 *            The object.
+	 * @return The key, or null if the object should only share validations
+	 *         with requests for the same instance.
+	 */
+	Object getKey(Object object);
+}
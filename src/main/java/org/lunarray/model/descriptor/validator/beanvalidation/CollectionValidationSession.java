@@ -0,0 +1,322 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * Validates a cascaded collection property incrementally. The violations of
+ * every element are kept per element identity, an element is only validated
+ * again if it was not validated before or its version changed. Elements that
+ * were removed from the collection are dropped. The constraints of the
+ * property itself are validated on every call.
+ * <p>
+ * Without a version extractor, changes within an element that was validated
+ * before are not detected. Element violations are detached and refer to the
+ * collection property, their paths are relative to the entity.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <E>
+ *            The entity type.
+ * @param <P>
+ *            The property type.
+ * @see BeanValidationValidator#createCollectionSession(PropertyDescriptor,
+ *      Locale, VersionExtractor)
+ */
+public final class CollectionValidationSession<E, P> {
+
+	/** The owning validator. */
+	private final BeanValidationValidator beanValidator;
+	/** The constraint index, may be null. */
+	private final ConstraintIndex constraintIndex;
+	/** The validated group of the elements. */
+	private final Class<?> group;
+	/** The message locale, may be null. */
+	private final Locale locale;
+	/** The maximum number of violations. */
+	private final int maximumViolations;
+	/** The property descriptor. */
+	private final PropertyDescriptor<P, E> propertyDescriptor;
+	/** The number of elements whose results were reused. */
+	private long reusedCount;
+	/** The element states, per element identity. */
+	private Map<Object, ElementState<E, P>> states;
+	/** The number of elements that were validated. */
+	private long validatedCount;
+	/** The provider validator. */
+	private final Validator validator;
+	/** The version extractor, may be null. */
+	private final VersionExtractor versionExtractor;
+	/** The violation limiter. */
+	private final ViolationLimiter violationLimiter;
+
+	/**
+	 * Constructs the session.
+	 * 
+	 * @param beanValidator
+	 *            The owning validator.
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param validator
+	 *            The provider validator.
+	 * @param group
+	 *            The validated group of the elements, after group
+	 *            conversion.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param versionExtractor
+	 *            The version extractor, may be null.
+	 * @param maximumViolations
+	 *            The maximum number of violations.
+	 * @param violationLimiter
+	 *            The violation limiter.
+	 * @param constraintIndex
+	 *            The constraint index, may be null.
+	 */
+	protected CollectionValidationSession(final BeanValidationValidator beanValidator,
+			final PropertyDescriptor<P, E> propertyDescriptor, final Validator validator, final Class<?> group, final Locale locale,
+			final VersionExtractor versionExtractor, final int maximumViolations, final ViolationLimiter violationLimiter,
+			final ConstraintIndex constraintIndex) {
+		this.beanValidator = beanValidator;
+		this.violationLimiter = violationLimiter;
+		this.constraintIndex = constraintIndex;
+		this.propertyDescriptor = propertyDescriptor;
+		this.validator = validator;
+		this.group = group;
+		this.locale = locale;
+		this.versionExtractor = versionExtractor;
+		this.maximumViolations = maximumViolations;
+		this.states = new IdentityHashMap<Object, ElementState<E, P>>();
+	}
+
+	/**
+	 * Gets the number of elements whose results were reused.
+	 * 
+	 * @return The number of reused results.
+	 */
+	public synchronized long getReusedCount() {
+		return this.reusedCount;
+	}
+
+	/**
+	 * Gets the number of elements that were validated.
+	 * 
+	 * @return The number of validated elements.
+	 */
+	public synchronized long getValidatedCount() {
+		return this.validatedCount;
+	}
+
+	/**
+	 * Drops all kept element results, all elements are validated on the next
+	 * call.
+	 */
+	public synchronized void invalidate() {
+		this.states.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("CollectionValidationSession[\n\tProperty: ").append(this.propertyDescriptor.getName());
+		builder.append("\n\tGroup: ").append(this.group);
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Validates the property of an entity, validating only the elements that
+	 * were added or changed since the previous call.
+	 * 
+	 * @param entity
+	 *            The entity. May not be null.
+	 * @return The violations of the property and its elements.
+	 */
+	public synchronized ValidationResult<PropertyViolation<E, P>> validate(final E entity) {
+		Validate.notNull(entity, "Entity may not be null.");
+		final ValidationResult<PropertyViolation<E, P>> result = new ValidationResult<PropertyViolation<E, P>>(
+				this.maximumViolations);
+		final ValidationResult<PropertyViolation<E, P>> own = this.beanValidator.validateProperty(this.propertyDescriptor, entity,
+				this.locale);
+		for (final PropertyViolation<E, P> violation : own) {
+			result.add(violation);
+		}
+		if (own.isTruncated()) {
+			result.truncate();
+		}
+		final Object value = this.propertyDescriptor.getValue(entity);
+		final Map<Object, ElementState<E, P>> current = new IdentityHashMap<Object, ElementState<E, P>>();
+		if (!CheckUtil.isNull(value)) {
+			if (!(value instanceof Iterable)) {
+				throw new ValidationException("Property " + this.propertyDescriptor.getName() + " is not a collection.");
+			}
+			final boolean indexed = value instanceof List;
+			int index = 0;
+			for (final Object element : (Iterable<?>) value) {
+				if (!CheckUtil.isNull(element)) {
+					final ElementState<E, P> state = this.resolveState(element);
+					current.put(element, state);
+					state.collect(this.propertyDescriptor, this.createPath(indexed, index), result);
+				}
+				index++;
+			}
+		}
+		this.states = current;
+		return result;
+	}
+
+	/**
+	 * Creates the path of an element.
+	 * 
+	 * @param indexed
+	 *            Whether the collection is indexed.
+	 * @param index
+	 *            The element index.
+	 * @return The path of the element, relative to the entity.
+	 */
+	private String createPath(final boolean indexed, final int index) {
+		final StringBuilder builder = new StringBuilder(this.propertyDescriptor.getName()).append('[');
+		if (indexed) {
+			builder.append(index);
+		}
+		return builder.append(']').toString();
+	}
+
+	/**
+	 * Resolves the state of an element, validating it if needed.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @return The element state.
+	 */
+	private ElementState<E, P> resolveState(final Object element) {
+		final Object version = CheckUtil.isNull(this.versionExtractor) ? null : this.versionExtractor.getVersion(element);
+		ElementState<E, P> state = this.states.get(element);
+		if (CheckUtil.isNull(state)
+				|| (!CheckUtil.isNull(this.versionExtractor) && (CheckUtil.isNull(version) || !ObjectUtils.equals(version,
+						state.version)))) {
+			final ValidationResult<ConstraintViolation<Object>> violations = this.validateElement(element);
+			state = new ElementState<E, P>(version, violations.isTruncated());
+			for (final ConstraintViolation<Object> violation : violations) {
+				state.violations.add(new DetachedPropertyViolation<E, P>(null, violation));
+			}
+			this.validatedCount++;
+		} else {
+			this.reusedCount++;
+		}
+		return state;
+	}
+
+	/**
+	 * Validates an element with the provider, unless the constraint index
+	 * knows its type to be unconstrained.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @return The provider violations.
+	 */
+	private ValidationResult<ConstraintViolation<Object>> validateElement(final Object element) {
+		final ValidationResult<ConstraintViolation<Object>> result = new ValidationResult<ConstraintViolation<Object>>(
+				this.maximumViolations);
+		if (CheckUtil.isNull(this.constraintIndex) || !this.constraintIndex.isTypeSkippable(element.getClass(), this.group)) {
+			Set<ConstraintViolation<Object>> violations;
+			final ViolationLimiter.Counter counter = this.violationLimiter.begin(null);
+			try {
+				violations = this.validator.validate(element, this.group);
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+			result.addAll(violations);
+			if (counter.isStopped()) {
+				result.truncate();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The kept results of an element.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	private static final class ElementState<E, P> {
+		/** Whether the violations were truncated. */
+		private final boolean truncated;
+		/** The version, may be null. */
+		private final Object version;
+		/** The violations, with paths relative to the element. */
+		private final List<DetachedPropertyViolation<E, P>> violations;
+
+		/**
+		 * Constructs the state.
+		 * 
+		 * @param version
+		 *            The version, may be null.
+		 * @param truncated
+		 *            Whether the violations were truncated.
+		 */
+		protected ElementState(final Object version, final boolean truncated) {
+			this.version = version;
+			this.truncated = truncated;
+			this.violations = new ArrayList<DetachedPropertyViolation<E, P>>(0);
+		}
+
+		/**
+		 * Adds the violations of the element to a result.
+		 * 
+		 * @param propertyDescriptor
+		 *            The property descriptor.
+		 * @param path
+		 *            The path of the element.
+		 * @param result
+		 *            The result.
+		 */
+		public void collect(final PropertyDescriptor<P, E> propertyDescriptor, final String path,
+				final ValidationResult<PropertyViolation<E, P>> result) {
+			for (final DetachedPropertyViolation<E, P> violation : this.violations) {
+				final String elementPath = violation.getPath();
+				result.add(new DetachedPropertyViolation<E, P>(propertyDescriptor, violation.getConstraintType(), violation
+						.getMessage(), violation.getMessageTemplate(), elementPath.isEmpty() ? path : path + "." + elementPath));
+			}
+			if (this.truncated) {
+				result.truncate();
+			}
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * The violations of a batch of entities, stored in columns. Every violation
+ * is stored as a record index, a property id and a message id; property
+ * descriptors and messages are interned. Violations are only materialized
+ * when accessed. Records of which the provider stopped traversal due to the
+ * maximum number of violations are marked truncated.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <E>
+ *            The entity type.
+ * @see BeanValidationValidator#validateAll(org.lunarray.model.descriptor.model.entity.EntityDescriptor,
+ *      Iterable, java.util.Locale)
+ */
+public final class ColumnarViolations<E>
+		implements Iterable<PropertyViolation<E, ?>> {
+
+	/** The initial column capacity. */
+	private static final int INITIAL_CAPACITY = 16;
+	/** Index out of bounds message. */
+	private static final String INDEX_OUT_OF_BOUNDS = "Index out of bounds.";
+
+	/** The message ids, per violation. */
+	private int[] messageIds;
+	/** The message id per message. */
+	private final Map<String, Integer> messageIndex;
+	/** The interned messages. */
+	private final List<String> messages;
+	/** The property ids, per violation. */
+	private int[] propertyIds;
+	/** The property id per property. */
+	private final Map<PropertyDescriptor<?, E>, Integer> propertyIndex;
+	/** The interned properties. */
+	private final List<PropertyDescriptor<?, E>> properties;
+	/** The record count. */
+	private int recordCount;
+	/** The record indices, per violation. */
+	private int[] records;
+	/** The number of violations. */
+	private int size;
+	/** The truncated records. */
+	private final BitSet truncated;
+
+	/**
+	 * Default constructor.
+	 */
+	protected ColumnarViolations() {
+		this.messageIds = new int[ColumnarViolations.INITIAL_CAPACITY];
+		this.messageIndex = new HashMap<String, Integer>();
+		this.messages = new ArrayList<String>();
+		this.propertyIds = new int[ColumnarViolations.INITIAL_CAPACITY];
+		this.propertyIndex = new IdentityHashMap<PropertyDescriptor<?, E>, Integer>();
+		this.properties = new ArrayList<PropertyDescriptor<?, E>>();
+		this.records = new int[ColumnarViolations.INITIAL_CAPACITY];
+		this.truncated = new BitSet();
+	}
+
+	/**
+	 * Materializes a violation.
+	 * 
+	 * @param index
+	 *            The violation index.
+	 * @return The violation.
+	 */
+	public PropertyViolation<E, ?> get(final int index) {
+		this.checkIndex(index);
+		return this.createViolation(this.properties.get(this.propertyIds[index]), index);
+	}
+
+	/**
+	 * Gets the message of a violation.
+	 * 
+	 * @param index
+	 *            The violation index.
+	 * @return The message.
+	 */
+	public String getMessage(final int index) {
+		this.checkIndex(index);
+		return this.messages.get(this.messageIds[index]);
+	}
+
+	/**
+	 * Gets the property of a violation.
+	 * 
+	 * @param index
+	 *            The violation index.
+	 * @return The property descriptor, may be null for entity constraints.
+	 */
+	public PropertyDescriptor<?, E> getProperty(final int index) {
+		this.checkIndex(index);
+		return this.properties.get(this.propertyIds[index]);
+	}
+
+	/**
+	 * Gets the number of validated records.
+	 * 
+	 * @return The record count.
+	 */
+	public int getRecordCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * Gets the number of truncated records.
+	 * 
+	 * @return The truncated record count.
+	 */
+	public int getTruncatedCount() {
+		return this.truncated.cardinality();
+	}
+
+	/**
+	 * Gets the record of a violation.
+	 * 
+	 * @param index
+	 *            The violation index.
+	 * @return The index of the entity in the batch.
+	 */
+	public int getRecordIndex(final int index) {
+		this.checkIndex(index);
+		return this.records[index];
+	}
+
+	/**
+	 * Materializes the violations of a record.
+	 * 
+	 * @param record
+	 *            The index of the entity in the batch.
+	 * @return The violations.
+	 */
+	public List<PropertyViolation<E, ?>> getViolations(final int record) {
+		final List<PropertyViolation<E, ?>> result = new ArrayList<PropertyViolation<E, ?>>();
+		int index = Arrays.binarySearch(this.records, 0, this.size, record);
+		if (index >= 0) {
+			while ((index > 0) && (this.records[index - 1] == record)) {
+				index--;
+			}
+			while ((index < this.size) && (this.records[index] == record)) {
+				result.add(this.get(index));
+				index++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if there are no violations.
+	 * 
+	 * @return True if and only if all records were valid.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Tests if a record is truncated.
+	 * 
+	 * @param record
+	 *            The index of the entity in the batch.
+	 * @return True if and only if violations of the record were not found due
+	 *         to the maximum.
+	 */
+	public boolean isTruncated(final int record) {
+		return this.truncated.get(record);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Iterator<PropertyViolation<E, ?>> iterator() {
+		return new Iterator<PropertyViolation<E, ?>>() {
+			/** The next index. */
+			private int next;
+
+			/** {@inheritDoc} */
+			@Override
+			public boolean hasNext() {
+				return this.next < ColumnarViolations.this.size;
+			}
+
+			/** {@inheritDoc} */
+			@Override
+			public PropertyViolation<E, ?> next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final PropertyViolation<E, ?> result = ColumnarViolations.this.get(this.next);
+				this.next++;
+				return result;
+			}
+
+			/** {@inheritDoc} */
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Gets the number of violations.
+	 * 
+	 * @return The number of violations.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ColumnarViolations[\n\tRecords: ").append(this.recordCount);
+		builder.append("\n\tViolations: ").append(this.size);
+		builder.append("\n\tTruncated: ").append(this.truncated.cardinality());
+		builder.append("\n\tProperties: ").append(this.properties.size());
+		builder.append("\n\tMessages: ").append(this.messages.size());
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Adds a violation. Records must be added in ascending order.
+	 * 
+	 * @param record
+	 *            The index of the entity in the batch.
+	 * @param property
+	 *            The property descriptor, may be null.
+	 * @param message
+	 *            The message.
+	 */
+	protected void add(final int record, final PropertyDescriptor<?, E> property, final String message) {
+		Validate.isTrue((this.size == 0) || (record >= this.records[this.size - 1]), "Records must be added in order.");
+		if (this.size == this.records.length) {
+			final int capacity = this.size << 1;
+			this.records = Arrays.copyOf(this.records, capacity);
+			this.propertyIds = Arrays.copyOf(this.propertyIds, capacity);
+			this.messageIds = Arrays.copyOf(this.messageIds, capacity);
+		}
+		this.records[this.size] = record;
+		this.propertyIds[this.size] = this.internProperty(property);
+		this.messageIds[this.size] = this.internMessage(message);
+		this.size++;
+	}
+
+	/**
+	 * Sets the number of validated records.
+	 * 
+	 * @param recordCount
+	 *            The record count.
+	 */
+	protected void setRecordCount(final int recordCount) {
+		this.recordCount = recordCount;
+	}
+
+	/**
+	 * Marks a record truncated.
+	 * 
+	 * @param record
+	 *            The index of the entity in the batch.
+	 */
+	protected void truncate(final int record) {
+		this.truncated.set(record);
+	}
+
+	/**
+	 * Checks a violation index.
+	 * 
+	 * @param index
+	 *            The index.
+	 */
+	private void checkIndex(final int index) {
+		if ((index < 0) || (index >= this.size)) {
+			throw new IndexOutOfBoundsException(ColumnarViolations.INDEX_OUT_OF_BOUNDS);
+		}
+	}
+
+	/**
+	 * Creates a violation.
+	 * 
+	 * @param property
+	 *            The property.
+	 * @param index
+	 *            The violation index.
+	 * @param <P>
+	 *            The property type.
+	 * @return The violation.
+	 */
+	private <P> PropertyViolation<E, P> createViolation(final PropertyDescriptor<P, E> property, final int index) {
+		return new ColumnarPropertyViolation<E, P>(property, this.messages.get(this.messageIds[index]));
+	}
+
+	/**
+	 * Interns a message.
+	 * 
+	 * @param message
+	 *            The message.
+	 * @return The message id.
+	 */
+	private int internMessage(final String message) {
+		Integer id = this.messageIndex.get(message);
+		if (CheckUtil.isNull(id)) {
+			id = Integer.valueOf(this.messages.size());
+			this.messages.add(message);
+			this.messageIndex.put(message, id);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * Interns a property.
+	 * 
+	 * @param property
+	 *            The property descriptor.
+	 * @return The property id.
+	 */
+	private int internProperty(final PropertyDescriptor<?, E> property) {
+		Integer id = this.propertyIndex.get(property);
+		if (CheckUtil.isNull(id)) {
+			id = Integer.valueOf(this.properties.size());
+			this.properties.add(property);
+			this.propertyIndex.put(property, id);
+		}
+		return id.intValue();
+	}
+
+	/**
+	 * A materialized violation.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	private static final class ColumnarPropertyViolation<E, P>
+			implements PropertyViolation<E, P> {
+		/** The message. */
+		private final String message;
+		/** The property descriptor. */
+		private final PropertyDescriptor<P, E> property;
+
+		/**
+		 * Constructs the violation.
+		 * 
+		 * @param property
+		 *            The property descriptor.
+		 * @param message
+		 *            The message.
+		 */
+		protected ColumnarPropertyViolation(final PropertyDescriptor<P, E> property, final String message) {
+			this.property = property;
+			this.message = message;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String getMessage() {
+			return this.message;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public PropertyDescriptor<P, E> getProperty() {
+			return this.property;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder();
+			builder.append("ColumnarPropertyViolation[\n\tProperty: ");
+			if (!CheckUtil.isNull(this.property)) {
+				builder.append(this.property.getName());
+			}
+			builder.append("\n\tMessage: ").append(this.message);
+			builder.append("\n]");
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,383 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A build time generated index of the constrained members of entity types.
+ * The index is generated by the
+ * {@link org.lunarray.model.descriptor.validator.beanvalidation.processor.ConstraintIndexProcessor}
+ * and allows skipping validation of members that are known to be
+ * unconstrained. Types that are not in the index are never skipped.
+ * <p>
+ * The index is only used if it is loaded and set on the validator, see
+ * {@link BeanValidationValidator.Builder#constraintIndex(ConstraintIndex)}.
+ * It only knows constraints declared by annotations. Constraints declared in
+ * XML mappings or through a provider specific programmatic API are not
+ * indexed, an index of members constrained that way would skip them. If a
+ * {@code META-INF/validation.xml} declaring constraint mappings is visible,
+ * loading yields an empty index. An index must not be used with
+ * programmatically declared constraints.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+public final class ConstraintIndex {
+
+	/** Key suffix for cascaded members. */
+	public static final String CASCADED = ".cascaded";
+	/** Key suffix for constrained properties. */
+	public static final String CONSTRAINED = ".constrained";
+	/** Key suffix for types that may never be skipped. */
+	public static final String DYNAMIC = ".dynamic";
+	/** Key suffix for embedded properties, listed as name:type. */
+	public static final String EMBEDDED = ".embedded";
+	/** Key suffix for the constraint groups. */
+	public static final String GROUPS = ".groups";
+	/** Key suffix for constrained methods. */
+	public static final String METHODS = ".methods";
+	/** The index resource location. */
+	public static final String RESOURCE = "META-INF/lunarray/beanvalidation-constraint.index";
+	/** The separator of embedded properties and their types. */
+	public static final char TYPE_SEPARATOR = ':';
+	/** The separator of values. */
+	public static final char VALUE_SEPARATOR = ',';
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConstraintIndex.class);
+	/** The mapping element of the validation configuration. */
+	private static final String MAPPING_ELEMENT = "constraint-mapping";
+	/** The separator of nested properties. */
+	private static final char PROPERTY_SEPARATOR = '.';
+	/** The validation configuration resource location. */
+	private static final String VALIDATION_XML = "META-INF/validation.xml";
+
+	/**
+	 * Loads the index from all resources visible to the context class loader.
+	 * 
+	 * @return The index.
+	 */
+	public static ConstraintIndex load() {
+		return ConstraintIndex.load(Thread.currentThread().getContextClassLoader());
+	}
+
+	/**
+	 * Loads the index from all resources visible to the given class loader.
+	 * Resources that cannot be read are logged and ignored. If the validation
+	 * configuration declares constraint mappings, the index is empty, so
+	 * nothing is skipped.
+	 * 
+	 * @param classLoader
+	 *            The class loader. May not be null.
+	 * @return The index.
+	 */
+	public static ConstraintIndex load(final ClassLoader classLoader) {
+		Validate.notNull(classLoader, "Class loader may not be null.");
+		final Properties properties = new Properties();
+		try {
+			if (ConstraintIndex.hasMappings(classLoader)) {
+				ConstraintIndex.LOGGER.warn("Not using constraint indices, {} declares constraint mappings.",
+						ConstraintIndex.VALIDATION_XML);
+			} else {
+				final Enumeration<URL> resources = classLoader.getResources(ConstraintIndex.RESOURCE);
+				while (resources.hasMoreElements()) {
+					ConstraintIndex.loadResource(resources.nextElement(), properties);
+				}
+			}
+		} catch (final IOException e) {
+			ConstraintIndex.LOGGER.warn("Could not resolve constraint indices.", e);
+		}
+		return new ConstraintIndex(properties);
+	}
+
+	/**
+	 * Tests if the validation configuration declares constraint mappings.
+	 * 
+	 * @param classLoader
+	 *            The class loader.
+	 * @return True if and only if a visible configuration mentions mappings,
+	 *         or could not be read.
+	 * @throws IOException
+	 *             Thrown if the configuration could not be resolved.
+	 */
+	private static boolean hasMappings(final ClassLoader classLoader) throws IOException {
+		final Enumeration<URL> resources = classLoader.getResources(ConstraintIndex.VALIDATION_XML);
+		boolean result = false;
+		while (!result && resources.hasMoreElements()) {
+			final URL resource = resources.nextElement();
+			try {
+				final BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), "UTF-8"));
+				try {
+					String line = reader.readLine();
+					while (!result && !CheckUtil.isNull(line)) {
+						result = line.contains(ConstraintIndex.MAPPING_ELEMENT);
+						line = reader.readLine();
+					}
+				} finally {
+					reader.close();
+				}
+			} catch (final IOException e) {
+				ConstraintIndex.LOGGER.warn("Could not read validation configuration {}.", resource, e);
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Loads a single resource.
+	 * 
+	 * @param resource
+	 *            The resource.
+	 * @param properties
+	 *            The properties to load into.
+	 */
+	private static void loadResource(final URL resource, final Properties properties) {
+		ConstraintIndex.LOGGER.debug("Loading constraint index {}.", resource);
+		try {
+			final InputStream stream = resource.openStream();
+			try {
+				properties.load(stream);
+			} finally {
+				stream.close();
+			}
+		} catch (final IOException e) {
+			ConstraintIndex.LOGGER.warn("Could not load constraint index {}.", resource, e);
+		}
+	}
+
+	/**
+	 * Splits a value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return The values.
+	 */
+	private static Set<String> split(final String value) {
+		final Set<String> result = new HashSet<String>();
+		for (final String part : StringUtils.split(value, ConstraintIndex.VALUE_SEPARATOR)) {
+			result.add(part.trim());
+		}
+		return result;
+	}
+
+	/** The entries, by type name. */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * Constructs the index.
+	 * 
+	 * @param properties
+	 *            The index properties.
+	 */
+	protected ConstraintIndex(final Properties properties) {
+		this.entries = new HashMap<String, Entry>();
+		for (final String key : properties.stringPropertyNames()) {
+			final int separator = key.lastIndexOf(ConstraintIndex.PROPERTY_SEPARATOR);
+			if (separator > 0) {
+				final String typeName = key.substring(0, separator);
+				Entry entry = this.entries.get(typeName);
+				if (CheckUtil.isNull(entry)) {
+					entry = new Entry();
+					this.entries.put(typeName, entry);
+				}
+				entry.process(key.substring(separator), properties.getProperty(key));
+			} else {
+				ConstraintIndex.LOGGER.warn("Ignoring malformed constraint index key {}.", key);
+			}
+		}
+	}
+
+	/**
+	 * Tests if the given type is indexed.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @return True if and only if the type is indexed.
+	 */
+	public boolean isIndexed(final Class<?> type) {
+		return this.entries.containsKey(type.getName());
+	}
+
+	/**
+	 * Tests if validating the given method can be skipped.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @param methodName
+	 *            The method name.
+	 * @return True if and only if the type is indexed and the method has no
+	 *         constrained parameters.
+	 */
+	public boolean isMethodSkippable(final Class<?> type, final String methodName) {
+		final Entry entry = this.entries.get(type.getName());
+		return !CheckUtil.isNull(entry) && !entry.dynamic && !entry.methods.contains(methodName);
+	}
+
+	/**
+	 * Tests if validating the given property can be skipped. Nested properties
+	 * are resolved through the indexed embedded types.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @param property
+	 *            The property name.
+	 * @return True if and only if the type is indexed and the property is
+	 *         known to be unconstrained.
+	 */
+	public boolean isPropertySkippable(final Class<?> type, final String property) {
+		return this.isPropertySkippable(type.getName(), property);
+	}
+
+	/**
+	 * Tests if validating the given type in the given group can be skipped.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @param group
+	 *            The group.
+	 * @return True if and only if the type is indexed, cascades to no other
+	 *         entity and has no constraints in the group.
+	 */
+	public boolean isTypeSkippable(final Class<?> type, final Class<?> group) {
+		final Entry entry = this.entries.get(type.getName());
+		return !CheckUtil.isNull(entry) && !entry.dynamic && entry.cascaded.isEmpty() && !this.matchesGroup(entry, group);
+	}
+
+	/**
+	 * Tests if validating the given property can be skipped.
+	 * 
+	 * @param typeName
+	 *            The type name.
+	 * @param property
+	 *            The property name.
+	 * @return True if and only if the type is indexed and the property is
+	 *         known to be unconstrained.
+	 */
+	private boolean isPropertySkippable(final String typeName, final String property) {
+		final Entry entry = this.entries.get(typeName);
+		boolean result = false;
+		if (!CheckUtil.isNull(entry) && !entry.dynamic) {
+			final int separator = property.indexOf(ConstraintIndex.PROPERTY_SEPARATOR);
+			if (separator < 0) {
+				result = !entry.constrained.contains(property);
+			} else {
+				final String head = property.substring(0, separator);
+				final String embeddedType = entry.embedded.get(head);
+				result = !entry.constrained.contains(head) && !CheckUtil.isNull(embeddedType)
+						&& this.isPropertySkippable(embeddedType, property.substring(separator + 1));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if any of the group or its super groups are used by the entry.
+	 * 
+	 * @param entry
+	 *            The entry.
+	 * @param group
+	 *            The group.
+	 * @return True if and only if a group matches.
+	 */
+	private boolean matchesGroup(final Entry entry, final Class<?> group) {
+		boolean result = entry.groups.contains(group.getName());
+		for (final Class<?> superGroup : group.getInterfaces()) {
+			result = result || this.matchesGroup(entry, superGroup);
+		}
+		return result;
+	}
+
+	/**
+	 * An index entry.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class Entry {
+		/** The cascaded members. */
+		private Set<String> cascaded = Collections.emptySet();
+		/** The constrained properties. */
+		private Set<String> constrained = Collections.emptySet();
+		/** Whether the type may never be skipped. */
+		private boolean dynamic;
+		/** The embedded properties and their types. */
+		private final Map<String, String> embedded = new HashMap<String, String>();
+		/** The groups. */
+		private Set<String> groups = Collections.emptySet();
+		/** The constrained methods. */
+		private Set<String> methods = Collections.emptySet();
+
+		/** Default constructor. */
+		protected Entry() {
+			// Default constructor.
+		}
+
+		/**
+		 * Process an index value.
+		 * 
+		 * @param suffix
+		 *            The key suffix.
+		 * @param value
+		 *            The value.
+		 */
+		protected void process(final String suffix, final String value) {
+			if (ConstraintIndex.CASCADED.equals(suffix)) {
+				this.cascaded = ConstraintIndex.split(value);
+			} else if (ConstraintIndex.CONSTRAINED.equals(suffix)) {
+				this.constrained = ConstraintIndex.split(value);
+			} else if (ConstraintIndex.DYNAMIC.equals(suffix)) {
+				this.dynamic = Boolean.parseBoolean(value.trim());
+			} else if (ConstraintIndex.EMBEDDED.equals(suffix)) {
+				for (final String embeddedValue : ConstraintIndex.split(value)) {
+					final int separator = embeddedValue.indexOf(ConstraintIndex.TYPE_SEPARATOR);
+					if (separator > 0) {
+						this.embedded.put(embeddedValue.substring(0, separator), embeddedValue.substring(separator + 1));
+					} else {
+						ConstraintIndex.LOGGER.warn("Ignoring malformed embedded constraint index value {}.", embeddedValue);
+						// The embedded property is unknown, be conservative.
+						this.dynamic = true;
+					}
+				}
+			} else if (ConstraintIndex.GROUPS.equals(suffix)) {
+				this.groups = ConstraintIndex.split(value);
+			} else if (ConstraintIndex.METHODS.equals(suffix)) {
+				this.methods = ConstraintIndex.split(value);
+			} else {
+				// Unknown entries are from newer versions, be conservative.
+				this.dynamic = true;
+			}
+		}
+	}
+}
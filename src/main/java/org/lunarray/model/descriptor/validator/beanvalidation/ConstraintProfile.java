@@ -0,0 +1,123 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the measured cost of a constraint on a property.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ConstraintProfiler
+ */
+public final class ConstraintProfile {
+
+	/** The constraint type. */
+	private final Class<?> constraintType;
+	/** The entity type. */
+	private final Class<?> entityType;
+	/** The number of invocations. */
+	private final long invocationCount;
+	/** The property name, may be null. */
+	private final String propertyName;
+	/** The cumulative time, in nanoseconds. */
+	private final long totalNanos;
+
+	/**
+	 * Constructs the profile.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param propertyName
+	 *            The property name, may be null.
+	 * @param constraintType
+	 *            The constraint type.
+	 * @param invocationCount
+	 *            The number of invocations.
+	 * @param totalNanos
+	 *            The cumulative time, in nanoseconds.
+	 */
+	protected ConstraintProfile(final Class<?> entityType, final String propertyName, final Class<?> constraintType,
+			final long invocationCount, final long totalNanos) {
+		this.entityType = entityType;
+		this.propertyName = propertyName;
+		this.constraintType = constraintType;
+		this.invocationCount = invocationCount;
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * Gets the constraint type.
+	 * 
+	 * @return The constraint annotation type.
+	 */
+	public Class<?> getConstraintType() {
+		return this.constraintType;
+	}
+
+	/**
+	 * Gets the entity type.
+	 * 
+	 * @return The type of the bean holding the property.
+	 */
+	public Class<?> getEntityType() {
+		return this.entityType;
+	}
+
+	/**
+	 * Gets the number of invocations.
+	 * 
+	 * @return The number of invocations.
+	 */
+	public long getInvocationCount() {
+		return this.invocationCount;
+	}
+
+	/**
+	 * Gets the property name.
+	 * 
+	 * @return The property name, or null if not known.
+	 */
+	public String getPropertyName() {
+		return this.propertyName;
+	}
+
+	/**
+	 * Gets the cumulative time.
+	 * 
+	 * @param unit
+	 *            The time unit.
+	 * @return The cumulative time.
+	 */
+	public long getTotalTime(final TimeUnit unit) {
+		return unit.convert(this.totalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ConstraintProfile[\n\tEntity: ").append(this.entityType.getName());
+		builder.append("\n\tProperty: ").append(this.propertyName);
+		builder.append("\n\tConstraint: ").append(this.constraintType.getName());
+		builder.append("\n\tInvocations: ").append(this.invocationCount);
+		builder.append("\n\tTotal nanos: ").append(this.totalNanos);
+		builder.append("\n]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,532 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.ConstraintValidatorFactory;
+import javax.validation.Path;
+import javax.validation.TraversableResolver;
+import javax.validation.Validator;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.MethodDescriptor;
+import javax.validation.metadata.MethodType;
+import javax.validation.metadata.ParameterDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * Measures the invocation count and cumulative time of constraint
+ * validators, per entity type and constraint. Constraint validators are
+ * wrapped through the constraint validator factory, the validated entity
+ * type is tracked through the traversable resolver. Constraint validators
+ * are not told which property they validate, so properties are resolved
+ * from the constraint metadata; equal constraints on several properties of
+ * an entity type are measured together. Measurements are kept with the
+ * entity type through a {@link TypeCache}, so that profiling does not keep
+ * redeployed types and their class loaders reachable.
+ * <p>
+ * Attribution is best-effort. The provider does not consult the traversable
+ * resolver before class and method constraints, so an invocation is booked
+ * on the tracked entity type, or else on the tracked root type, only if
+ * that type declares the constraint according to its metadata. Other
+ * invocations are only counted as unattributed.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator.Builder#profiling(boolean)
+ */
+public final class ConstraintProfiler {
+
+	/** Orders profiles by descending cumulative time. */
+	private static final Comparator<ConstraintProfile> MOST_EXPENSIVE = new Comparator<ConstraintProfile>() {
+		/** {@inheritDoc} */
+		@Override
+		public int compare(final ConstraintProfile first, final ConstraintProfile second) {
+			final long firstNanos = first.getTotalTime(TimeUnit.NANOSECONDS);
+			final long secondNanos = second.getTotalTime(TimeUnit.NANOSECONDS);
+			int result = 0;
+			if (firstNanos > secondNanos) {
+				result = -1;
+			} else if (firstNanos < secondNanos) {
+				result = 1;
+			}
+			return result;
+		}
+	};
+
+	/** The current entity type, per thread, weakly referenced. */
+	private final ThreadLocal<WeakReference<Class<?>>> current;
+	/** The declared constraints, per entity type. */
+	private final TypeCache<Set<Annotation>> declared;
+	/** The profiling constraint validator factory. */
+	private final ConstraintValidatorFactory factory;
+	/** The measurements per constraint, per entity type. */
+	private final TypeCache<ConcurrentMap<Annotation, Measurement>> measurements;
+	/** The validator to resolve constraint metadata with. */
+	private final Validator metadataValidator;
+	/** The tracking traversable resolver. */
+	private final TraversableResolver resolver;
+	/** The current root type, per thread, weakly referenced. */
+	private final ThreadLocal<WeakReference<Class<?>>> root;
+	/** The profiled entity types, weakly referenced. */
+	private final Set<Class<?>> types;
+	/** The number of invocations not attributed to an entity type. */
+	private final AtomicLong unattributed;
+
+	/**
+	 * Constructs the profiler.
+	 * 
+	 * @param metadataValidator
+	 *            The validator to resolve constraint metadata with.
+	 * @param factory
+	 *            The constraint validator factory to delegate to.
+	 * @param resolver
+	 *            The traversable resolver to delegate to.
+	 */
+	protected ConstraintProfiler(final Validator metadataValidator, final ConstraintValidatorFactory factory,
+			final TraversableResolver resolver) {
+		this.metadataValidator = metadataValidator;
+		this.current = new ThreadLocal<WeakReference<Class<?>>>();
+		this.root = new ThreadLocal<WeakReference<Class<?>>>();
+		this.unattributed = new AtomicLong();
+		this.declared = new TypeCache<Set<Annotation>>(new TypeCache.Loader<Set<Annotation>>() {
+			/** {@inheritDoc} */
+			@Override
+			public Set<Annotation> load(final Class<?> type) {
+				return ConstraintProfiler.this.resolveDeclared(type);
+			}
+		});
+		this.types = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>()));
+		this.measurements = new TypeCache<ConcurrentMap<Annotation, Measurement>>(
+				new TypeCache.Loader<ConcurrentMap<Annotation, Measurement>>() {
+					/** {@inheritDoc} */
+					@Override
+					public ConcurrentMap<Annotation, Measurement> load(final Class<?> type) {
+						return new ConcurrentHashMap<Annotation, Measurement>();
+					}
+				});
+		this.factory = new ProfilingFactory(factory);
+		this.resolver = new TrackingResolver(resolver);
+	}
+
+	/**
+	 * Gets the profiled entity types.
+	 * 
+	 * @return The entity types.
+	 */
+	public Set<Class<?>> getEntityTypes() {
+		final Set<Class<?>> result;
+		synchronized (this.types) {
+			result = new HashSet<Class<?>>(this.types);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the profiling constraint validator factory.
+	 * 
+	 * @return The factory.
+	 */
+	public ConstraintValidatorFactory getFactory() {
+		return this.factory;
+	}
+
+	/**
+	 * Gets the tracking traversable resolver.
+	 * 
+	 * @return The resolver.
+	 */
+	public TraversableResolver getResolver() {
+		return this.resolver;
+	}
+
+	/**
+	 * Lists the most expensive constraints of an entity type.
+	 * 
+	 * @param entityType
+	 *            The entity type. May not be null.
+	 * @param count
+	 *            The maximum number of constraints to list.
+	 * @return The profiles, most expensive first.
+	 */
+	public List<ConstraintProfile> getTopConstraints(final Class<?> entityType, final int count) {
+		Validate.notNull(entityType, "Entity type may not be null.");
+		final BeanDescriptor beanDescriptor = this.metadataValidator.getConstraintsForClass(entityType);
+		final List<ConstraintProfile> result = new ArrayList<ConstraintProfile>();
+		for (final Map.Entry<Annotation, Measurement> entry : this.measurements.get(entityType).entrySet()) {
+			final Annotation constraint = entry.getKey();
+			final StringBuilder names = new StringBuilder();
+			for (final PropertyDescriptor property : beanDescriptor.getConstrainedProperties()) {
+				if (this.declares(property.getConstraintDescriptors(), constraint)) {
+					if (names.length() > 0) {
+						names.append(", ");
+					}
+					names.append(property.getPropertyName());
+				}
+			}
+			String propertyName = null;
+			if (names.length() > 0) {
+				propertyName = names.toString();
+			}
+			result.add(new ConstraintProfile(entityType, propertyName, constraint.annotationType(), entry.getValue().count.get(),
+					entry.getValue().nanos.get()));
+		}
+		Collections.sort(result, ConstraintProfiler.MOST_EXPENSIVE);
+		return result.subList(0, Math.min(count, result.size()));
+	}
+
+	/**
+	 * Gets the number of invocations that were not attributed to an entity
+	 * type.
+	 * 
+	 * @return The number of unattributed invocations.
+	 */
+	public long getUnattributedCount() {
+		return this.unattributed.get();
+	}
+
+	/**
+	 * Clears the measurements of an entity type.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 */
+	public void invalidate(final Class<?> entityType) {
+		this.types.remove(entityType);
+		this.measurements.invalidate(entityType);
+		this.declared.invalidate(entityType);
+	}
+
+	/**
+	 * Clears all measurements.
+	 */
+	public void reset() {
+		for (final Class<?> entityType : this.getEntityTypes()) {
+			this.invalidate(entityType);
+		}
+		this.unattributed.set(0);
+	}
+
+	/**
+	 * Records an invocation for the current entity type, or else the current
+	 * root type, if that type declares the constraint.
+	 * 
+	 * @param constraint
+	 *            The constraint.
+	 * @param nanos
+	 *            The time taken, in nanoseconds.
+	 */
+	protected void record(final Annotation constraint, final long nanos) {
+		Class<?> entityType = this.resolveTracked(this.current, constraint);
+		if (CheckUtil.isNull(entityType)) {
+			entityType = this.resolveTracked(this.root, constraint);
+		}
+		if (CheckUtil.isNull(entityType)) {
+			this.unattributed.incrementAndGet();
+		} else {
+			final ConcurrentMap<Annotation, Measurement> typeMeasurements = this.measurements.get(entityType);
+			Measurement measurement = typeMeasurements.get(constraint);
+			if (CheckUtil.isNull(measurement)) {
+				this.types.add(entityType);
+				measurement = new Measurement();
+				final Measurement existing = typeMeasurements.putIfAbsent(constraint, measurement);
+				if (!CheckUtil.isNull(existing)) {
+					measurement = existing;
+				}
+			}
+			measurement.count.incrementAndGet();
+			measurement.nanos.addAndGet(nanos);
+		}
+	}
+
+	/**
+	 * Tracks the current entity and root types.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param rootType
+	 *            The root type.
+	 */
+	protected void track(final Class<?> entityType, final Class<?> rootType) {
+		this.track(this.current, entityType);
+		this.track(this.root, rootType);
+	}
+
+	/**
+	 * Collects constraints, including composing constraints.
+	 * 
+	 * @param descriptors
+	 *            The constraint descriptors.
+	 * @param constraints
+	 *            The constraints to add to.
+	 */
+	private void collect(final Set<ConstraintDescriptor<?>> descriptors, final Set<Annotation> constraints) {
+		for (final ConstraintDescriptor<?> descriptor : descriptors) {
+			constraints.add(descriptor.getAnnotation());
+			this.collect(descriptor.getComposingConstraints(), constraints);
+		}
+	}
+
+	/**
+	 * Tests if a constraint is declared, directly or as a composing
+	 * constraint.
+	 * 
+	 * @param descriptors
+	 *            The constraint descriptors.
+	 * @param constraint
+	 *            The constraint.
+	 * @return True if and only if the constraint is declared.
+	 */
+	private boolean declares(final Set<ConstraintDescriptor<?>> descriptors, final Annotation constraint) {
+		boolean result = false;
+		for (final ConstraintDescriptor<?> descriptor : descriptors) {
+			if (constraint.equals(descriptor.getAnnotation()) || this.declares(descriptor.getComposingConstraints(), constraint)) {
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the constraints an entity type declares on the class, its
+	 * properties and its methods.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @return The declared constraints.
+	 */
+	private Set<Annotation> resolveDeclared(final Class<?> entityType) {
+		final BeanDescriptor beanDescriptor = this.metadataValidator.getConstraintsForClass(entityType);
+		final Set<Annotation> result = new HashSet<Annotation>();
+		this.collect(beanDescriptor.getConstraintDescriptors(), result);
+		for (final PropertyDescriptor property : beanDescriptor.getConstrainedProperties()) {
+			this.collect(property.getConstraintDescriptors(), result);
+		}
+		for (final MethodDescriptor method : beanDescriptor.getConstrainedMethods(MethodType.GETTER, MethodType.NON_GETTER)) {
+			for (final ParameterDescriptor parameter : method.getParameterDescriptors()) {
+				this.collect(parameter.getConstraintDescriptors(), result);
+			}
+			this.collect(method.getCrossParameterDescriptor().getConstraintDescriptors(), result);
+			this.collect(method.getReturnValueDescriptor().getConstraintDescriptors(), result);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves a tracked type, if it declares a constraint.
+	 * 
+	 * @param tracked
+	 *            The tracked type.
+	 * @param constraint
+	 *            The constraint.
+	 * @return The type, or null if no type is tracked or it does not declare
+	 *         the constraint.
+	 */
+	private Class<?> resolveTracked(final ThreadLocal<WeakReference<Class<?>>> tracked, final Annotation constraint) {
+		final WeakReference<Class<?>> reference = tracked.get();
+		Class<?> result = null;
+		if (!CheckUtil.isNull(reference)) {
+			result = reference.get();
+		}
+		if (!CheckUtil.isNull(result) && !this.declared.get(result).contains(constraint)) {
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Tracks a type.
+	 * 
+	 * @param tracked
+	 *            The tracked type.
+	 * @param type
+	 *            The type.
+	 */
+	private void track(final ThreadLocal<WeakReference<Class<?>>> tracked, final Class<?> type) {
+		final WeakReference<Class<?>> reference = tracked.get();
+		if (CheckUtil.isNull(reference) || (reference.get() != type)) {
+			tracked.set(new WeakReference<Class<?>>(type));
+		}
+	}
+
+	/**
+	 * A measurement.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class Measurement {
+		/** The invocation count. */
+		private final AtomicLong count = new AtomicLong();
+		/** The cumulative time, in nanoseconds. */
+		private final AtomicLong nanos = new AtomicLong();
+
+		/** Default constructor. */
+		protected Measurement() {
+			// Default constructor.
+		}
+	}
+
+	/**
+	 * A profiling constraint validator.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <A>
+	 *            The constraint type.
+	 * @param <T>
+	 *            The validated type.
+	 */
+	private final class ProfilingConstraintValidator<A extends Annotation, T>
+			implements ConstraintValidator<A, T> {
+		/** The constraint, set on initialization. */
+		private A constraint;
+		/** The delegate. */
+		private final ConstraintValidator<A, T> delegate;
+
+		/**
+		 * Constructs the validator.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected ProfilingConstraintValidator(final ConstraintValidator<A, T> delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void initialize(final A constraintAnnotation) {
+			this.constraint = constraintAnnotation;
+			this.delegate.initialize(constraintAnnotation);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final T value, final ConstraintValidatorContext context) {
+			final long begin = System.nanoTime();
+			try {
+				return this.delegate.isValid(value, context);
+			} finally {
+				ConstraintProfiler.this.record(this.constraint, System.nanoTime() - begin);
+			}
+		}
+	}
+
+	/**
+	 * The profiling constraint validator factory.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private final class ProfilingFactory
+			implements ConstraintValidatorFactory {
+		/** The delegate. */
+		private final ConstraintValidatorFactory delegate;
+
+		/**
+		 * Constructs the factory.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected ProfilingFactory(final ConstraintValidatorFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		// The provider only uses the instance as a constraint validator.
+		@Override
+		public <T extends ConstraintValidator<?, ?>> T getInstance(final Class<T> key) {
+			return (T) new ProfilingConstraintValidator(this.delegate.getInstance(key));
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void releaseInstance(final ConstraintValidator<?, ?> instance) {
+			if (instance instanceof ProfilingConstraintValidator) {
+				this.delegate.releaseInstance(((ProfilingConstraintValidator<?, ?>) instance).delegate);
+			} else {
+				this.delegate.releaseInstance(instance);
+			}
+		}
+	}
+
+	/**
+	 * The tracking traversable resolver.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private final class TrackingResolver
+			implements TraversableResolver {
+		/** The delegate. */
+		private final TraversableResolver delegate;
+
+		/**
+		 * Constructs the resolver.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected TrackingResolver(final TraversableResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isCascadable(final Object traversableObject, final Path.Node traversableProperty,
+				final Class<?> rootBeanType, final Path pathToTraversableObject, final ElementType elementType) {
+			return this.delegate.isCascadable(traversableObject, traversableProperty, rootBeanType, pathToTraversableObject,
+					elementType);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isReachable(final Object traversableObject, final Path.Node traversableProperty, final Class<?> rootBeanType,
+				final Path pathToTraversableObject, final ElementType elementType) {
+			final boolean result = this.delegate.isReachable(traversableObject, traversableProperty, rootBeanType,
+					pathToTraversableObject, elementType);
+			if (result) {
+				Class<?> entityType = rootBeanType;
+				if (!CheckUtil.isNull(traversableObject)) {
+					entityType = traversableObject.getClass();
+				}
+				ConstraintProfiler.this.track(entityType, rootBeanType);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A point in time after which validation stops. Validation checks the
+ * deadline between properties, cascaded elements and batch items, and
+ * returns the violations found so far in an incomplete result.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ValidationResult#isIncomplete()
+ */
+public final class Deadline {
+
+	/**
+	 * Creates a deadline after the given time budget.
+	 * 
+	 * @param budget
+	 *            The time budget.
+	 * @param unit
+	 *            The time unit. May not be null.
+	 * @return The deadline.
+	 */
+	public static Deadline after(final long budget, final TimeUnit unit) {
+		Validate.notNull(unit, "Unit may not be null.");
+		return new Deadline(System.nanoTime() + unit.toNanos(budget));
+	}
+
+	/** The expiry, in {@link System#nanoTime()} terms. */
+	private final long expiry;
+
+	/**
+	 * Constructs the deadline.
+	 * 
+	 * @param expiry
+	 *            The expiry, in {@link System#nanoTime()} terms.
+	 */
+	protected Deadline(final long expiry) {
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Gets the remaining time.
+	 * 
+	 * @param unit
+	 *            The time unit.
+	 * @return The remaining time, zero if expired.
+	 */
+	public long getRemaining(final TimeUnit unit) {
+		return unit.convert(Math.max(0L, this.expiry - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Tests if the deadline has expired.
+	 * 
+	 * @return True if and only if the deadline has passed.
+	 */
+	public boolean isExpired() {
+		return (System.nanoTime() - this.expiry) >= 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "Deadline in " + this.getRemaining(TimeUnit.MILLISECONDS) + "ms";
+	}
+}
@@ -0,0 +1,115 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import javax.validation.ConstraintViolation;
+
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
+import org.lunarray.model.descriptor.validator.ParameterViolation;
+
+/**
+ * An immutable parameter violation that does not refer to the validated
+ * invocation. Only the descriptor, constraint type name, message, message
+ * template and path of the provider violation are kept. Like attached
+ * violations, violations are only equal to themselves.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <P>
+ *            The parameter type.
+ * @see BeanValidationValidator.Builder#detached(boolean)
+ */
+public final class DetachedParameterViolation<P>
+		implements ParameterViolation<P> {
+
+	/** The constraint type name. */
+	private final String constraintType;
+	/** The message. */
+	private final String message;
+	/** The message template. */
+	private final String messageTemplate;
+	/** The parameter descriptor. */
+	private final ParameterDescriptor<P> parameterDescriptor;
+	/** The path. */
+	private final String path;
+
+	/**
+	 * Constructs the violation.
+	 * 
+	 * @param parameterDescriptor
+	 *            The parameter descriptor, null for a cross-parameter
+	 *            violation.
+	 * @param violation
+	 *            The provider violation to copy.
+	 */
+	protected DetachedParameterViolation(final ParameterDescriptor<P> parameterDescriptor, final ConstraintViolation<?> violation) {
+		this.parameterDescriptor = parameterDescriptor;
+		this.constraintType = violation.getConstraintDescriptor().getAnnotation().annotationType().getName();
+		this.message = violation.getMessage();
+		this.messageTemplate = violation.getMessageTemplate();
+		this.path = violation.getPropertyPath().toString();
+	}
+
+	/**
+	 * Gets the constraint type name.
+	 * 
+	 * @return The name of the constraint annotation type.
+	 */
+	public String getConstraintType() {
+		return this.constraintType;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getMessage() {
+		return this.message;
+	}
+
+	/**
+	 * Gets the message template.
+	 * 
+	 * @return The message template.
+	 */
+	public String getMessageTemplate() {
+		return this.messageTemplate;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ParameterDescriptor<P> getParameter() {
+		return this.parameterDescriptor;
+	}
+
+	/**
+	 * Gets the path.
+	 * 
+	 * @return The path, starting at the operation.
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("DetachedParameterViolation[\n\tPath: ").append(this.path);
+		builder.append("\n\tMessage: ").append(this.message);
+		builder.append("\n]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,137 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import javax.validation.ConstraintViolation;
+
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * An immutable property violation that does not refer to the validated
+ * object graph. Only the descriptor, constraint type name, message, message
+ * template and path of the provider violation are kept. Like attached
+ * violations, violations are only equal to themselves, as equal violations
+ * of distinct elements of a cascaded set share their path.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <E>
+ *            The entity type.
+ * @param <P>
+ *            The property type.
+ * @see BeanValidationValidator.Builder#detached(boolean)
+ */
+public final class DetachedPropertyViolation<E, P>
+		implements PropertyViolation<E, P> {
+
+	/** The constraint type name. */
+	private final String constraintType;
+	/** The message. */
+	private final String message;
+	/** The message template. */
+	private final String messageTemplate;
+	/** The property path. */
+	private final String path;
+	/** The property descriptor, may be null. */
+	private final PropertyDescriptor<P, E> propertyDescriptor;
+
+	/**
+	 * Constructs the violation.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor, may be null.
+	 * @param violation
+	 *            The provider violation to copy.
+	 */
+	protected DetachedPropertyViolation(final PropertyDescriptor<P, E> propertyDescriptor, final ConstraintViolation<?> violation) {
+		this(propertyDescriptor, violation.getConstraintDescriptor().getAnnotation().annotationType().getName(), violation
+				.getMessage(), violation.getMessageTemplate(), violation.getPropertyPath().toString());
+	}
+
+	/**
+	 * Constructs the violation.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor, may be null.
+	 * @param constraintType
+	 *            The constraint type name.
+	 * @param message
+	 *            The message.
+	 * @param messageTemplate
+	 *            The message template.
+	 * @param path
+	 *            The property path.
+	 */
+	protected DetachedPropertyViolation(final PropertyDescriptor<P, E> propertyDescriptor, final String constraintType,
+			final String message, final String messageTemplate, final String path) {
+		this.propertyDescriptor = propertyDescriptor;
+		this.constraintType = constraintType;
+		this.message = message;
+		this.messageTemplate = messageTemplate;
+		this.path = path;
+	}
+
+	/**
+	 * Gets the constraint type name.
+	 * 
+	 * @return The name of the constraint annotation type.
+	 */
+	public String getConstraintType() {
+		return this.constraintType;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getMessage() {
+		return this.message;
+	}
+
+	/**
+	 * Gets the message template.
+	 * 
+	 * @return The message template.
+	 */
+	public String getMessageTemplate() {
+		return this.messageTemplate;
+	}
+
+	/**
+	 * Gets the property path.
+	 * 
+	 * @return The property path, relative to the validated entity.
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public PropertyDescriptor<P, E> getProperty() {
+		return this.propertyDescriptor;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("DetachedPropertyViolation[\n\tPath: ").append(this.path);
+		builder.append("\n\tMessage: ").append(this.message);
+		builder.append("\n]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,459 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.metadata.ConstraintDescriptor;
+
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * A built-in constraint that is checked directly, without the provider.
+ * Checks are conservative, a value is only reported valid if the provider
+ * would accept it as well. Values of unexpected types are never valid, so
+ * that the provider decides.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+abstract class DirectConstraint {
+
+	/** The Hibernate Validator not empty constraint. */
+	private static final String NOT_EMPTY = "org.hibernate.validator.constraints.NotEmpty";
+
+	/**
+	 * Creates a direct constraint.
+	 * 
+	 * @param descriptor
+	 *            The constraint descriptor.
+	 * @return The direct constraint, or null if the constraint is not
+	 *         supported.
+	 */
+	public static DirectConstraint create(final ConstraintDescriptor<?> descriptor) {
+		final Annotation annotation = descriptor.getAnnotation();
+		final Class<? extends Annotation> annotationType = annotation.annotationType();
+		DirectConstraint result = null;
+		if (NotNull.class.equals(annotationType)) {
+			result = new NotNullConstraint();
+		} else if (DirectConstraint.NOT_EMPTY.equals(annotationType.getName())) {
+			result = new NotEmptyConstraint();
+		} else if (Digits.class.equals(annotationType)) {
+			final Digits digits = (Digits) annotation;
+			result = new DigitsConstraint(digits.integer(), digits.fraction());
+		} else if (Size.class.equals(annotationType)) {
+			final Size size = (Size) annotation;
+			result = new SizeConstraint(size.min(), size.max());
+		} else if (Min.class.equals(annotationType)) {
+			result = new MinConstraint(((Min) annotation).value());
+		} else if (Max.class.equals(annotationType)) {
+			result = new MaxConstraint(((Max) annotation).value());
+		} else if (javax.validation.constraints.Pattern.class.equals(annotationType)) {
+			final javax.validation.constraints.Pattern pattern = (javax.validation.constraints.Pattern) annotation;
+			int flags = 0;
+			for (final javax.validation.constraints.Pattern.Flag flag : pattern.flags()) {
+				flags = flags | flag.getValue();
+			}
+			result = new PatternConstraint(Pattern.compile(pattern.regexp(), flags));
+		} else if (AssertTrue.class.equals(annotationType)) {
+			result = new AssertTrueConstraint();
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the size of a value.
+	 * 
+	 * @param value
+	 *            The value, may not be null.
+	 * @return The size, or -1 if the value has no size.
+	 */
+	protected static int size(final Object value) {
+		int result = -1;
+		if (value instanceof CharSequence) {
+			result = ((CharSequence) value).length();
+		} else if (value instanceof Collection) {
+			result = ((Collection<?>) value).size();
+		} else if (value instanceof Map) {
+			result = ((Map<?, ?>) value).size();
+		} else if (value.getClass().isArray()) {
+			result = Array.getLength(value);
+		}
+		return result;
+	}
+
+	/** Default constructor. */
+	protected DirectConstraint() {
+		// Default constructor.
+	}
+
+	/**
+	 * Tests if a value is valid.
+	 * 
+	 * @param value
+	 *            The value, may be null.
+	 * @return True if the value is known to be valid, false if it is invalid
+	 *         or the provider should decide.
+	 */
+	public abstract boolean isValid(Object value);
+
+	/**
+	 * Tests if a primitive floating point value is valid.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if it is invalid
+	 *         or the provider should decide.
+	 */
+	public boolean isValid(final double value) {
+		return false;
+	}
+
+	/**
+	 * Tests if a primitive integral value is valid.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if it is invalid
+	 *         or the provider should decide.
+	 */
+	public boolean isValid(final long value) {
+		return false;
+	}
+
+	/**
+	 * Checks {@link AssertTrue}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class AssertTrueConstraint
+			extends DirectConstraint {
+
+		/** Default constructor. */
+		protected AssertTrueConstraint() {
+			super();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			return CheckUtil.isNull(value) || Boolean.TRUE.equals(value);
+		}
+	}
+
+	/**
+	 * Checks {@link Digits}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class DigitsConstraint
+			extends DirectConstraint {
+
+		/** The radix of digits. */
+		private static final int RADIX = 10;
+
+		/** The maximum number of fraction digits. */
+		private final int fraction;
+		/** The maximum number of integer digits. */
+		private final int integer;
+
+		/**
+		 * Constructs the constraint.
+		 * 
+		 * @param integer
+		 *            The maximum number of integer digits.
+		 * @param fraction
+		 *            The maximum number of fraction digits.
+		 */
+		protected DigitsConstraint(final int integer, final int fraction) {
+			super();
+			this.integer = integer;
+			this.fraction = fraction;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final long value) {
+			int digits = 1;
+			for (long remainder = value / DigitsConstraint.RADIX; remainder != 0; remainder = remainder / DigitsConstraint.RADIX) {
+				digits++;
+			}
+			return digits <= this.integer;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			boolean result;
+			if (CheckUtil.isNull(value)) {
+				result = true;
+			} else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+				result = this.isValid(((Number) value).longValue());
+			} else if (value instanceof BigDecimal) {
+				final BigDecimal decimal = (BigDecimal) value;
+				result = ((decimal.precision() - decimal.scale()) <= this.integer) && (decimal.scale() <= this.fraction);
+			} else {
+				result = false;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Checks {@link Max}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class MaxConstraint
+			extends DirectConstraint {
+
+		/** The maximum. */
+		private final long maximum;
+
+		/**
+		 * Constructs the constraint.
+		 * 
+		 * @param maximum
+		 *            The maximum.
+		 */
+		protected MaxConstraint(final long maximum) {
+			super();
+			this.maximum = maximum;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			boolean result;
+			if (CheckUtil.isNull(value)) {
+				result = true;
+			} else if (value instanceof BigDecimal) {
+				result = ((BigDecimal) value).compareTo(BigDecimal.valueOf(this.maximum)) <= 0;
+			} else if (value instanceof BigInteger) {
+				result = ((BigInteger) value).compareTo(BigInteger.valueOf(this.maximum)) <= 0;
+			} else if ((value instanceof Double) || (value instanceof Float)) {
+				final double doubleValue = ((Number) value).doubleValue();
+				result = !Double.isNaN(doubleValue) && (doubleValue <= this.maximum);
+			} else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+				result = ((Number) value).longValue() <= this.maximum;
+			} else {
+				result = false;
+			}
+			return result;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final double value) {
+			return !Double.isNaN(value) && (value <= this.maximum);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final long value) {
+			return value <= this.maximum;
+		}
+	}
+
+	/**
+	 * Checks {@link Min}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class MinConstraint
+			extends DirectConstraint {
+
+		/** The minimum. */
+		private final long minimum;
+
+		/**
+		 * Constructs the constraint.
+		 * 
+		 * @param minimum
+		 *            The minimum.
+		 */
+		protected MinConstraint(final long minimum) {
+			super();
+			this.minimum = minimum;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			boolean result;
+			if (CheckUtil.isNull(value)) {
+				result = true;
+			} else if (value instanceof BigDecimal) {
+				result = ((BigDecimal) value).compareTo(BigDecimal.valueOf(this.minimum)) >= 0;
+			} else if (value instanceof BigInteger) {
+				result = ((BigInteger) value).compareTo(BigInteger.valueOf(this.minimum)) >= 0;
+			} else if ((value instanceof Double) || (value instanceof Float)) {
+				final double doubleValue = ((Number) value).doubleValue();
+				result = !Double.isNaN(doubleValue) && (doubleValue >= this.minimum);
+			} else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+				result = ((Number) value).longValue() >= this.minimum;
+			} else {
+				result = false;
+			}
+			return result;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final double value) {
+			return !Double.isNaN(value) && (value >= this.minimum);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final long value) {
+			return value >= this.minimum;
+		}
+	}
+
+	/**
+	 * Checks the Hibernate Validator not empty constraint.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class NotEmptyConstraint
+			extends DirectConstraint {
+
+		/** Default constructor. */
+		protected NotEmptyConstraint() {
+			super();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			return !CheckUtil.isNull(value) && (DirectConstraint.size(value) > 0);
+		}
+	}
+
+	/**
+	 * Checks {@link NotNull}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class NotNullConstraint
+			extends DirectConstraint {
+
+		/** Default constructor. */
+		protected NotNullConstraint() {
+			super();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final double value) {
+			return true;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final long value) {
+			return true;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			return !CheckUtil.isNull(value);
+		}
+	}
+
+	/**
+	 * Checks {@link javax.validation.constraints.Pattern}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class PatternConstraint
+			extends DirectConstraint {
+
+		/** The compiled pattern. */
+		private final Pattern pattern;
+
+		/**
+		 * Constructs the constraint.
+		 * 
+		 * @param pattern
+		 *            The compiled pattern.
+		 */
+		protected PatternConstraint(final Pattern pattern) {
+			super();
+			this.pattern = pattern;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			return CheckUtil.isNull(value) || ((value instanceof CharSequence) && this.pattern.matcher((CharSequence) value).matches());
+		}
+	}
+
+	/**
+	 * Checks {@link Size}.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class SizeConstraint
+			extends DirectConstraint {
+
+		/** The maximum size. */
+		private final int maximum;
+		/** The minimum size. */
+		private final int minimum;
+
+		/**
+		 * Constructs the constraint.
+		 * 
+		 * @param minimum
+		 *            The minimum size.
+		 * @param maximum
+		 *            The maximum size.
+		 */
+		protected SizeConstraint(final int minimum, final int maximum) {
+			super();
+			this.minimum = minimum;
+			this.maximum = maximum;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final Object value) {
+			boolean result = true;
+			if (!CheckUtil.isNull(value)) {
+				final int size = DirectConstraint.size(value);
+				result = (size >= this.minimum) && (size <= this.maximum);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.validation.GroupSequence;
+import javax.validation.Validator;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.MethodDescriptor;
+import javax.validation.metadata.ParameterDescriptor;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+
+/**
+ * Checks the common built-in constraints directly, reading values through
+ * the property descriptors. Numeric constraints may be checked on primitive
+ * values without boxing. Plans are compiled once per entity type and
+ * group from the provider metadata, and are kept with the entity type so
+ * that they do not keep its class loader reachable. The engine only proves validity, any
+ * value that may be invalid, custom constraints, cascades and group
+ * sequences are left to the provider, so that the provider produces the
+ * violations.
+ * <p>
+ * Plans are interpreted, an array of {@link DirectConstraint} checks per
+ * property, rather than generated validator classes. Skipping the provider
+ * is where the time goes; a plan costs a small fraction of a provider pass,
+ * and generated code would only shave that fraction further, at the cost of
+ * a bytecode library and a class per entity type and group.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class DirectConstraintEngine {
+
+	/** The Hibernate Validator group sequence provider. */
+	private static final String GROUP_SEQUENCE_PROVIDER = "org.hibernate.validator.group.GroupSequenceProvider";
+
+	/**
+	 * Tests if a type redefines groups through a sequence.
+	 * 
+	 * @param type
+	 *            The type.
+	 * @return True if and only if the type has a group sequence.
+	 */
+	static boolean hasSequence(final Class<?> type) {
+		boolean result = type.isAnnotationPresent(GroupSequence.class);
+		for (final Annotation annotation : type.getAnnotations()) {
+			result = result || DirectConstraintEngine.GROUP_SEQUENCE_PROVIDER.equals(annotation.annotationType().getName());
+		}
+		return result;
+	}
+
+	/** The metadata validator. */
+	private final Validator metadataValidator;
+	/** The compiled plans, per entity type and group. */
+	private final TypeCache<ConcurrentMap<Class<?>, EntityPlan>> plans;
+
+	/**
+	 * Constructs the engine.
+	 * 
+	 * @param metadataValidator
+	 *            The validator to resolve metadata with.
+	 */
+	protected DirectConstraintEngine(final Validator metadataValidator) {
+		this.metadataValidator = metadataValidator;
+		this.plans = new TypeCache<ConcurrentMap<Class<?>, EntityPlan>>(new TypeCache.Loader<ConcurrentMap<Class<?>, EntityPlan>>() {
+			/** {@inheritDoc} */
+			@Override
+			public ConcurrentMap<Class<?>, EntityPlan> load(final Class<?> type) {
+				return new ConcurrentHashMap<Class<?>, EntityPlan>();
+			}
+		});
+	}
+
+	/**
+	 * Compiles the default group parameter constraints of a method. The
+	 * plans are not cached, callers keep them. Cross-parameter constraints
+	 * depend on all parameters, so all parameters of a method with
+	 * cross-parameter constraints must be validated by the provider.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param method
+	 *            The method.
+	 * @return The constraints per parameter index. An empty array if the
+	 *         parameter is unconstrained, null if the parameter must be
+	 *         validated by the provider.
+	 */
+	public DirectConstraint[][] compileParameters(final Class<?> entityType, final Method method) {
+		final DirectConstraint[][] result = new DirectConstraint[method.getParameterTypes().length][];
+		final MethodDescriptor methodDescriptor = this.metadataValidator.getConstraintsForClass(entityType).getConstraintsForMethod(
+				method.getName(), method.getParameterTypes());
+		if (CheckUtil.isNull(methodDescriptor)) {
+			for (int i = 0; i < result.length; i++) {
+				result[i] = new DirectConstraint[0];
+			}
+		} else if (!DirectConstraintEngine.hasSequence(entityType)
+				&& !methodDescriptor.getCrossParameterDescriptor().hasConstraints()) {
+			for (final ParameterDescriptor parameter : methodDescriptor.getParameterDescriptors()) {
+				final List<DirectConstraint> constraints = new LinkedList<DirectConstraint>();
+				boolean supported = !parameter.isCascaded();
+				for (final ConstraintDescriptor<?> constraint : parameter.findConstraints().unorderedAndMatchingGroups(Default.class)
+						.getConstraintDescriptors()) {
+					final DirectConstraint direct = DirectConstraint.create(constraint);
+					supported = supported && !CheckUtil.isNull(direct);
+					constraints.add(direct);
+				}
+				if (supported) {
+					result[parameter.getIndex()] = constraints.toArray(new DirectConstraint[constraints.size()]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Invalidates the plans of an entity type.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 */
+	public void invalidate(final Class<?> entityType) {
+		this.plans.invalidate(entityType);
+	}
+
+	/**
+	 * Tests if an entity is valid.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param group
+	 *            The validated group.
+	 * @param <E>
+	 *            The entity type.
+	 * @return True if the entity is known to be valid, false if the provider
+	 *         should validate.
+	 */
+	public <E> boolean isValid(final EntityDescriptor<E> entityDescriptor, final E entity, final Class<?> group) {
+		final EntityPlan plan = this.resolvePlan(entity.getClass(), group);
+		boolean result = plan.supported;
+		for (final Map.Entry<String, DirectConstraint[]> property : plan.properties.entrySet()) {
+			if (result) {
+				final PropertyDescriptor<?, E> propertyDescriptor = entityDescriptor.getProperty(property.getKey());
+				result = !CheckUtil.isNull(propertyDescriptor)
+						&& this.isValid(property.getValue(), propertyDescriptor.getValue(entity));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if a property value is valid.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param name
+	 *            The property name.
+	 * @param group
+	 *            The validated group.
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if the provider
+	 *         should validate.
+	 */
+	public boolean isValid(final Class<?> entityType, final String name, final Class<?> group, final Object value) {
+		final DirectConstraint[] constraints = this.resolvePlan(entityType, group).properties.get(name);
+		return !CheckUtil.isNull(constraints) && this.isValid(constraints, value);
+	}
+
+	/**
+	 * Tests if a primitive floating point value is valid, without boxing.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param name
+	 *            The property name.
+	 * @param group
+	 *            The validated group.
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if the provider
+	 *         should validate.
+	 */
+	public boolean isValid(final Class<?> entityType, final String name, final Class<?> group, final double value) {
+		final DirectConstraint[] constraints = this.resolvePlan(entityType, group).properties.get(name);
+		boolean result = !CheckUtil.isNull(constraints);
+		if (result) {
+			for (final DirectConstraint constraint : constraints) {
+				result = result && constraint.isValid(value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if a primitive integral value is valid, without boxing.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param name
+	 *            The property name.
+	 * @param group
+	 *            The validated group.
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if the provider
+	 *         should validate.
+	 */
+	public boolean isValid(final Class<?> entityType, final String name, final Class<?> group, final long value) {
+		final DirectConstraint[] constraints = this.resolvePlan(entityType, group).properties.get(name);
+		boolean result = !CheckUtil.isNull(constraints);
+		if (result) {
+			for (final DirectConstraint constraint : constraints) {
+				result = result && constraint.isValid(value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compiles a plan.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param group
+	 *            The group.
+	 * @return The plan.
+	 */
+	private EntityPlan compilePlan(final Class<?> entityType, final Class<?> group) {
+		final BeanDescriptor beanDescriptor = this.metadataValidator.getConstraintsForClass(entityType);
+		final EntityPlan plan = new EntityPlan();
+		plan.supported = !DirectConstraintEngine.hasSequence(entityType) && !DirectConstraintEngine.hasSequence(group)
+				&& !beanDescriptor.findConstraints().unorderedAndMatchingGroups(group).hasConstraints();
+		for (final javax.validation.metadata.PropertyDescriptor property : beanDescriptor.getConstrainedProperties()) {
+			plan.supported = plan.supported && !property.isCascaded();
+			final List<DirectConstraint> constraints = new LinkedList<DirectConstraint>();
+			boolean supported = !DirectConstraintEngine.hasSequence(group);
+			for (final ConstraintDescriptor<?> constraint : property.findConstraints().unorderedAndMatchingGroups(group)
+					.getConstraintDescriptors()) {
+				final DirectConstraint direct = DirectConstraint.create(constraint);
+				supported = supported && !CheckUtil.isNull(direct);
+				constraints.add(direct);
+			}
+			if (supported) {
+				plan.properties.put(property.getPropertyName(), constraints.toArray(new DirectConstraint[constraints.size()]));
+			} else {
+				plan.supported = false;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Tests a value against constraints.
+	 * 
+	 * @param constraints
+	 *            The constraints.
+	 * @param value
+	 *            The value.
+	 * @return True if and only if all constraints accept the value.
+	 */
+	private boolean isValid(final DirectConstraint[] constraints, final Object value) {
+		boolean result = true;
+		for (final DirectConstraint constraint : constraints) {
+			result = result && constraint.isValid(value);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves a plan, compiling it if needed.
+	 * 
+	 * @param entityType
+	 *            The entity type.
+	 * @param group
+	 *            The group.
+	 * @return The plan.
+	 */
+	private EntityPlan resolvePlan(final Class<?> entityType, final Class<?> group) {
+		final ConcurrentMap<Class<?>, EntityPlan> groupPlans = this.plans.get(entityType);
+		EntityPlan plan = groupPlans.get(group);
+		if (CheckUtil.isNull(plan)) {
+			plan = this.compilePlan(entityType, group);
+			final EntityPlan existing = groupPlans.putIfAbsent(group, plan);
+			if (!CheckUtil.isNull(existing)) {
+				plan = existing;
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * A compiled plan for an entity type and group.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class EntityPlan {
+		/** The directly checked properties. */
+		private final Map<String, DirectConstraint[]> properties = new HashMap<String, DirectConstraint[]>();
+		/** Whether the entity as a whole may be checked directly. */
+		private boolean supported;
+
+		/** Default constructor. */
+		protected EntityPlan() {
+			// Default constructor.
+		}
+	}
+}
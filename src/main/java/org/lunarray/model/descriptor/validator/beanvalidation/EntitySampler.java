@@ -0,0 +1,182 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates the sampled groups of a sampling policy on samples of entities
+ * and reports the results to its listener, through the executor of the
+ * policy.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see SamplingPolicy
+ */
+final class EntitySampler {
+
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EntitySampler.class);
+
+	/** The violation converter. */
+	private final ViolationConverter converter;
+	/** The sampling policy. */
+	private final SamplingPolicy samplingPolicy;
+	/** The violation limiter. */
+	private final ViolationLimiter violationLimiter;
+
+	/**
+	 * Constructs the sampler.
+	 * 
+	 * @param samplingPolicy
+	 *            The sampling policy.
+	 * @param violationLimiter
+	 *            The violation limiter.
+	 * @param converter
+	 *            The violation converter.
+	 */
+	protected EntitySampler(final SamplingPolicy samplingPolicy, final ViolationLimiter violationLimiter,
+			final ViolationConverter converter) {
+		this.samplingPolicy = samplingPolicy;
+		this.violationLimiter = violationLimiter;
+		this.converter = converter;
+	}
+
+	/**
+	 * Tests if a validated entity should be sampled. Entities of which the
+	 * validation was cut short are not sampled.
+	 * 
+	 * @param counter
+	 *            The counter of the provider call, may be null.
+	 * @return True if and only if the entity should be sampled.
+	 */
+	public boolean isDue(final ViolationLimiter.Counter counter) {
+		return (CheckUtil.isNull(counter) || !counter.isExpired() && !counter.isStopped()) && this.samplingPolicy.sample();
+	}
+
+	/**
+	 * Tests if a group is only validated on samples.
+	 * 
+	 * @param group
+	 *            The group.
+	 * @return True if and only if the group is sampled.
+	 */
+	public boolean isSampled(final Class<?> group) {
+		return this.samplingPolicy.isSampled(group);
+	}
+
+	/**
+	 * Validates the sampled groups and reports the results. The groups are
+	 * validated in the calling thread, so that the entity is not read while
+	 * its owner goes on to change it, only the listener is notified through
+	 * the executor of the sampling policy.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param validator
+	 *            The validator.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	public <E> void sample(final EntityDescriptor<E> entityDescriptor, final E entity, final Validator validator) {
+		final Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> results = this.validate(entityDescriptor, entity, validator);
+		final Runnable report = new Runnable() {
+			/** {@inheritDoc} */
+			@Override
+			public void run() {
+				EntitySampler.this.report(entityDescriptor, entity, results);
+			}
+		};
+		try {
+			this.samplingPolicy.getExecutor().execute(report);
+		} catch (final RejectedExecutionException e) {
+			EntitySampler.LOGGER.debug("Dropped sample of entity {}.", entity, e);
+		}
+	}
+
+	/**
+	 * Reports the results of the sampled groups. Failures are logged, so that
+	 * monitoring never affects other samples.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param results
+	 *            The results, per sampled group.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private <E> void report(final EntityDescriptor<E> entityDescriptor, final E entity,
+			final Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> results) {
+		for (final Map.Entry<Class<?>, ValidationResult<PropertyViolation<E, ?>>> result : results.entrySet()) {
+			try {
+				this.samplingPolicy.getListener().sampled(entityDescriptor, entity, result.getKey(), result.getValue());
+			} catch (final RuntimeException e) {
+				EntitySampler.LOGGER.warn("Could not report sampled group {} of entity {}.", result.getKey(), entity, e);
+			}
+		}
+	}
+
+	/**
+	 * Validates the sampled groups. Failures are logged, so that monitoring
+	 * never affects the validated call.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param validator
+	 *            The validator.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The results of the validated groups, per group.
+	 */
+	private <E> Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> validate(final EntityDescriptor<E> entityDescriptor,
+			final E entity, final Validator validator) {
+		final Map<Class<?>, ValidationResult<PropertyViolation<E, ?>>> result = new LinkedHashMap<Class<?>, ValidationResult<PropertyViolation<E, ?>>>();
+		for (final Class<?> group : this.samplingPolicy.getGroups()) {
+			try {
+				Set<ConstraintViolation<E>> violations;
+				final ViolationLimiter.Counter counter = this.violationLimiter.begin(null);
+				try {
+					violations = validator.validate(entity, group);
+				} finally {
+					this.violationLimiter.end(counter);
+				}
+				result.put(group, this.converter.convertViolations(entityDescriptor, violations, counter));
+			} catch (final RuntimeException e) {
+				EntitySampler.LOGGER.warn("Could not validate sampled group {} of entity {}.", group, entity, e);
+			}
+		}
+		return result;
+	}
+}
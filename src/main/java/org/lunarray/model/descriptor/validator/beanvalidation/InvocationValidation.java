@@ -0,0 +1,253 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.executable.ExecutableValidator;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.operation.OperationDescriptor;
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
+import org.lunarray.model.descriptor.util.OperationInvocationBuilder;
+import org.lunarray.model.descriptor.validator.ParameterViolation;
+
+/**
+ * Validates the parameters of invocations with the provider, one at a time
+ * or in chunks.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class InvocationValidation {
+
+	/** The violation converter. */
+	private final ViolationConverter converter;
+	/** The maximum number of violations per call. */
+	private final int maximumViolations;
+	/** The violation limiter. */
+	private final ViolationLimiter violationLimiter;
+
+	/**
+	 * Constructs the invocation validation.
+	 * 
+	 * @param violationLimiter
+	 *            The violation limiter.
+	 * @param converter
+	 *            The violation converter.
+	 * @param maximumViolations
+	 *            The maximum number of violations per call.
+	 */
+	protected InvocationValidation(final ViolationLimiter violationLimiter, final ViolationConverter converter,
+			final int maximumViolations) {
+		this.violationLimiter = violationLimiter;
+		this.converter = converter;
+		this.maximumViolations = maximumViolations;
+	}
+
+	/**
+	 * Validates an invocation, pushing the violations to a consumer.
+	 * 
+	 * @param invocation
+	 *            The invocation.
+	 * @param validator
+	 *            The validator.
+	 * @param method
+	 *            The invoked method.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The counter of the provider call.
+	 */
+	public <E> ViolationLimiter.Counter consume(final OperationInvocationBuilder<E> invocation, final ExecutableValidator validator,
+			final Method method, final Deadline deadline, final ViolationConsumer<? super ParameterViolation<?>> consumer) {
+		final Object[] parameters = new Object[invocation.getOperationDescriptor().getParameterCount()];
+		for (final Map.Entry<ParameterDescriptor<?>, ?> entry : invocation.getParameters().entrySet()) {
+			parameters[entry.getKey().getIndex()] = entry.getValue();
+		}
+		return this.consumeParameters(invocation.getOperationDescriptor(), invocation.getTarget(), validator, method, parameters,
+				deadline, false, consumer);
+	}
+
+	/**
+	 * Validates the parameters of an invocation, pushing the violations to a
+	 * consumer.
+	 * 
+	 * @param operationDescriptor
+	 *            The operation descriptor.
+	 * @param target
+	 *            The invocation target.
+	 * @param validator
+	 *            The validator.
+	 * @param method
+	 *            The invoked method.
+	 * @param parameters
+	 *            The parameters, per index.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param crossParameters
+	 *            Whether to push cross-parameter violations, without a
+	 *            parameter descriptor.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The counter of the provider call.
+	 */
+	public <E> ViolationLimiter.Counter consumeParameters(final OperationDescriptor<E> operationDescriptor, final E target,
+			final ExecutableValidator validator, final Method method, final Object[] parameters, final Deadline deadline,
+			final boolean crossParameters, final ViolationConsumer<? super ParameterViolation<?>> consumer) {
+		Set<ConstraintViolation<E>> violations;
+		final ViolationLimiter.Counter counter = this.violationLimiter.begin(deadline);
+		try {
+			violations = validator.validateParameters(target, method, parameters);
+		} finally {
+			this.violationLimiter.end(counter);
+		}
+		this.converter.pushParameters(operationDescriptor, violations, crossParameters, consumer);
+		return counter;
+	}
+
+	/**
+	 * Validates an invocation, collecting the violations. If the deadline has
+	 * expired, the invocation is not validated.
+	 * 
+	 * @param invocation
+	 *            The invocation.
+	 * @param validator
+	 *            The validator.
+	 * @param method
+	 *            The invoked method.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 */
+	public <E> ValidationResult<ParameterViolation<?>> validate(final OperationInvocationBuilder<E> invocation,
+			final ExecutableValidator validator, final Method method, final Deadline deadline) {
+		final ValidationResult<ParameterViolation<?>> result = new ValidationResult<ParameterViolation<?>>(this.maximumViolations);
+		if (!CheckUtil.isNull(deadline) && deadline.isExpired()) {
+			result.markIncomplete();
+		} else {
+			this.converter.markLimits(result, this.consume(invocation, validator, method, deadline, result));
+		}
+		return result;
+	}
+
+	/**
+	 * Validates invocations of the same operation in chunks. If an executor
+	 * is given, the chunks are validated in parallel.
+	 * 
+	 * @param invocations
+	 *            The invocations.
+	 * @param validator
+	 *            The validator.
+	 * @param method
+	 *            The invoked method.
+	 * @param deadline
+	 *            The deadline, may be null.
+	 * @param executor
+	 *            The executor, may be null.
+	 * @param result
+	 *            The violations to add to, per invocation.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	public <E> void validateAll(final Collection<OperationInvocationBuilder<E>> invocations, final ExecutableValidator validator,
+			final Method method, final Deadline deadline, final ExecutorService executor,
+			final Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> result) {
+		final List<Chunk<E>> chunks = new LinkedList<Chunk<E>>();
+		Chunk<E> chunk = null;
+		for (final OperationInvocationBuilder<E> invocation : invocations) {
+			if (CheckUtil.isNull(chunk) || (chunk.invocations.size() == BatchExecutor.CHUNK_SIZE)) {
+				chunk = new Chunk<E>(validator, method, deadline);
+				chunks.add(chunk);
+			}
+			chunk.invocations.add(invocation);
+		}
+		if (CheckUtil.isNull(executor)) {
+			for (final Chunk<E> sequential : chunks) {
+				result.putAll(sequential.call());
+			}
+		} else {
+			for (final Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> chunkResult : BatchExecutor.invokeAll(
+					executor, chunks, "invocations")) {
+				result.putAll(chunkResult);
+			}
+		}
+	}
+
+	/**
+	 * A chunk of invocations to validate.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private final class Chunk<E>
+			implements Callable<Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>>> {
+		/** The deadline, may be null. */
+		private final Deadline deadline;
+		/** The invocations. */
+		private final List<OperationInvocationBuilder<E>> invocations;
+		/** The invoked method. */
+		private final Method method;
+		/** The validator. */
+		private final ExecutableValidator validator;
+
+		/**
+		 * Constructs the chunk.
+		 * 
+		 * @param validator
+		 *            The validator.
+		 * @param method
+		 *            The invoked method.
+		 * @param deadline
+		 *            The deadline, may be null.
+		 */
+		protected Chunk(final ExecutableValidator validator, final Method method, final Deadline deadline) {
+			this.validator = validator;
+			this.method = method;
+			this.deadline = deadline;
+			this.invocations = new ArrayList<OperationInvocationBuilder<E>>(BatchExecutor.CHUNK_SIZE);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> call() {
+			final Map<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>> result = new IdentityHashMap<OperationInvocationBuilder<E>, Collection<ParameterViolation<?>>>();
+			for (final OperationInvocationBuilder<E> invocation : this.invocations) {
+				result.put(invocation, InvocationValidation.this.validate(invocation, this.validator, this.method, this.deadline));
+			}
+			return result;
+		}
+	}
+}
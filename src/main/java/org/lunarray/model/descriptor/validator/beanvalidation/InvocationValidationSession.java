@@ -0,0 +1,287 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.executable.ExecutableValidator;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
+import org.lunarray.model.descriptor.util.OperationInvocationBuilder;
+import org.lunarray.model.descriptor.validator.ParameterViolation;
+
+/**
+ * Validates an invocation while its parameters are set one by one. The
+ * violations are kept per parameter. Setting a parameter only checks that
+ * parameter: unconstrained parameters and parameters with only common
+ * built-in constraints are checked without the provider, other parameters
+ * are validated by the provider, which validates all parameters of the
+ * invocation at once. A method with cross-parameter constraints is
+ * validated by the provider whenever a parameter is set, as these constraints
+ * depend on all parameters. Cross-parameter violations are kept apart, without
+ * a parameter descriptor, and are reported with the violations of all
+ * parameters.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <E>
+ *            The entity type.
+ * @see BeanValidationValidator#createInvocationSession(OperationInvocationBuilder,
+ *      java.util.Locale)
+ */
+public final class InvocationValidationSession<E> {
+
+	/** Validation message. */
+	private static final String PARAMETER_DESCRIPTOR_NULL = "Parameter descriptor may not be null.";
+
+	/** The direct constraints per parameter, null if the provider validates. */
+	private final DirectConstraint[][] constraints;
+	/** The cross-parameter violations. */
+	private final List<ParameterViolation<?>> crossParameterViolations;
+	/** Whether built-in constraints are checked directly. */
+	private final boolean direct;
+	/** The number of parameters checked directly. */
+	private long directCount;
+	/** The invocation. */
+	private final OperationInvocationBuilder<E> invocation;
+	/** The invocation validation. */
+	private final InvocationValidation invocationValidation;
+	/** The maximum number of violations. */
+	private final int maximumViolations;
+	/** The invoked method. */
+	private final Method method;
+	/** The parameters, per index. */
+	private final Object[] parameters;
+	/** The number of provider validations. */
+	private long providerCount;
+	/** Whether the provider dropped violations. */
+	private boolean truncated;
+	/** The provider validator. */
+	private final ExecutableValidator validator;
+	/** The violations, per parameter index. */
+	private final List<List<ParameterViolation<?>>> violations;
+
+	/**
+	 * Constructs the session.
+	 * 
+	 * @param invocationValidation
+	 *            The invocation validation.
+	 * @param invocation
+	 *            The invocation.
+	 * @param validator
+	 *            The provider validator.
+	 * @param method
+	 *            The invoked method.
+	 * @param constraints
+	 *            The direct constraints per parameter.
+	 * @param direct
+	 *            Whether built-in constraints are checked directly.
+	 * @param maximumViolations
+	 *            The maximum number of violations.
+	 */
+	protected InvocationValidationSession(final InvocationValidation invocationValidation,
+			final OperationInvocationBuilder<E> invocation, final ExecutableValidator validator, final Method method,
+			final DirectConstraint[][] constraints, final boolean direct, final int maximumViolations) {
+		this.invocationValidation = invocationValidation;
+		this.invocation = invocation;
+		this.validator = validator;
+		this.method = method;
+		this.constraints = constraints;
+		this.direct = direct;
+		this.maximumViolations = maximumViolations;
+		this.parameters = new Object[constraints.length];
+		this.crossParameterViolations = new ArrayList<ParameterViolation<?>>(0);
+		this.violations = new ArrayList<List<ParameterViolation<?>>>(constraints.length);
+		for (int i = 0; i < constraints.length; i++) {
+			this.violations.add(new ArrayList<ParameterViolation<?>>(0));
+		}
+	}
+
+	/**
+	 * Gets the cross-parameter violations. These have no parameter descriptor.
+	 * 
+	 * @return The cross-parameter violations.
+	 */
+	public synchronized ValidationResult<ParameterViolation<?>> getCrossParameterViolations() {
+		final ValidationResult<ParameterViolation<?>> result = new ValidationResult<ParameterViolation<?>>(this.maximumViolations);
+		result.addAll(this.crossParameterViolations);
+		return result;
+	}
+
+	/**
+	 * Gets the number of parameters that were checked without the provider.
+	 * 
+	 * @return The number of direct checks.
+	 */
+	public synchronized long getDirectCount() {
+		return this.directCount;
+	}
+
+	/**
+	 * Gets the invocation.
+	 * 
+	 * @return The invocation.
+	 */
+	public OperationInvocationBuilder<E> getInvocation() {
+		return this.invocation;
+	}
+
+	/**
+	 * Gets the number of provider validations.
+	 * 
+	 * @return The number of provider validations.
+	 */
+	public synchronized long getProviderCount() {
+		return this.providerCount;
+	}
+
+	/**
+	 * Gets the violations of all parameters, including the cross-parameter
+	 * violations.
+	 * 
+	 * @return The violations.
+	 */
+	public synchronized ValidationResult<ParameterViolation<?>> getViolations() {
+		final ValidationResult<ParameterViolation<?>> result = new ValidationResult<ParameterViolation<?>>(this.maximumViolations);
+		result.addAll(this.crossParameterViolations);
+		for (final List<ParameterViolation<?>> parameterViolations : this.violations) {
+			result.addAll(parameterViolations);
+		}
+		if (this.truncated) {
+			result.truncate();
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the violations of a parameter.
+	 * 
+	 * @param parameterDescriptor
+	 *            The parameter descriptor. May not be null.
+	 * @return The violations of the parameter.
+	 */
+	public synchronized ValidationResult<ParameterViolation<?>> getViolations(final ParameterDescriptor<?> parameterDescriptor) {
+		Validate.notNull(parameterDescriptor, InvocationValidationSession.PARAMETER_DESCRIPTOR_NULL);
+		final ValidationResult<ParameterViolation<?>> result = new ValidationResult<ParameterViolation<?>>(this.maximumViolations);
+		result.addAll(this.violations.get(parameterDescriptor.getIndex()));
+		return result;
+	}
+
+	/**
+	 * Validates all parameters as currently set in the invocation.
+	 */
+	public synchronized void revalidate() {
+		for (int i = 0; i < this.parameters.length; i++) {
+			this.parameters[i] = null;
+		}
+		for (final Map.Entry<ParameterDescriptor<?>, ?> entry : this.invocation.getParameters().entrySet()) {
+			this.parameters[entry.getKey().getIndex()] = entry.getValue();
+		}
+		this.validateProvider();
+	}
+
+	/**
+	 * Sets a parameter of the invocation and checks it.
+	 * 
+	 * @param parameterDescriptor
+	 *            The parameter descriptor. May not be null.
+	 * @param value
+	 *            The parameter value.
+	 * @param <P>
+	 *            The parameter type.
+	 * @return The violations of all parameters, including the
+	 *         cross-parameter violations.
+	 */
+	public synchronized <P> ValidationResult<ParameterViolation<?>> setParameter(final ParameterDescriptor<P> parameterDescriptor,
+			final P value) {
+		Validate.notNull(parameterDescriptor, InvocationValidationSession.PARAMETER_DESCRIPTOR_NULL);
+		final int index = parameterDescriptor.getIndex();
+		this.invocation.parameter(parameterDescriptor, value);
+		this.parameters[index] = value;
+		if (this.isDirectlyValid(index, value)) {
+			this.violations.get(index).clear();
+			this.directCount++;
+		} else {
+			this.validateProvider();
+		}
+		return this.getViolations();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("InvocationValidationSession[\n\tMethod: ").append(this.method);
+		builder.append("\n\tDirect: ").append(this.directCount);
+		builder.append("\n\tProvider: ").append(this.providerCount);
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Tests if a parameter value is valid without the provider.
+	 * 
+	 * @param index
+	 *            The parameter index.
+	 * @param value
+	 *            The value.
+	 * @return True if the value is known to be valid, false if the provider
+	 *         should validate.
+	 */
+	private boolean isDirectlyValid(final int index, final Object value) {
+		final DirectConstraint[] parameterConstraints = this.constraints[index];
+		boolean result = !CheckUtil.isNull(parameterConstraints) && ((parameterConstraints.length == 0) || this.direct);
+		if (result) {
+			for (final DirectConstraint constraint : parameterConstraints) {
+				result = result && constraint.isValid(value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Validates all parameters with the provider.
+	 */
+	private void validateProvider() {
+		this.crossParameterViolations.clear();
+		for (final List<ParameterViolation<?>> parameterViolations : this.violations) {
+			parameterViolations.clear();
+		}
+		final ViolationLimiter.Counter counter = this.invocationValidation.consumeParameters(this.invocation.getOperationDescriptor(),
+				this.invocation.getTarget(), this.validator, this.method, this.parameters.clone(), null, true,
+				new ViolationConsumer<ParameterViolation<?>>() {
+					/** {@inheritDoc} */
+					@Override
+					public boolean consume(final ParameterViolation<?> violation) {
+						final ParameterDescriptor<?> parameterDescriptor = violation.getParameter();
+						if (CheckUtil.isNull(parameterDescriptor)) {
+							InvocationValidationSession.this.crossParameterViolations.add(violation);
+						} else {
+							InvocationValidationSession.this.violations.get(parameterDescriptor.getIndex()).add(violation);
+						}
+						return true;
+					}
+				});
+		this.truncated = counter.isStopped();
+		this.providerCount++;
+	}
+}
@@ -0,0 +1,125 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.MessageInterpolator;
+import javax.validation.ValidationException;
+import javax.validation.metadata.ConstraintDescriptor;
+
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * Renders the message of a violation in other locales. The message template
+ * is interpolated with the constraint attributes and invalid value kept by
+ * the violation, so the violation need not be validated again. Messages are
+ * memoized per locale.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class LocalizedMessages {
+
+	/** The interpolator, may be null. */
+	private final MessageInterpolator interpolator;
+	/** The memoized messages, created on first use. */
+	private Map<Locale, String> messages;
+	/** The violation. */
+	private final ConstraintViolation<?> violation;
+
+	/**
+	 * Constructs the messages.
+	 * 
+	 * @param violation
+	 *            The violation.
+	 * @param interpolator
+	 *            The interpolator, may be null.
+	 */
+	protected LocalizedMessages(final ConstraintViolation<?> violation, final MessageInterpolator interpolator) {
+		this.violation = violation;
+		this.interpolator = interpolator;
+	}
+
+	/**
+	 * Gets the message in a locale.
+	 * 
+	 * @param locale
+	 *            The locale, may be null for the default locale.
+	 * @return The message. The message as validated if no interpolator is
+	 *         known.
+	 */
+	public synchronized String getMessage(final Locale locale) {
+		String result;
+		if (CheckUtil.isNull(this.interpolator)) {
+			result = this.violation.getMessage();
+		} else {
+			final Locale key = CheckUtil.isNull(locale) ? Locale.getDefault() : locale;
+			if (CheckUtil.isNull(this.messages)) {
+				this.messages = new HashMap<Locale, String>();
+			}
+			result = this.messages.get(key);
+			if (CheckUtil.isNull(result)) {
+				result = this.interpolator.interpolate(this.violation.getMessageTemplate(), new ViolationContext(this.violation), key);
+				this.messages.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The interpolation context of a violation.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class ViolationContext
+			implements MessageInterpolator.Context {
+		/** The violation. */
+		private final ConstraintViolation<?> violation;
+
+		/**
+		 * Constructs the context.
+		 * 
+		 * @param violation
+		 *            The violation.
+		 */
+		protected ViolationContext(final ConstraintViolation<?> violation) {
+			this.violation = violation;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public ConstraintDescriptor<?> getConstraintDescriptor() {
+			return this.violation.getConstraintDescriptor();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Object getValidatedValue() {
+			return this.violation.getInvalidValue();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public <T> T unwrap(final Class<T> type) {
+			throw new ValidationException("Type " + type + " is not supported.");
+		}
+	}
+}
@@ -0,0 +1,289 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.ValidationException;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * Coalesces identical concurrent validation requests. The first request
+ * validates, requests that arrive while it is in flight wait for it and
+ * receive a copy of its result. Validated objects are identified by
+ * identity, so that only requests for the very same object share a
+ * validation, unless a key extractor is declared for their type. Objects of
+ * such a type are identified by their coalescing key, so that requests for
+ * distinct but equal objects share a validation. Results are only shared
+ * while in flight, nothing is cached.
+ * <p>
+ * Coalescing assumes validated objects do not change while being
+ * validated, such as immutable reference entities.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator.Builder#coalescing(boolean)
+ */
+public final class RequestCoalescer {
+
+	/** The key extractors, per validated type. */
+	private final TypeCache<CoalescingKeyExtractor> extractors;
+	/** The requests in flight, per key. */
+	private final ConcurrentMap<Key, FutureTask<?>> inFlight;
+	/** The declared key extractors, per declared type. Guarded by itself. */
+	private final Map<Class<?>, CoalescingKeyExtractor> keyExtractors;
+	/** The number of validations that were performed. */
+	private final AtomicLong performedCount;
+	/** The number of requests that received the result of another. */
+	private final AtomicLong sharedCount;
+
+	/**
+	 * Constructs the coalescer.
+	 * 
+	 * @param keyExtractors
+	 *            The key extractors, per declared type.
+	 */
+	protected RequestCoalescer(final Map<Class<?>, CoalescingKeyExtractor> keyExtractors) {
+		this.keyExtractors = Collections.synchronizedMap(new WeakHashMap<Class<?>, CoalescingKeyExtractor>(keyExtractors));
+		this.extractors = new TypeCache<CoalescingKeyExtractor>(new TypeCache.Loader<CoalescingKeyExtractor>() {
+			/** {@inheritDoc} */
+			@Override
+			public CoalescingKeyExtractor load(final Class<?> type) {
+				return RequestCoalescer.this.resolveExtractor(type);
+			}
+		});
+		this.inFlight = new ConcurrentHashMap<Key, FutureTask<?>>();
+		this.performedCount = new AtomicLong();
+		this.sharedCount = new AtomicLong();
+	}
+
+	/**
+	 * Gets the number of validations that were performed.
+	 * 
+	 * @return The number of performed validations.
+	 */
+	public long getPerformedCount() {
+		return this.performedCount.get();
+	}
+
+	/**
+	 * Gets the number of requests that received the result of a validation
+	 * in flight, which is the number of validations saved.
+	 * 
+	 * @return The number of shared results.
+	 */
+	public long getSharedCount() {
+		return this.sharedCount.get();
+	}
+
+	/**
+	 * Resets the counts.
+	 */
+	public void reset() {
+		this.performedCount.set(0);
+		this.sharedCount.set(0);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("RequestCoalescer[\n\tPerformed: ").append(this.performedCount.get());
+		builder.append("\n\tShared: ").append(this.sharedCount.get());
+		builder.append("\n\tIn flight: ").append(this.inFlight.size());
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Performs a validation of an object, or receives a copy of the result
+	 * of a validation of the same object in flight. Every caller receives its
+	 * own copy, the shared result is never handed out.
+	 * 
+	 * @param descriptor
+	 *            The descriptor.
+	 * @param target
+	 *            The validated object, compared by its coalescing key if its
+	 *            type has a key extractor, by identity otherwise.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param validation
+	 *            The validation.
+	 * @param <V>
+	 *            The violation type.
+	 * @return The result.
+	 */
+	@SuppressWarnings("unchecked")
+	// Equal keys are only used for validations of the same violation type.
+	protected <V> ValidationResult<V> coalesce(final Object descriptor, final Object target, final Locale locale,
+			final Callable<ValidationResult<V>> validation) {
+		Object coalescingKey = null;
+		if (!CheckUtil.isNull(target)) {
+			final CoalescingKeyExtractor extractor = this.extractors.get(target.getClass());
+			if (!CheckUtil.isNull(extractor)) {
+				coalescingKey = extractor.getKey(target);
+			}
+		}
+		final Key key = new Key(descriptor, target, locale, coalescingKey);
+		final FutureTask<ValidationResult<V>> task = new FutureTask<ValidationResult<V>>(validation);
+		final FutureTask<?> existing = this.inFlight.putIfAbsent(key, task);
+		ValidationResult<V> result;
+		if (CheckUtil.isNull(existing)) {
+			this.performedCount.incrementAndGet();
+			try {
+				task.run();
+			} finally {
+				// The task is the token of this request, only its own entry is removed.
+				this.inFlight.remove(key, task);
+			}
+			result = this.await(task);
+		} else {
+			this.sharedCount.incrementAndGet();
+			result = (ValidationResult<V>) this.await(existing);
+		}
+		return result.copy();
+	}
+
+	/**
+	 * Awaits the result of a validation.
+	 * 
+	 * @param task
+	 *            The validation.
+	 * @param <T>
+	 *            The result type.
+	 * @return The result.
+	 */
+	private <T> T await(final FutureTask<T> task) {
+		T result;
+		try {
+			result = task.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ValidationException("Interrupted while awaiting validation.", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ValidationException("Could not validate.", cause);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the key extractor of the most specific declared type a
+	 * validated type is assignable to.
+	 * 
+	 * @param type
+	 *            The validated type.
+	 * @return The extractor, or null if the type has none.
+	 */
+	private CoalescingKeyExtractor resolveExtractor(final Class<?> type) {
+		Class<?> declared = null;
+		CoalescingKeyExtractor result = null;
+		synchronized (this.keyExtractors) {
+			for (final Map.Entry<Class<?>, CoalescingKeyExtractor> entry : this.keyExtractors.entrySet()) {
+				final Class<?> candidate = entry.getKey();
+				if (!CheckUtil.isNull(candidate) && candidate.isAssignableFrom(type)
+						&& (CheckUtil.isNull(declared) || declared.isAssignableFrom(candidate))) {
+					declared = candidate;
+					result = entry.getValue();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A request key. The validated object is compared by its coalescing key
+	 * if it has one, by identity otherwise.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class Key {
+		/** The coalescing key, may be null. */
+		private final Object coalescingKey;
+		/** The descriptor. */
+		private final Object descriptor;
+		/** The message locale, may be null. */
+		private final Locale locale;
+		/** The validated object. */
+		private final Object target;
+
+		/**
+		 * Constructs the key.
+		 * 
+		 * @param descriptor
+		 *            The descriptor.
+		 * @param target
+		 *            The validated object.
+		 * @param locale
+		 *            The message locale, may be null.
+		 * @param coalescingKey
+		 *            The coalescing key of the validated object, may be null.
+		 */
+		protected Key(final Object descriptor, final Object target, final Locale locale, final Object coalescingKey) {
+			this.descriptor = descriptor;
+			this.target = target;
+			this.locale = locale;
+			this.coalescingKey = coalescingKey;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean equals(final Object obj) {
+			boolean result = false;
+			if (obj instanceof Key) {
+				final Key other = (Key) obj;
+				result = (this.descriptor == other.descriptor) && ObjectUtils.equals(this.locale, other.locale);
+				if (CheckUtil.isNull(this.coalescingKey)) {
+					result = result && CheckUtil.isNull(other.coalescingKey) && (this.target == other.target);
+				} else {
+					result = result && this.coalescingKey.equals(other.coalescingKey);
+				}
+			}
+			return result;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int hashCode() {
+			int targetHash;
+			if (CheckUtil.isNull(this.coalescingKey)) {
+				targetHash = System.identityHashCode(this.target);
+			} else {
+				targetHash = this.coalescingKey.hashCode();
+			}
+			return (31 * ((31 * System.identityHashCode(this.descriptor)) + targetHash)) + ObjectUtils.hashCode(this.locale);
+		}
+	}
+}
@@ -0,0 +1,528 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * Caches entity validation results per entity identity, entity descriptor
+ * and locale. Qualifier entity descriptors are distinct descriptors, so the
+ * qualifier is part of the key. A result is only used while the version of
+ * the entity is unchanged, entities of types without a version extractor
+ * are not cached. The result also covers the beans cascaded to with
+ * {@link javax.validation.Valid}, so the version of an entity has to change
+ * whenever any bean of its cascaded graph changes.
+ * <p>
+ * The cache is split in segments with their own locks, so that lookups of
+ * different entities do not contend. A full segment evicts its least
+ * recently used result, so eviction is least recently used per segment.
+ * </p>
+ * <p>
+ * Every lookup receives its own copy of a result. Entities and descriptors
+ * are held weakly, results of collected entities are dropped. Results that
+ * are not detached would refer to their provider violations and through
+ * those to their entity, so validators only cache detached results.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator.Builder#resultCache(ResultCache)
+ * @see BeanValidationValidator.Builder#detached(boolean)
+ */
+public final class ResultCache {
+
+	/** The maximum number of segments. */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * Creates a builder.
+	 * 
+	 * @return The builder.
+	 */
+	public static Builder createBuilder() {
+		return new Builder();
+	}
+
+	/** The number of evicted results. */
+	private final AtomicLong evictionCount;
+	/** The version extractors, per entity type. */
+	private final TypeCache<VersionExtractor> extractors;
+	/** The number of hits. */
+	private final AtomicLong hitCount;
+	/** The number of misses. */
+	private final AtomicLong missCount;
+	/** The references of collected entities and descriptors. */
+	private final ReferenceQueue<Object> queue;
+	/** The segments, each guarded by itself. */
+	private final Segment[] segments;
+	/** The declared version extractors, per declared type. Guarded by itself. */
+	private final Map<Class<?>, VersionExtractor> versionExtractors;
+
+	/**
+	 * Constructs the cache.
+	 * 
+	 * @param builder
+	 *            The builder.
+	 */
+	protected ResultCache(final Builder builder) {
+		this.versionExtractors = Collections.synchronizedMap(new WeakHashMap<Class<?>, VersionExtractor>(builder.extractorsBuilder));
+		this.extractors = new TypeCache<VersionExtractor>(new TypeCache.Loader<VersionExtractor>() {
+			/** {@inheritDoc} */
+			@Override
+			public VersionExtractor load(final Class<?> type) {
+				return ResultCache.this.resolveExtractor(type);
+			}
+		});
+		this.evictionCount = new AtomicLong();
+		this.hitCount = new AtomicLong();
+		this.missCount = new AtomicLong();
+		this.queue = new ReferenceQueue<Object>();
+		final int segmentCount = Math.min(ResultCache.SEGMENTS, builder.maximumSizeBuilder);
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			int maximumSize = builder.maximumSizeBuilder / segmentCount;
+			if (i < (builder.maximumSizeBuilder % segmentCount)) {
+				maximumSize++;
+			}
+			this.segments[i] = new Segment(maximumSize);
+		}
+	}
+
+	/**
+	 * Drops all results.
+	 */
+	public void clear() {
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+		this.purge();
+	}
+
+	/**
+	 * Gets the number of evicted results.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * Gets the number of hits.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Gets the hit rate.
+	 * 
+	 * @return The ratio of hits to lookups of versioned entities, or 0 if
+	 *         nothing was looked up.
+	 */
+	public double getHitRate() {
+		final long hits = this.hitCount.get();
+		final long lookups = hits + this.missCount.get();
+		double result = 0;
+		if (lookups > 0) {
+			result = (double) hits / lookups;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of misses, including results of changed versions.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Gets the number of cached results, excluding those of collected
+	 * entities.
+	 * 
+	 * @return The number of results.
+	 */
+	public int size() {
+		this.purge();
+		int result = 0;
+		for (final Segment segment : this.segments) {
+			synchronized (segment) {
+				result += segment.size();
+			}
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ResultCache[\n\tSize: ").append(this.size());
+		builder.append("\n\tHits: ").append(this.hitCount.get());
+		builder.append("\n\tMisses: ").append(this.missCount.get());
+		builder.append("\n\tEvictions: ").append(this.evictionCount.get());
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Gets a copy of a cached result.
+	 * 
+	 * @param descriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param version
+	 *            The entity version.
+	 * @return The result, or null if no result of the version is cached.
+	 */
+	protected ValidationResult<?> get(final Object descriptor, final Object entity, final Locale locale, final Object version) {
+		this.purge();
+		final Key key = new Key(descriptor, entity, locale, null);
+		final Segment segment = this.resolveSegment(key);
+		CachedResult cached;
+		synchronized (segment) {
+			cached = segment.get(key);
+		}
+		ValidationResult<?> result = null;
+		if (!CheckUtil.isNull(cached) && cached.version.equals(version)) {
+			result = cached.result.copy();
+			this.hitCount.incrementAndGet();
+		} else {
+			this.missCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the version of an entity.
+	 * 
+	 * @param entity
+	 *            The entity, may be null.
+	 * @return The version, or null if the entity is not cached.
+	 */
+	protected Object getVersion(final Object entity) {
+		Object result = null;
+		if (!CheckUtil.isNull(entity)) {
+			final VersionExtractor extractor = this.extractors.get(entity.getClass());
+			if (!CheckUtil.isNull(extractor)) {
+				result = extractor.getVersion(entity);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Caches a copy of a result.
+	 * 
+	 * @param descriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param locale
+	 *            The message locale, may be null.
+	 * @param version
+	 *            The entity version, as read before validation.
+	 * @param result
+	 *            The result.
+	 */
+	protected void put(final Object descriptor, final Object entity, final Locale locale, final Object version,
+			final ValidationResult<?> result) {
+		if (!result.isIncomplete()) {
+			this.purge();
+			final Key key = new Key(descriptor, entity, locale, this.queue);
+			final Segment segment = this.resolveSegment(key);
+			synchronized (segment) {
+				segment.put(key, new CachedResult(version, result.copy()));
+			}
+		}
+	}
+
+	/**
+	 * Drops the results of collected entities and descriptors.
+	 */
+	private void purge() {
+		KeyReference reference = (KeyReference) this.queue.poll();
+		while (!CheckUtil.isNull(reference)) {
+			final Segment segment = this.resolveSegment(reference.key);
+			synchronized (segment) {
+				segment.remove(reference.key);
+			}
+			reference = (KeyReference) this.queue.poll();
+		}
+	}
+
+	/**
+	 * Resolves the version extractor of the most specific declared type an
+	 * entity type is assignable to.
+	 * 
+	 * @param type
+	 *            The entity type.
+	 * @return The extractor, or null if the type has none.
+	 */
+	private VersionExtractor resolveExtractor(final Class<?> type) {
+		Class<?> declared = null;
+		VersionExtractor result = null;
+		synchronized (this.versionExtractors) {
+			for (final Map.Entry<Class<?>, VersionExtractor> entry : this.versionExtractors.entrySet()) {
+				final Class<?> candidate = entry.getKey();
+				if (!CheckUtil.isNull(candidate) && candidate.isAssignableFrom(type)
+						&& (CheckUtil.isNull(declared) || declared.isAssignableFrom(candidate))) {
+					declared = candidate;
+					result = entry.getValue();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the segment of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The segment.
+	 */
+	private Segment resolveSegment(final Key key) {
+		return this.segments[(key.hashCode() & Integer.MAX_VALUE) % this.segments.length];
+	}
+
+	/**
+	 * A cached result.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class CachedResult {
+		/** The result. */
+		private final ValidationResult<?> result;
+		/** The entity version. */
+		private final Object version;
+
+		/**
+		 * Constructs the cached result.
+		 * 
+		 * @param version
+		 *            The entity version.
+		 * @param result
+		 *            The result.
+		 */
+		protected CachedResult(final Object version, final ValidationResult<?> result) {
+			this.version = version;
+			this.result = result;
+		}
+	}
+
+	/**
+	 * A result key. Entities and descriptors are held weakly and compared by
+	 * identity, a key of which the entity or descriptor was collected only
+	 * equals itself.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class Key {
+		/** The entity descriptor. */
+		private final KeyReference descriptor;
+		/** The entity. */
+		private final KeyReference entity;
+		/** The hash code. */
+		private final int hash;
+		/** The message locale, may be null. */
+		private final Locale locale;
+
+		/**
+		 * Constructs the key.
+		 * 
+		 * @param descriptor
+		 *            The entity descriptor.
+		 * @param entity
+		 *            The entity.
+		 * @param locale
+		 *            The message locale, may be null.
+		 * @param queue
+		 *            The queue to register the references with, null for a
+		 *            lookup key.
+		 */
+		protected Key(final Object descriptor, final Object entity, final Locale locale, final ReferenceQueue<Object> queue) {
+			this.descriptor = new KeyReference(descriptor, this, queue);
+			this.entity = new KeyReference(entity, this, queue);
+			this.locale = locale;
+			this.hash = (31 * ((31 * System.identityHashCode(descriptor)) + System.identityHashCode(entity)))
+					+ ObjectUtils.hashCode(locale);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean equals(final Object obj) {
+			boolean result = this == obj;
+			if (!result && (obj instanceof Key)) {
+				final Key other = (Key) obj;
+				final Object entityValue = this.entity.get();
+				final Object descriptorValue = this.descriptor.get();
+				result = !CheckUtil.isNull(entityValue) && !CheckUtil.isNull(descriptorValue)
+						&& (entityValue == other.entity.get()) && (descriptorValue == other.descriptor.get())
+						&& ObjectUtils.equals(this.locale, other.locale);
+			}
+			return result;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+	/**
+	 * A weak reference of a key.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class KeyReference
+			extends WeakReference<Object> {
+		/** The key. */
+		private final Key key;
+
+		/**
+		 * Constructs the reference.
+		 * 
+		 * @param referent
+		 *            The referred entity or descriptor.
+		 * @param key
+		 *            The key.
+		 * @param queue
+		 *            The queue, may be null.
+		 */
+		protected KeyReference(final Object referent, final Key key, final ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * A segment of results, in access order.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private final class Segment
+			extends LinkedHashMap<Key, CachedResult> {
+		/** Serial id. */
+		private static final long serialVersionUID = 1L;
+		/** The maximum number of results. */
+		private final int maximumSize;
+
+		/**
+		 * Constructs the segment.
+		 * 
+		 * @param maximumSize
+		 *            The maximum number of results.
+		 */
+		protected Segment(final int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, CachedResult> eldest) {
+			final boolean result = this.size() > this.maximumSize;
+			if (result) {
+				ResultCache.this.evictionCount.incrementAndGet();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A builder.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	public static final class Builder {
+		/** The version extractors, per entity type. */
+		private transient Map<Class<?>, VersionExtractor> extractorsBuilder;
+		/** The maximum number of results. */
+		private transient int maximumSizeBuilder;
+
+		/** Default constructor. */
+		protected Builder() {
+			this.extractorsBuilder = new HashMap<Class<?>, VersionExtractor>();
+			this.maximumSizeBuilder = 1024;
+		}
+
+		/**
+		 * Builds the cache.
+		 * 
+		 * @return The cache.
+		 */
+		public ResultCache build() {
+			return new ResultCache(this);
+		}
+
+		/**
+		 * Sets the maximum number of results.
+		 * 
+		 * @param maximumSize
+		 *            The maximum number of results. Must be positive.
+		 * @return The builder.
+		 */
+		public Builder maximumSize(final int maximumSize) {
+			Validate.isTrue(maximumSize > 0, "Maximum size must be positive.");
+			this.maximumSizeBuilder = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Declares the version extractor of an entity type. The extractor
+		 * applies to the type and its subtypes, and to all their entity
+		 * descriptors, including qualifier entity descriptors. The extractor
+		 * of the most specific declared type applies.
+		 * 
+		 * @param entityType
+		 *            The entity type. May not be null.
+		 * @param extractor
+		 *            The version extractor. May not be null.
+		 * @return The builder.
+		 */
+		public Builder versionExtractor(final Class<?> entityType, final VersionExtractor extractor) {
+			Validate.notNull(entityType, "Entity type may not be null.");
+			Validate.notNull(extractor, "Extractor may not be null.");
+			this.extractorsBuilder.put(entityType, extractor);
+			return this;
+		}
+	}
+}
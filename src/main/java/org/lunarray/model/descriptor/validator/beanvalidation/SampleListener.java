@@ -0,0 +1,49 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * Receives the results of sampled validation.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see SamplingPolicy
+ */
+public interface SampleListener {
+
+	/**
+	 * Called with the result of validating a sampled group. May be called
+	 * from an executor thread, after the sampled call returned, so the entity
+	 * may have changed since it was validated.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param entity
+	 *            The entity.
+	 * @param group
+	 *            The sampled group.
+	 * @param violations
+	 *            The violations.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	<E> void sampled(EntityDescriptor<E> entityDescriptor, E entity, Class<?> group,
+			ValidationResult<PropertyViolation<E, ?>> violations);
+}
@@ -0,0 +1,261 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Selects qualifier groups that are only validated on a sample of calls,
+ * for monitoring rather than blocking. Sampled groups are never validated
+ * on the blocking path, their results are reported to a listener. Samples
+ * are validated on the sampled call itself, as the entity may change once
+ * the call returns, so only sampled calls pay for the sampled groups. The
+ * listener is notified through an executor, and by default only
+ * {@value #DEFAULT_FRACTION} of the calls is sampled.
+ * <p>
+ * An entity descriptor that selects a sampled qualifier is validated in the
+ * default group on every blocking path, including batches, summaries and
+ * multi-qualifier validation. Its sampled group is only validated on
+ * sampled calls.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator.Builder#samplingPolicy(SamplingPolicy)
+ */
+public final class SamplingPolicy {
+
+	/** The default fraction of sampled calls. */
+	public static final double DEFAULT_FRACTION = 0.01d;
+
+	/**
+	 * Creates a builder.
+	 * 
+	 * @return The builder.
+	 */
+	public static Builder createBuilder() {
+		return new Builder();
+	}
+
+	/** The executor to notify the listener with. */
+	private final Executor executor;
+	/** The fraction of sampled calls. */
+	private final double fraction;
+	/** The sampled groups. */
+	private final Set<Class<?>> groups;
+	/** The listener. */
+	private final SampleListener listener;
+	/** The maximum number of samples per second. */
+	private final int ratePerSecond;
+	/** The samples in the current window. */
+	private final AtomicInteger windowCount;
+	/** The current window, in seconds. */
+	private final AtomicLong windowStart;
+
+	/**
+	 * Constructs the policy.
+	 * 
+	 * @param builder
+	 *            The builder.
+	 */
+	protected SamplingPolicy(final Builder builder) {
+		this.executor = builder.executorBuilder;
+		this.fraction = builder.fractionBuilder;
+		this.groups = Collections.unmodifiableSet(new LinkedHashSet<Class<?>>(builder.groupsBuilder));
+		this.listener = builder.listenerBuilder;
+		this.ratePerSecond = builder.ratePerSecondBuilder;
+		this.windowCount = new AtomicInteger();
+		this.windowStart = new AtomicLong(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Gets the executor.
+	 * 
+	 * @return The executor.
+	 */
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Gets the sampled groups.
+	 * 
+	 * @return The groups.
+	 */
+	public Set<Class<?>> getGroups() {
+		return this.groups;
+	}
+
+	/**
+	 * Gets the listener.
+	 * 
+	 * @return The listener.
+	 */
+	public SampleListener getListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Tests if a group is only sampled.
+	 * 
+	 * @param group
+	 *            The group.
+	 * @return True if and only if the group is sampled.
+	 */
+	public boolean isSampled(final Class<?> group) {
+		return this.groups.contains(group);
+	}
+
+	/**
+	 * Decides whether the current call is sampled.
+	 * 
+	 * @return True if and only if the sampled groups should be validated.
+	 */
+	public boolean sample() {
+		return ((this.fraction >= 1d) || (ThreadLocalRandom.current().nextDouble() < this.fraction)) && this.acquire();
+	}
+
+	/**
+	 * Acquires a sample from the current window.
+	 * 
+	 * @return True if and only if the rate allows another sample.
+	 */
+	private boolean acquire() {
+		boolean result = true;
+		if (this.ratePerSecond != Integer.MAX_VALUE) {
+			final long now = System.nanoTime() / TimeUnit.SECONDS.toNanos(1);
+			final long start = this.windowStart.get();
+			if ((now != start) && this.windowStart.compareAndSet(start, now)) {
+				this.windowCount.set(0);
+			}
+			result = this.windowCount.incrementAndGet() <= this.ratePerSecond;
+		}
+		return result;
+	}
+
+	/**
+	 * A builder.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	public static final class Builder {
+		/** The executor. */
+		private transient Executor executorBuilder;
+		/** The fraction of sampled calls. */
+		private transient double fractionBuilder;
+		/** The sampled groups. */
+		private final transient Set<Class<?>> groupsBuilder;
+		/** The listener. */
+		private transient SampleListener listenerBuilder;
+		/** The maximum number of samples per second. */
+		private transient int ratePerSecondBuilder;
+
+		/** Default constructor. */
+		protected Builder() {
+			this.fractionBuilder = SamplingPolicy.DEFAULT_FRACTION;
+			this.groupsBuilder = new LinkedHashSet<Class<?>>();
+			this.ratePerSecondBuilder = Integer.MAX_VALUE;
+		}
+
+		/**
+		 * Builds the policy.
+		 * 
+		 * @return The policy.
+		 */
+		public SamplingPolicy build() {
+			Validate.notEmpty(this.groupsBuilder, "At least one group must be sampled.");
+			Validate.notNull(this.listenerBuilder, "Listener may not be null.");
+			Validate.notNull(this.executorBuilder, "Executor may not be null.");
+			return new SamplingPolicy(this);
+		}
+
+		/**
+		 * Sets the executor to notify the listener with. Samples rejected by
+		 * the executor are dropped.
+		 * 
+		 * @param executor
+		 *            The executor. May not be null.
+		 * @return The builder.
+		 */
+		public Builder executor(final Executor executor) {
+			this.executorBuilder = executor;
+			return this;
+		}
+
+		/**
+		 * Sets the fraction of calls that are sampled. Defaults to
+		 * {@value SamplingPolicy#DEFAULT_FRACTION}.
+		 * 
+		 * @param fraction
+		 *            The fraction, between 0 and 1.
+		 * @return The builder.
+		 */
+		public Builder fraction(final double fraction) {
+			Validate.isTrue((fraction >= 0d) && (fraction <= 1d), "Fraction must be between 0 and 1.");
+			this.fractionBuilder = fraction;
+			return this;
+		}
+
+		/**
+		 * Adds a sampled group.
+		 * 
+		 * @param group
+		 *            The group. May not be null.
+		 * @return The builder.
+		 */
+		public Builder group(final Class<?> group) {
+			Validate.notNull(group, "Group may not be null.");
+			this.groupsBuilder.add(group);
+			return this;
+		}
+
+		/**
+		 * Sets the listener.
+		 * 
+		 * @param listener
+		 *            The listener. May not be null.
+		 * @return The builder.
+		 */
+		public Builder listener(final SampleListener listener) {
+			this.listenerBuilder = listener;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum number of samples per second. Defaults to no
+		 * maximum.
+		 * 
+		 * @param ratePerSecond
+		 *            The rate, must be positive.
+		 * @return The builder.
+		 */
+		public Builder ratePerSecond(final int ratePerSecond) {
+			Validate.isTrue(ratePerSecond > 0, "Rate must be positive.");
+			this.ratePerSecondBuilder = ratePerSecond;
+			return this;
+		}
+	}
+}
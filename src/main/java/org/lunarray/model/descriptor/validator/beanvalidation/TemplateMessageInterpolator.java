@@ -0,0 +1,51 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Locale;
+
+import javax.validation.MessageInterpolator;
+
+/**
+ * Message interpolator that does not interpolate. The message is the message
+ * template, for validations that do not report messages.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class TemplateMessageInterpolator
+		implements MessageInterpolator {
+
+	/**
+	 * Default constructor.
+	 */
+	protected TemplateMessageInterpolator() {
+		// Default constructor.
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String interpolate(final String messageTemplate, final Context context) {
+		return messageTemplate;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String interpolate(final String messageTemplate, final Context context, final Locale locale) {
+		return messageTemplate;
+	}
+}
@@ -0,0 +1,112 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+
+/**
+ * A cache of values per type that does not keep class loaders reachable.
+ * Values are stored with the type itself through a {@link ClassValue}, so
+ * they are collected together with the type and its class loader. Values
+ * should not refer to types of other class loaders.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <V>
+ *            The value type.
+ */
+public final class TypeCache<V> {
+
+	/** The loader. */
+	private final Loader<V> loader;
+	/** The values. */
+	private final ClassValue<V> values;
+
+	/**
+	 * Constructs the cache.
+	 * 
+	 * @param loader
+	 *            The loader that computes values. May not be null.
+	 */
+	public TypeCache(final Loader<V> loader) {
+		Validate.notNull(loader, "Loader may not be null.");
+		this.loader = loader;
+		this.values = new ClassValue<V>() {
+			/** {@inheritDoc} */
+			@Override
+			protected V computeValue(final Class<?> type) {
+				return TypeCache.this.loader.load(type);
+			}
+		};
+	}
+
+	/**
+	 * Gets the value of a type, loading it if needed.
+	 * 
+	 * @param type
+	 *            The type. May not be null.
+	 * @return The value.
+	 */
+	public V get(final Class<?> type) {
+		Validate.notNull(type, "Type may not be null.");
+		return this.values.get(type);
+	}
+
+	/**
+	 * Invalidates the value of a type. It is loaded again on next access.
+	 * 
+	 * @param type
+	 *            The type. May not be null.
+	 */
+	public void invalidate(final Class<?> type) {
+		Validate.notNull(type, "Type may not be null.");
+		this.values.remove(type);
+	}
+
+	/**
+	 * Invalidates the values of all entity types of a model.
+	 * 
+	 * @param model
+	 *            The model. May not be null.
+	 */
+	public void invalidate(final Model<?> model) {
+		Validate.notNull(model, "Model may not be null.");
+		for (final EntityDescriptor<?> entityDescriptor : model.getEntities()) {
+			this.values.remove(entityDescriptor.getEntityType());
+		}
+	}
+
+	/**
+	 * Computes the cached values.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <V>
+	 *            The value type.
+	 */
+	public interface Loader<V> {
+		/**
+		 * Computes the value of a type.
+		 * 
+		 * @param type
+		 *            The type.
+		 * @return The value.
+		 */
+		V load(Class<?> type);
+	}
+}
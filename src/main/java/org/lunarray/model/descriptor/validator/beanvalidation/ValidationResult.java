@@ -0,0 +1,185 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The violations of a single validation call. Holds at most a maximum
+ * number of violations, any further violations are only counted and mark
+ * the result as truncated.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <V>
+ *            The violation type.
+ */
+public final class ValidationResult<V>
+		extends AbstractSet<V>
+		implements ViolationConsumer<V> {
+
+	/** The maximum number of held violations. */
+	private final int maximumViolations;
+	/** Whether validation was stopped due to a deadline. */
+	private boolean incomplete;
+	/** The total number of violations. */
+	private int totalCount;
+	/** Whether violations were dropped. */
+	private boolean truncated;
+	/** The held violations. */
+	private final Set<V> violations;
+
+	/**
+	 * Constructs the result.
+	 * 
+	 * @param maximumViolations
+	 *            The maximum number of held violations.
+	 */
+	ValidationResult(final int maximumViolations) {
+		super();
+		this.maximumViolations = maximumViolations;
+		this.violations = new HashSet<V>();
+	}
+
+	/**
+	 * Adds a violation, if the maximum has not been reached. Otherwise, the
+	 * violation is counted and the result is marked truncated.
+	 * 
+	 * @param violation
+	 *            The violation.
+	 * @return True if the violation was added.
+	 */
+	@Override
+	public boolean add(final V violation) {
+		boolean result = false;
+		if (this.isFull()) {
+			this.discard();
+		} else {
+			result = this.violations.add(violation);
+			if (result) {
+				this.totalCount++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Consumes a violation by adding it.
+	 * 
+	 * @param violation
+	 *            The violation.
+	 * @return Always true, further violations are counted.
+	 * @see #add(Object)
+	 */
+	@Override
+	public boolean consume(final V violation) {
+		this.add(violation);
+		return true;
+	}
+
+	/**
+	 * Gets the total number of violations. If the result is truncated and
+	 * the provider stopped traversal early, this is a lower bound.
+	 * 
+	 * @return The total number of violations.
+	 */
+	public int getTotalCount() {
+		return this.totalCount;
+	}
+
+	/**
+	 * Tests if the result is incomplete.
+	 * 
+	 * @return True if and only if validation was stopped because its
+	 *         deadline expired, the result then only holds the violations
+	 *         found so far.
+	 * @see Deadline
+	 */
+	public boolean isIncomplete() {
+		return this.incomplete;
+	}
+
+	/**
+	 * Tests if the result is truncated.
+	 * 
+	 * @return True if and only if violations were dropped or not found due to
+	 *         the maximum.
+	 */
+	public boolean isTruncated() {
+		return this.truncated;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Iterator<V> iterator() {
+		return this.violations.iterator();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int size() {
+		return this.violations.size();
+	}
+
+	/**
+	 * Copies the result, so that a shared result is not handed out.
+	 * 
+	 * @return A copy of the result.
+	 */
+	ValidationResult<V> copy() {
+		final ValidationResult<V> result = new ValidationResult<V>(this.maximumViolations);
+		result.violations.addAll(this.violations);
+		result.incomplete = this.incomplete;
+		result.totalCount = this.totalCount;
+		result.truncated = this.truncated;
+		return result;
+	}
+
+	/**
+	 * Counts a violation without holding it.
+	 */
+	void discard() {
+		this.totalCount++;
+		this.truncated = true;
+	}
+
+	/**
+	 * Tests if the maximum has been reached.
+	 * 
+	 * @return True if and only if no more violations are held.
+	 */
+	boolean isFull() {
+		return this.violations.size() >= this.maximumViolations;
+	}
+
+	/**
+	 * Marks the result as incomplete.
+	 */
+	void markIncomplete() {
+		this.incomplete = true;
+	}
+
+	/**
+	 * Marks the result as truncated.
+	 */
+	void truncate() {
+		this.truncated = true;
+	}
+}
@@ -0,0 +1,226 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * Validates candidate values of a property in chunks.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class ValueValidation {
+
+	/** The violation converter. */
+	private final ViolationConverter converter;
+	/** Whether to check built-in constraints directly. */
+	private final boolean directConstraints;
+	/** The direct constraint engine. */
+	private final DirectConstraintEngine directEngine;
+	/** The violation limiter. */
+	private final ViolationLimiter violationLimiter;
+
+	/**
+	 * Constructs the value validation.
+	 * 
+	 * @param violationLimiter
+	 *            The violation limiter.
+	 * @param converter
+	 *            The violation converter.
+	 * @param directEngine
+	 *            The direct constraint engine.
+	 * @param directConstraints
+	 *            Whether to check built-in constraints directly.
+	 */
+	protected ValueValidation(final ViolationLimiter violationLimiter, final ViolationConverter converter,
+			final DirectConstraintEngine directEngine, final boolean directConstraints) {
+		this.violationLimiter = violationLimiter;
+		this.converter = converter;
+		this.directEngine = directEngine;
+		this.directConstraints = directConstraints;
+	}
+
+	/**
+	 * Validates a candidate value.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param validator
+	 *            The validator.
+	 * @param group
+	 *            The group.
+	 * @param value
+	 *            The value.
+	 * @return The violations.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	public <E, P> ValidationResult<PropertyViolation<E, P>> validate(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Validator validator, final Class<?> group, final P value) {
+		final String name = propertyDescriptor.getName();
+		final Class<E> entityType = propertyDescriptor.getEntityType();
+		Set<ConstraintViolation<E>> violations;
+		ViolationLimiter.Counter counter = null;
+		if (this.directConstraints && this.directEngine.isValid(entityType, name, group, value)) {
+			violations = Collections.emptySet();
+		} else {
+			counter = this.violationLimiter.begin(null);
+			try {
+				violations = validator.validateValue(entityType, name, value, group);
+			} finally {
+				this.violationLimiter.end(counter);
+			}
+		}
+		return this.converter.convertViolations(propertyDescriptor, violations, counter);
+	}
+
+	/**
+	 * Validates candidate values in chunks. If an executor is given and there
+	 * is more than one chunk, the chunks are validated in parallel.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param values
+	 *            The values.
+	 * @param validator
+	 *            The validator.
+	 * @param group
+	 *            The group.
+	 * @param executor
+	 *            The executor, may be null.
+	 * @param result
+	 *            The results to set, per value in iteration order.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	public <E, P> void validateAll(final PropertyDescriptor<P, E> propertyDescriptor, final Collection<? extends P> values,
+			final Validator validator, final Class<?> group, final ExecutorService executor,
+			final ValueValidationResults<E, P> result) {
+		final List<Chunk<E, P>> chunks = new LinkedList<Chunk<E, P>>();
+		Chunk<E, P> chunk = null;
+		for (final P value : values) {
+			if (CheckUtil.isNull(chunk) || (chunk.values.size() == BatchExecutor.CHUNK_SIZE)) {
+				final int offset = CheckUtil.isNull(chunk) ? 0 : chunk.offset + chunk.values.size();
+				chunk = new Chunk<E, P>(propertyDescriptor, validator, group, offset);
+				chunks.add(chunk);
+			}
+			chunk.values.add(value);
+		}
+		if (CheckUtil.isNull(executor) || (chunks.size() < 2)) {
+			for (final Chunk<E, P> sequential : chunks) {
+				sequential.collect(sequential.call(), result);
+			}
+		} else {
+			final Iterator<Chunk<E, P>> chunkIt = chunks.iterator();
+			for (final List<ValidationResult<PropertyViolation<E, P>>> chunkResult : BatchExecutor.invokeAll(executor, chunks,
+					"values")) {
+				chunkIt.next().collect(chunkResult, result);
+			}
+		}
+	}
+
+	/**
+	 * A chunk of candidate values to validate.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	private final class Chunk<E, P>
+			implements Callable<List<ValidationResult<PropertyViolation<E, P>>>> {
+		/** The group. */
+		private final Class<?> group;
+		/** The index of the first value. */
+		private final int offset;
+		/** The property descriptor. */
+		private final PropertyDescriptor<P, E> propertyDescriptor;
+		/** The validator. */
+		private final Validator validator;
+		/** The values. */
+		private final List<P> values;
+
+		/**
+		 * Constructs the chunk.
+		 * 
+		 * @param propertyDescriptor
+		 *            The property descriptor.
+		 * @param validator
+		 *            The validator.
+		 * @param group
+		 *            The group.
+		 * @param offset
+		 *            The index of the first value.
+		 */
+		protected Chunk(final PropertyDescriptor<P, E> propertyDescriptor, final Validator validator, final Class<?> group,
+				final int offset) {
+			this.propertyDescriptor = propertyDescriptor;
+			this.validator = validator;
+			this.group = group;
+			this.offset = offset;
+			this.values = new ArrayList<P>(BatchExecutor.CHUNK_SIZE);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public List<ValidationResult<PropertyViolation<E, P>>> call() {
+			final List<ValidationResult<PropertyViolation<E, P>>> result = new ArrayList<ValidationResult<PropertyViolation<E, P>>>(
+					this.values.size());
+			for (final P value : this.values) {
+				result.add(ValueValidation.this.validate(this.propertyDescriptor, this.validator, this.group, value));
+			}
+			return result;
+		}
+
+		/**
+		 * Sets the results of this chunk.
+		 * 
+		 * @param results
+		 *            The results of the chunk.
+		 * @param target
+		 *            The results of all values.
+		 */
+		public void collect(final List<ValidationResult<PropertyViolation<E, P>>> results, final ValueValidationResults<E, P> target) {
+			int index = this.offset;
+			for (final ValidationResult<PropertyViolation<E, P>> result : results) {
+				target.set(index, result);
+				index++;
+			}
+		}
+	}
+}
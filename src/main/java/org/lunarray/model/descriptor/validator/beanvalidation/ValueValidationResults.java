@@ -0,0 +1,174 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+
+/**
+ * The results of validating candidate values of a single property. Validity
+ * is kept as a bit set, violations are only kept for invalid values.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <E>
+ *            The entity type.
+ * @param <P>
+ *            The property type.
+ * @see BeanValidationValidator#validateValues(org.lunarray.model.descriptor.model.property.PropertyDescriptor,
+ *      java.util.Collection, java.util.Locale)
+ */
+public final class ValueValidationResults<E, P> {
+
+	/** Index out of bounds message. */
+	private static final String INDEX_OUT_OF_BOUNDS = "Index out of bounds.";
+
+	/** The maximum number of violations per value. */
+	private final int maximumViolations;
+	/** The violations of the invalid values, per index. */
+	private final Map<Integer, ValidationResult<PropertyViolation<E, P>>> results;
+	/** The number of values. */
+	private final int size;
+	/** The valid values. */
+	private final BitSet valid;
+
+	/**
+	 * Constructs the results.
+	 * 
+	 * @param size
+	 *            The number of values.
+	 * @param maximumViolations
+	 *            The maximum number of violations per value.
+	 */
+	protected ValueValidationResults(final int size, final int maximumViolations) {
+		this.size = size;
+		this.maximumViolations = maximumViolations;
+		this.results = new HashMap<Integer, ValidationResult<PropertyViolation<E, P>>>();
+		this.valid = new BitSet(size);
+	}
+
+	/**
+	 * Gets the violations of a value.
+	 * 
+	 * @param index
+	 *            The value index.
+	 * @return The violations, a new empty result if the value is valid.
+	 */
+	public ValidationResult<PropertyViolation<E, P>> get(final int index) {
+		this.checkIndex(index);
+		ValidationResult<PropertyViolation<E, P>> result = this.results.get(index);
+		if (CheckUtil.isNull(result)) {
+			result = new ValidationResult<PropertyViolation<E, P>>(this.maximumViolations);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of invalid values.
+	 * 
+	 * @return The number of invalid values.
+	 */
+	public int getInvalidCount() {
+		return this.size - this.valid.cardinality();
+	}
+
+	/**
+	 * Gets the valid values.
+	 * 
+	 * @return A copy of the bit set, a bit is set if and only if the value
+	 *         at that index is valid.
+	 */
+	public BitSet getValid() {
+		return (BitSet) this.valid.clone();
+	}
+
+	/**
+	 * Tests if a value is valid.
+	 * 
+	 * @param index
+	 *            The value index.
+	 * @return True if and only if the value is valid.
+	 */
+	public boolean isValid(final int index) {
+		this.checkIndex(index);
+		return this.valid.get(index);
+	}
+
+	/**
+	 * Gets the number of values.
+	 * 
+	 * @return The number of values.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ValueValidationResults[\n\tSize: ").append(this.size);
+		builder.append("\n\tValid: ").append(this.valid);
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Marks all values as valid.
+	 */
+	protected void markValid() {
+		this.valid.set(0, this.size);
+		this.results.clear();
+	}
+
+	/**
+	 * Sets the violations of a value.
+	 * 
+	 * @param index
+	 *            The value index.
+	 * @param result
+	 *            The violations. May not be null.
+	 */
+	protected void set(final int index, final ValidationResult<PropertyViolation<E, P>> result) {
+		this.checkIndex(index);
+		Validate.notNull(result, "Result may not be null.");
+		if (result.isEmpty() && !result.isIncomplete()) {
+			this.valid.set(index);
+			this.results.remove(index);
+		} else {
+			this.valid.clear(index);
+			this.results.put(index, result);
+		}
+	}
+
+	/**
+	 * Checks a value index.
+	 * 
+	 * @param index
+	 *            The value index.
+	 */
+	private void checkIndex(final int index) {
+		if ((index < 0) || (index >= this.size)) {
+			throw new IndexOutOfBoundsException(ValueValidationResults.INDEX_OUT_OF_BOUNDS);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+/**
+ * Extracts the version of an object, such as a version or last modified
+ * field. Kept results of an object are only used while its version is
+ * unchanged, so the version has to change whenever the object or any bean
+ * it cascades validation to changes.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see CollectionValidationSession
+ * @see ResultCache
+ */
+public interface VersionExtractor {
+
+	/**
+	 * Gets the version of an object.
+	 * 
+	 * @param object
+	 *            The object.
+	 * @return The version, or null if the object should always be
+	 *         validated.
+	 */
+	Object getVersion(Object object);
+}
@@ -0,0 +1,40 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+/**
+ * Receives violations as they are converted, without collecting them.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @param <V>
+ *            The violation type.
+ * @see BeanValidationValidator#validate(org.lunarray.model.descriptor.model.entity.EntityDescriptor,
+ *      Object, java.util.Locale, Deadline, ViolationConsumer)
+ */
+public interface ViolationConsumer<V> {
+
+	/**
+	 * Consumes a violation.
+	 * 
+	 * @param violation
+	 *            The violation.
+	 * @return True to continue, false to stop validation. Violations that
+	 *         were not consumed yet are then dropped.
+	 */
+	boolean consume(V violation);
+}
@@ -0,0 +1,307 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ElementKind;
+import javax.validation.MessageInterpolator;
+import javax.validation.Path;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.operation.OperationDescriptor;
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.validator.ParameterViolation;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts provider violations to property and parameter violations,
+ * detaching them if configured, and pushes them to consumers.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class ViolationConverter {
+
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ViolationConverter.class);
+
+	/** Whether violations are detached from the validated objects. */
+	private final boolean detached;
+	/** The message interpolator of attached violations. */
+	private final MessageInterpolator interpolator;
+	/** The maximum number of violations per call. */
+	private final int maximumViolations;
+
+	/**
+	 * Constructs the converter.
+	 * 
+	 * @param detached
+	 *            Whether violations are detached.
+	 * @param interpolator
+	 *            The message interpolator.
+	 * @param maximumViolations
+	 *            The maximum number of violations per call.
+	 */
+	protected ViolationConverter(final boolean detached, final MessageInterpolator interpolator, final int maximumViolations) {
+		this.detached = detached;
+		this.interpolator = interpolator;
+		this.maximumViolations = maximumViolations;
+	}
+
+	/**
+	 * Convert violations.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param violations
+	 *            The violations.
+	 * @param counter
+	 *            The counter of the provider call, may be null.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 */
+	public <E> ValidationResult<PropertyViolation<E, ?>> convertViolations(final EntityDescriptor<E> entityDescriptor,
+			final Collection<ConstraintViolation<E>> violations, final ViolationLimiter.Counter counter) {
+		final ValidationResult<PropertyViolation<E, ?>> results = new ValidationResult<PropertyViolation<E, ?>>(
+				this.maximumViolations);
+		this.pushViolations(entityDescriptor, violations, results);
+		this.markLimits(results, counter);
+		return results;
+	}
+
+	/**
+	 * Convert violations.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param violations
+	 *            The violations.
+	 * @param counter
+	 *            The counter of the provider call, may be null.
+	 * @param <P>
+	 *            The property type.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The violations.
+	 */
+	public <P, E> ValidationResult<PropertyViolation<E, P>> convertViolations(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Collection<ConstraintViolation<E>> violations, final ViolationLimiter.Counter counter) {
+		final ValidationResult<PropertyViolation<E, P>> results = new ValidationResult<PropertyViolation<E, P>>(this.maximumViolations);
+		this.pushViolations(propertyDescriptor, violations, results);
+		this.markLimits(results, counter);
+		return results;
+	}
+
+	/**
+	 * Creates a parameter violation.
+	 * 
+	 * @param parameterDescriptor
+	 *            The parameter descriptor, null for a cross-parameter
+	 *            violation.
+	 * @param violation
+	 *            The provider violation.
+	 * @return The violation, detached if configured.
+	 * @param <P>
+	 *            The parameter type.
+	 */
+	public <P> ParameterViolation<P> createViolation(final ParameterDescriptor<P> parameterDescriptor,
+			final ConstraintViolation<?> violation) {
+		ParameterViolation<P> result;
+		if (this.detached) {
+			result = new DetachedParameterViolation<P>(parameterDescriptor, violation);
+		} else {
+			final BeanValidationParameterViolation.Builder<P> builder = BeanValidationParameterViolation.createBuilder();
+			builder.parameterDescriptor(parameterDescriptor).violation(violation).interpolator(this.interpolator);
+			result = builder.build();
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a property violation.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor, may be null.
+	 * @param violation
+	 *            The provider violation.
+	 * @return The violation, detached if configured.
+	 * @param <E>
+	 *            The entity type.
+	 * @param <P>
+	 *            The property type.
+	 */
+	public <E, P> PropertyViolation<E, P> createViolation(final PropertyDescriptor<P, E> propertyDescriptor,
+			final ConstraintViolation<E> violation) {
+		PropertyViolation<E, P> result;
+		if (this.detached) {
+			result = new DetachedPropertyViolation<E, P>(propertyDescriptor, violation);
+		} else {
+			final BeanValidationPropertyViolation.Builder<E, P> builder = BeanValidationPropertyViolation.createBuilder();
+			builder.propertyDescriptor(propertyDescriptor).violation(violation).interpolator(this.interpolator);
+			result = builder.build();
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if violations are detached from the validated objects.
+	 * 
+	 * @return True if and only if violations are detached.
+	 */
+	public boolean isDetached() {
+		return this.detached;
+	}
+
+	/**
+	 * Marks a result according to the limits reached in the provider call.
+	 * 
+	 * @param result
+	 *            The result.
+	 * @param counter
+	 *            The counter of the provider call, may be null.
+	 */
+	public void markLimits(final ValidationResult<?> result, final ViolationLimiter.Counter counter) {
+		if (!CheckUtil.isNull(counter)) {
+			if (counter.isStopped()) {
+				result.truncate();
+			}
+			if (counter.isExpired()) {
+				result.markIncomplete();
+			}
+		}
+	}
+
+	/**
+	 * Pushes parameter violations to a consumer. Cross-parameter violations
+	 * are not reported on a parameter, they are pushed without a parameter
+	 * descriptor if requested and ignored otherwise.
+	 * 
+	 * @param operationDescriptor
+	 *            The operation descriptor.
+	 * @param violations
+	 *            The violations.
+	 * @param crossParameters
+	 *            Whether to push cross-parameter violations.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @return True if and only if the consumer did not stop.
+	 */
+	public <E> boolean pushParameters(final OperationDescriptor<E> operationDescriptor,
+			final Collection<ConstraintViolation<E>> violations, final boolean crossParameters,
+			final ViolationConsumer<? super ParameterViolation<?>> consumer) {
+		boolean proceed = true;
+		final Iterator<ConstraintViolation<E>> violationIt = violations.iterator();
+		while (proceed && violationIt.hasNext()) {
+			final ConstraintViolation<E> violation = violationIt.next();
+			final Iterator<Path.Node> pathIt = violation.getPropertyPath().iterator();
+			pathIt.next();
+			final Path.Node node = pathIt.next();
+			if (node.getKind() == ElementKind.PARAMETER) {
+				final int index = ((Path.ParameterNode) node).getParameterIndex();
+				proceed = consumer.consume(this.createViolation(operationDescriptor.getParameter(index), violation));
+			} else if (crossParameters && (node.getKind() == ElementKind.CROSS_PARAMETER)) {
+				proceed = consumer.consume(this.createViolation((ParameterDescriptor<Object[]>) null, violation));
+			} else {
+				ViolationConverter.LOGGER.debug("Ignoring violation: {}", violation);
+			}
+		}
+		return proceed;
+	}
+
+	/**
+	 * Pushes entity violations to a consumer.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param violations
+	 *            The violations.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <E>
+	 *            The entity type.
+	 * @return True if and only if the consumer did not stop.
+	 */
+	public <E> boolean pushViolations(final EntityDescriptor<E> entityDescriptor, final Collection<ConstraintViolation<E>> violations,
+			final ViolationConsumer<? super PropertyViolation<E, ?>> consumer) {
+		boolean proceed = true;
+		final Iterator<ConstraintViolation<E>> violationIt = violations.iterator();
+		while (proceed && violationIt.hasNext()) {
+			final ConstraintViolation<E> violation = violationIt.next();
+			proceed = consumer.consume(this.createViolation(this.resolveProperty(entityDescriptor, violation.getPropertyPath()),
+					violation));
+		}
+		return proceed;
+	}
+
+	/**
+	 * Pushes property violations to a consumer.
+	 * 
+	 * @param propertyDescriptor
+	 *            The property descriptor.
+	 * @param violations
+	 *            The violations.
+	 * @param consumer
+	 *            The consumer.
+	 * @param <P>
+	 *            The property type.
+	 * @param <E>
+	 *            The entity type.
+	 * @return True if and only if the consumer did not stop.
+	 */
+	public <P, E> boolean pushViolations(final PropertyDescriptor<P, E> propertyDescriptor,
+			final Collection<ConstraintViolation<E>> violations, final ViolationConsumer<? super PropertyViolation<E, P>> consumer) {
+		boolean proceed = true;
+		final Iterator<ConstraintViolation<E>> violationIt = violations.iterator();
+		while (proceed && violationIt.hasNext()) {
+			proceed = consumer.consume(this.createViolation(propertyDescriptor, violationIt.next()));
+		}
+		return proceed;
+	}
+
+	/**
+	 * Resolves the property a violation is reported on. Violations of
+	 * cascaded collection elements and nested beans that are not described
+	 * by the entity are reported on the outermost property of their path.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param path
+	 *            The violation path.
+	 * @param <E>
+	 *            The entity type.
+	 * @return The property descriptor, or null if the path does not start with
+	 *         a described property.
+	 */
+	public <E> PropertyDescriptor<?, E> resolveProperty(final EntityDescriptor<E> entityDescriptor, final Path path) {
+		PropertyDescriptor<?, E> result = entityDescriptor.getProperty(path.toString());
+		final Iterator<Path.Node> nodeIt = path.iterator();
+		if (CheckUtil.isNull(result) && nodeIt.hasNext()) {
+			result = entityDescriptor.getProperty(nodeIt.next().getName());
+		}
+		return result;
+	}
+}
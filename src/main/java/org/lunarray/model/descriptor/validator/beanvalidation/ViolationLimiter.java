@@ -0,0 +1,365 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.util.Set;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.ConstraintValidatorFactory;
+import javax.validation.Path;
+import javax.validation.TraversableResolver;
+
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * Stops provider traversal once a maximum number of failed constraints has
+ * been reached in the current call, once the deadline of the call has
+ * expired, or once a consumer has stopped the call. Failed constraints are counted through wrapped constraint
+ * validators, traversal is stopped through the traversable resolver.
+ * Constraints on an already reached node are still validated, so both
+ * limits are approximate.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+final class ViolationLimiter {
+
+	/** The current call. */
+	private final ThreadLocal<Counter> current;
+	/** The constraint validator factory. */
+	private final ConstraintValidatorFactory factory;
+	/** The maximum number of failed constraints. */
+	private final int maximumViolations;
+	/** The traversable resolver. */
+	private final TraversableResolver resolver;
+
+	/**
+	 * Constructs the limiter.
+	 * 
+	 * @param maximumViolations
+	 *            The maximum number of failed constraints.
+	 * @param factory
+	 *            The constraint validator factory to delegate to.
+	 * @param resolver
+	 *            The traversable resolver to delegate to.
+	 */
+	protected ViolationLimiter(final int maximumViolations, final ConstraintValidatorFactory factory,
+			final TraversableResolver resolver) {
+		this.maximumViolations = maximumViolations;
+		this.current = new ThreadLocal<Counter>();
+		this.factory = new CountingFactory(factory);
+		this.resolver = new LimitingResolver(resolver);
+	}
+
+	/**
+	 * Starts counting a call.
+	 * 
+	 * @param deadline
+	 *            The deadline of the call, may be null.
+	 * @return The counter of the call.
+	 */
+	public Counter begin(final Deadline deadline) {
+		final Counter counter = new Counter(this.current.get(), deadline);
+		this.current.set(counter);
+		return counter;
+	}
+
+	/**
+	 * Stops counting a call, restoring the enclosing call.
+	 * 
+	 * @param counter
+	 *            The counter of the call, as returned by
+	 *            {@link #begin(Deadline)}.
+	 */
+	public void end(final Counter counter) {
+		if (CheckUtil.isNull(counter.previous)) {
+			this.current.remove();
+		} else {
+			this.current.set(counter.previous);
+		}
+	}
+
+	/**
+	 * Gets the counting constraint validator factory.
+	 * 
+	 * @return The factory.
+	 */
+	public ConstraintValidatorFactory getFactory() {
+		return this.factory;
+	}
+
+	/**
+	 * Gets the limiting traversable resolver.
+	 * 
+	 * @return The resolver.
+	 */
+	public TraversableResolver getResolver() {
+		return this.resolver;
+	}
+
+	/**
+	 * Tests if the limiter counts failed constraints.
+	 * 
+	 * @return True if and only if a maximum is set.
+	 */
+	public boolean isCounting() {
+		return this.maximumViolations != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Tests if the maximum has been reached, the deadline has expired or a
+	 * consumer has stopped the current call.
+	 * 
+	 * @return True if and only if traversal should stop.
+	 */
+	protected boolean isExhausted() {
+		final Counter counter = this.current.get();
+		boolean result = false;
+		if (!CheckUtil.isNull(counter)) {
+			if (counter.failed >= this.maximumViolations) {
+				counter.stopped = true;
+			} else if (!CheckUtil.isNull(counter.deadline) && counter.deadline.isExpired()) {
+				counter.expired = true;
+			}
+			result = counter.stopped || counter.expired;
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if a node was already validated in an earlier pass of the current
+	 * call.
+	 * 
+	 * @param node
+	 *            The node.
+	 * @param path
+	 *            The path to the object of the node.
+	 * @return True if and only if the node is a skipped property of the root
+	 *         object.
+	 */
+	protected boolean isSkipped(final Path.Node node, final Path path) {
+		final Counter counter = this.current.get();
+		boolean result = !CheckUtil.isNull(counter) && !CheckUtil.isNull(counter.skipped)
+				&& counter.skipped.contains(node.getName());
+		for (final Path.Node pathNode : path) {
+			result = result && CheckUtil.isNull(pathNode.getName());
+		}
+		return result;
+	}
+
+	/**
+	 * Counts a failed constraint in the current call.
+	 */
+	protected void fail() {
+		final Counter counter = this.current.get();
+		if (!CheckUtil.isNull(counter)) {
+			counter.failed++;
+		}
+	}
+
+	/**
+	 * A counting constraint validator.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 * @param <A>
+	 *            The constraint type.
+	 * @param <T>
+	 *            The validated type.
+	 */
+	private final class CountingConstraintValidator<A extends Annotation, T>
+			implements ConstraintValidator<A, T> {
+		/** The delegate. */
+		private final ConstraintValidator<A, T> delegate;
+
+		/**
+		 * Constructs the validator.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected CountingConstraintValidator(final ConstraintValidator<A, T> delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void initialize(final A constraintAnnotation) {
+			this.delegate.initialize(constraintAnnotation);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isValid(final T value, final ConstraintValidatorContext context) {
+			final boolean result = this.delegate.isValid(value, context);
+			if (!result) {
+				ViolationLimiter.this.fail();
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The counting constraint validator factory.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private final class CountingFactory
+			implements ConstraintValidatorFactory {
+		/** The delegate. */
+		private final ConstraintValidatorFactory delegate;
+
+		/**
+		 * Constructs the factory.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected CountingFactory(final ConstraintValidatorFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		// The provider only uses the instance as a constraint validator.
+		@Override
+		public <T extends ConstraintValidator<?, ?>> T getInstance(final Class<T> key) {
+			return (T) new CountingConstraintValidator(this.delegate.getInstance(key));
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void releaseInstance(final ConstraintValidator<?, ?> instance) {
+			if (instance instanceof CountingConstraintValidator) {
+				this.delegate.releaseInstance(((CountingConstraintValidator<?, ?>) instance).delegate);
+			} else {
+				this.delegate.releaseInstance(instance);
+			}
+		}
+	}
+
+	/**
+	 * The counter of a call.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	protected static final class Counter {
+		/** The deadline, may be null. */
+		private final Deadline deadline;
+		/** Whether traversal was stopped due to the deadline. */
+		private boolean expired;
+		/** The number of failed constraints. */
+		private int failed;
+		/** The counter of the enclosing call, may be null. */
+		private final Counter previous;
+		/** The root properties validated in an earlier pass, may be null. */
+		private Set<String> skipped;
+		/** Whether traversal was stopped due to the maximum or by a consumer. */
+		private boolean stopped;
+
+		/**
+		 * Constructs the counter.
+		 * 
+		 * @param previous
+		 *            The counter of the enclosing call, may be null.
+		 * @param deadline
+		 *            The deadline, may be null.
+		 */
+		protected Counter(final Counter previous, final Deadline deadline) {
+			this.previous = previous;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Tests if traversal was stopped due to the deadline.
+		 * 
+		 * @return True if and only if the deadline expired.
+		 */
+		public boolean isExpired() {
+			return this.expired;
+		}
+
+		/**
+		 * Tests if traversal was stopped due to the maximum or by a consumer.
+		 * 
+		 * @return True if and only if the maximum was reached or a consumer
+		 *         stopped.
+		 */
+		public boolean isStopped() {
+			return this.stopped;
+		}
+
+		/**
+		 * Skips root properties that were validated in an earlier pass.
+		 * 
+		 * @param properties
+		 *            The property names.
+		 */
+		public void skip(final Set<String> properties) {
+			this.skipped = properties;
+		}
+
+		/**
+		 * Stops traversal, as a consumer has stopped.
+		 */
+		public void stop() {
+			this.stopped = true;
+		}
+	}
+
+	/**
+	 * The limiting traversable resolver.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private final class LimitingResolver
+			implements TraversableResolver {
+		/** The delegate. */
+		private final TraversableResolver delegate;
+
+		/**
+		 * Constructs the resolver.
+		 * 
+		 * @param delegate
+		 *            The delegate.
+		 */
+		protected LimitingResolver(final TraversableResolver delegate) {
+			this.delegate = delegate;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isCascadable(final Object traversableObject, final Path.Node traversableProperty,
+				final Class<?> rootBeanType, final Path pathToTraversableObject, final ElementType elementType) {
+			return !ViolationLimiter.this.isExhausted()
+					&& this.delegate.isCascadable(traversableObject, traversableProperty, rootBeanType, pathToTraversableObject,
+							elementType);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean isReachable(final Object traversableObject, final Path.Node traversableProperty, final Class<?> rootBeanType,
+				final Path pathToTraversableObject, final ElementType elementType) {
+			return !ViolationLimiter.this.isExhausted()
+					&& !ViolationLimiter.this.isSkipped(traversableProperty, pathToTraversableObject)
+					&& this.delegate.isReachable(traversableObject, traversableProperty, rootBeanType, pathToTraversableObject,
+							elementType);
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.Validate;
+import org.lunarray.common.check.CheckUtil;
+
+/**
+ * The violation counts of a scan of entities, per property path and
+ * constraint type. Only counters are kept, so the size of a summary does not
+ * depend on the number of scanned entities. Property paths do not include
+ * indices and keys of collection elements, so neither does it depend on the
+ * size of scanned collections. Properties and constraint types
+ * are identified by name, so that summaries may be serialized and merged
+ * across workers and nodes. Summaries are not thread safe, every worker
+ * should keep its own summary.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator#summarize(org.lunarray.model.descriptor.model.entity.EntityDescriptor,
+ *      Iterable)
+ */
+public final class ViolationSummary
+		implements Serializable {
+
+	/** Serial id. */
+	private static final long serialVersionUID = 1L;
+
+	/** The counters per constraint type name, per property path. */
+	private final Map<String, Map<String, long[]>> counts;
+	/** The number of scanned entities. */
+	private long entityCount;
+	/** The entity type name. */
+	private final String entityType;
+	/** The number of entities with violations. */
+	private long invalidCount;
+	/** The total number of violations. */
+	private long violationCount;
+
+	/**
+	 * Constructs the summary.
+	 * 
+	 * @param entityType
+	 *            The entity type name.
+	 */
+	protected ViolationSummary(final String entityType) {
+		this.entityType = entityType;
+		this.counts = new HashMap<String, Map<String, long[]>>();
+	}
+
+	/**
+	 * Gets the constraint types violated on a property.
+	 * 
+	 * @param propertyPath
+	 *            The property path.
+	 * @return The constraint type names.
+	 */
+	public Set<String> getConstraintTypes(final String propertyPath) {
+		final Map<String, long[]> propertyCounts = this.counts.get(propertyPath);
+		Set<String> result;
+		if (CheckUtil.isNull(propertyCounts)) {
+			result = Collections.emptySet();
+		} else {
+			result = Collections.unmodifiableSet(propertyCounts.keySet());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of violations of a constraint type on a property.
+	 * 
+	 * @param propertyPath
+	 *            The property path, empty for entity constraints.
+	 * @param constraintType
+	 *            The constraint type. May not be null.
+	 * @return The number of violations.
+	 */
+	public long getCount(final String propertyPath, final Class<? extends Annotation> constraintType) {
+		Validate.notNull(constraintType, "Constraint type may not be null.");
+		return this.getCount(propertyPath, constraintType.getName());
+	}
+
+	/**
+	 * Gets the number of violations of a constraint type on a property.
+	 * 
+	 * @param propertyPath
+	 *            The property path, empty for entity constraints.
+	 * @param constraintType
+	 *            The constraint type name.
+	 * @return The number of violations.
+	 */
+	public long getCount(final String propertyPath, final String constraintType) {
+		final Map<String, long[]> propertyCounts = this.counts.get(propertyPath);
+		long result = 0;
+		if (!CheckUtil.isNull(propertyCounts)) {
+			final long[] counter = propertyCounts.get(constraintType);
+			if (!CheckUtil.isNull(counter)) {
+				result = counter[0];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of scanned entities.
+	 * 
+	 * @return The number of entities.
+	 */
+	public long getEntityCount() {
+		return this.entityCount;
+	}
+
+	/**
+	 * Gets the entity type name.
+	 * 
+	 * @return The entity type name.
+	 */
+	public String getEntityType() {
+		return this.entityType;
+	}
+
+	/**
+	 * Gets the number of entities with violations.
+	 * 
+	 * @return The number of invalid entities.
+	 */
+	public long getInvalidCount() {
+		return this.invalidCount;
+	}
+
+	/**
+	 * Gets the violated property paths.
+	 * 
+	 * @return The property paths, empty for entity constraints.
+	 */
+	public Set<String> getPropertyPaths() {
+		return Collections.unmodifiableSet(this.counts.keySet());
+	}
+
+	/**
+	 * Gets the total number of violations.
+	 * 
+	 * @return The number of violations.
+	 */
+	public long getViolationCount() {
+		return this.violationCount;
+	}
+
+	/**
+	 * Adds the counts of another summary of the same entity type.
+	 * 
+	 * @param other
+	 *            The other summary. May not be null.
+	 */
+	public void merge(final ViolationSummary other) {
+		Validate.notNull(other, "Summary may not be null.");
+		Validate.isTrue(this.entityType.equals(other.entityType), "Summary is of another entity type.");
+		this.entityCount += other.entityCount;
+		this.invalidCount += other.invalidCount;
+		for (final Map.Entry<String, Map<String, long[]>> property : other.counts.entrySet()) {
+			for (final Map.Entry<String, long[]> constraint : property.getValue().entrySet()) {
+				this.add(property.getKey(), constraint.getKey(), constraint.getValue()[0]);
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("ViolationSummary[\n\tEntity type: ").append(this.entityType);
+		builder.append("\n\tEntities: ").append(this.entityCount);
+		builder.append("\n\tInvalid: ").append(this.invalidCount);
+		for (final Map.Entry<String, Map<String, long[]>> property : this.counts.entrySet()) {
+			for (final Map.Entry<String, long[]> constraint : property.getValue().entrySet()) {
+				builder.append("\n\t").append(property.getKey()).append(" @").append(constraint.getKey()).append(": ")
+						.append(constraint.getValue()[0]);
+			}
+		}
+		builder.append("\n]");
+		return builder.toString();
+	}
+
+	/**
+	 * Counts violations of a constraint type on a property.
+	 * 
+	 * @param propertyPath
+	 *            The property path.
+	 * @param constraintType
+	 *            The constraint type name.
+	 * @param count
+	 *            The number of violations.
+	 */
+	protected void add(final String propertyPath, final String constraintType, final long count) {
+		Map<String, long[]> propertyCounts = this.counts.get(propertyPath);
+		if (CheckUtil.isNull(propertyCounts)) {
+			propertyCounts = new HashMap<String, long[]>();
+			this.counts.put(propertyPath, propertyCounts);
+		}
+		final long[] counter = propertyCounts.get(constraintType);
+		if (CheckUtil.isNull(counter)) {
+			propertyCounts.put(constraintType, new long[] { count });
+		} else {
+			counter[0] += count;
+		}
+		this.violationCount += count;
+	}
+
+	/**
+	 * Counts a scanned entity.
+	 * 
+	 * @param invalid
+	 *            Whether the entity has violations.
+	 */
+	protected void addEntity(final boolean invalid) {
+		this.entityCount++;
+		if (invalid) {
+			this.invalidCount++;
+		}
+	}
+}
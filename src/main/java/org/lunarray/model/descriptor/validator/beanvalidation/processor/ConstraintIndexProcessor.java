@@ -0,0 +1,478 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.lunarray.common.check.CheckUtil;
+import org.lunarray.model.descriptor.validator.beanvalidation.ConstraintIndex;
+
+/**
+ * Annotation processor that generates the {@link ConstraintIndex}. Indexes
+ * all types that use bean validation constraints or model annotations,
+ * including the members they inherit.
+ * <p>
+ * The processor is not registered in the runtime jar, it is shipped with
+ * the {@code processor} classifier, which is to be put on the processor path
+ * of the modules to index.
+ * </p>
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+@SupportedAnnotationTypes("*")
+public final class ConstraintIndexProcessor
+		extends AbstractProcessor {
+
+	/** The constraint meta annotation. */
+	private static final String CONSTRAINT = "javax.validation.Constraint";
+	/** The default group. */
+	private static final String DEFAULT_GROUP = "javax.validation.groups.Default";
+	/** The embedded annotation. */
+	private static final String EMBEDDED = "org.lunarray.model.descriptor.model.annotations.Embedded";
+	/** The getter prefix. */
+	private static final String GET_PREFIX = "get";
+	/** The groups attribute. */
+	private static final String GROUPS = "groups";
+	/** The boolean getter prefix. */
+	private static final String IS_PREFIX = "is";
+	/** The model annotations package prefix. */
+	private static final String MODEL_PACKAGE = "org.lunarray.model.descriptor.";
+	/** Group sequence annotations, these redefine the default group. */
+	private static final String[] SEQUENCES = { "javax.validation.GroupSequence",
+			"org.hibernate.validator.group.GroupSequenceProvider" };
+	/** The cascade annotation. */
+	private static final String VALID = "javax.validation.Valid";
+	/** The value attribute. */
+	private static final String VALUE = "value";
+
+	/** The index, sorted for a stable output. */
+	private final SortedMap<String, SortedSet<String>> index;
+
+	/** Default constructor. */
+	public ConstraintIndexProcessor() {
+		super();
+		this.index = new TreeMap<String, SortedSet<String>>();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			if (!this.index.isEmpty()) {
+				this.writeIndex();
+			}
+		} else {
+			for (final TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+				this.processType(type);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a value to the index.
+	 * 
+	 * @param typeName
+	 *            The type name.
+	 * @param suffix
+	 *            The key suffix.
+	 * @param value
+	 *            The value.
+	 */
+	private void add(final String typeName, final String suffix, final String value) {
+		final String key = typeName.concat(suffix);
+		SortedSet<String> values = this.index.get(key);
+		if (CheckUtil.isNull(values)) {
+			values = new TreeSet<String>();
+			this.index.put(key, values);
+		}
+		values.add(value);
+	}
+
+	/**
+	 * Resolves the nested constraints of a constraint or constraint list.
+	 * 
+	 * @param annotation
+	 *            The annotation.
+	 * @param constraints
+	 *            The constraints to add to.
+	 */
+	private void collectConstraints(final AnnotationMirror annotation, final List<AnnotationMirror> constraints) {
+		final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+		if (this.hasAnnotation(annotationType, ConstraintIndexProcessor.CONSTRAINT)) {
+			constraints.add(annotation);
+		} else {
+			for (final ExecutableElement attribute : ElementFilter.methodsIn(annotationType.getEnclosedElements())) {
+				final TypeMirror returnType = attribute.getReturnType();
+				if (ConstraintIndexProcessor.VALUE.equals(attribute.getSimpleName().toString())
+						&& (returnType.getKind() == TypeKind.ARRAY)
+						&& (((ArrayType) returnType).getComponentType().getKind() == TypeKind.DECLARED)) {
+					this.collectListedConstraints(annotation, attribute, constraints);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves the constraints of a constraint list.
+	 * 
+	 * @param annotation
+	 *            The list annotation.
+	 * @param attribute
+	 *            The value attribute.
+	 * @param constraints
+	 *            The constraints to add to.
+	 */
+	private void collectListedConstraints(final AnnotationMirror annotation, final ExecutableElement attribute,
+			final List<AnnotationMirror> constraints) {
+		final AnnotationValue value = annotation.getElementValues().get(attribute);
+		if (!CheckUtil.isNull(value) && (value.getValue() instanceof List)) {
+			for (final Object listed : (List<?>) value.getValue()) {
+				final Object listedValue = ((AnnotationValue) listed).getValue();
+				if (listedValue instanceof AnnotationMirror) {
+					this.collectConstraints((AnnotationMirror) listedValue, constraints);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decapitalizes a name, following the java beans rules.
+	 * 
+	 * @param name
+	 *            The name.
+	 * @return The decapitalized name.
+	 */
+	private String decapitalize(final String name) {
+		String result = name;
+		if ((name.length() > 0) && !((name.length() > 1) && Character.isUpperCase(name.charAt(1)))) {
+			result = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if the element has an annotation of the given type.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @param annotationName
+	 *            The annotation type name.
+	 * @return True if and only if the element has the annotation.
+	 */
+	private boolean hasAnnotation(final Element element, final String annotationName) {
+		boolean result = false;
+		for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			result = result || this.isAnnotation(annotation, annotationName);
+		}
+		return result;
+	}
+
+	/**
+	 * Tests if an annotation is of the given type.
+	 * 
+	 * @param annotation
+	 *            The annotation.
+	 * @param annotationName
+	 *            The annotation type name.
+	 * @return True if and only if the annotation is of the type.
+	 */
+	private boolean isAnnotation(final AnnotationMirror annotation, final String annotationName) {
+		return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName);
+	}
+
+	/**
+	 * Resolves the property name of a getter.
+	 * 
+	 * @param method
+	 *            The method.
+	 * @return The property name, or null if the method is not a getter.
+	 */
+	private String propertyName(final ExecutableElement method) {
+		final String name = method.getSimpleName().toString();
+		String result = null;
+		if (method.getParameters().isEmpty() && (method.getReturnType().getKind() != TypeKind.VOID)) {
+			if (name.startsWith(ConstraintIndexProcessor.GET_PREFIX) && (name.length() > ConstraintIndexProcessor.GET_PREFIX.length())) {
+				result = this.decapitalize(name.substring(ConstraintIndexProcessor.GET_PREFIX.length()));
+			} else if (name.startsWith(ConstraintIndexProcessor.IS_PREFIX) && (name.length() > ConstraintIndexProcessor.IS_PREFIX.length())
+					&& (method.getReturnType().getKind() == TypeKind.BOOLEAN)) {
+				result = this.decapitalize(name.substring(ConstraintIndexProcessor.IS_PREFIX.length()));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Process the annotations of a member or type.
+	 * 
+	 * @param typeName
+	 *            The indexed type name.
+	 * @param element
+	 *            The annotated element.
+	 * @param suffix
+	 *            The key suffix to register constraints under.
+	 * @param name
+	 *            The name to register constraints under.
+	 * @return True if and only if any annotation was relevant.
+	 */
+	private boolean processAnnotations(final String typeName, final Element element, final String suffix, final String name) {
+		boolean relevant = false;
+		for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			final String annotationName = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+			final List<AnnotationMirror> constraints = new LinkedList<AnnotationMirror>();
+			this.collectConstraints(annotation, constraints);
+			for (final AnnotationMirror constraint : constraints) {
+				this.add(typeName, suffix, name);
+				this.processGroups(typeName, constraint);
+			}
+			if (ConstraintIndexProcessor.VALID.equals(annotationName)) {
+				this.add(typeName, ConstraintIndex.CASCADED, name);
+			}
+			relevant = relevant || !constraints.isEmpty() || ConstraintIndexProcessor.VALID.equals(annotationName)
+					|| annotationName.startsWith(ConstraintIndexProcessor.MODEL_PACKAGE);
+		}
+		return relevant;
+	}
+
+	/**
+	 * Process the groups of a constraint.
+	 * 
+	 * @param typeName
+	 *            The type name.
+	 * @param constraint
+	 *            The constraint.
+	 */
+	private void processGroups(final String typeName, final AnnotationMirror constraint) {
+		boolean grouped = false;
+		for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> attribute : this.processingEnv.getElementUtils()
+				.getElementValuesWithDefaults(constraint).entrySet()) {
+			if (ConstraintIndexProcessor.GROUPS.equals(attribute.getKey().getSimpleName().toString())
+					&& (attribute.getValue().getValue() instanceof List)) {
+				for (final Object group : (List<?>) attribute.getValue().getValue()) {
+					final Object groupType = ((AnnotationValue) group).getValue();
+					if (groupType instanceof DeclaredType) {
+						final TypeElement groupElement = (TypeElement) ((DeclaredType) groupType).asElement();
+						this.add(typeName, ConstraintIndex.GROUPS, this.processingEnv.getElementUtils().getBinaryName(groupElement)
+								.toString());
+						grouped = true;
+					}
+				}
+			}
+		}
+		if (!grouped) {
+			this.add(typeName, ConstraintIndex.GROUPS, ConstraintIndexProcessor.DEFAULT_GROUP);
+		}
+	}
+
+	/**
+	 * Process a member of an indexed type.
+	 * 
+	 * @param typeName
+	 *            The indexed type name.
+	 * @param member
+	 *            The member.
+	 * @return True if and only if the member was relevant.
+	 */
+	private boolean processMember(final String typeName, final Element member) {
+		boolean relevant = false;
+		if ((member.getKind() == ElementKind.FIELD) && !member.getModifiers().contains(Modifier.STATIC)) {
+			final String name = member.getSimpleName().toString();
+			relevant = this.processAnnotations(typeName, member, ConstraintIndex.CONSTRAINED, name);
+			this.processEmbedded(typeName, member, name, member.asType());
+		} else if ((member.getKind() == ElementKind.METHOD) && !member.getModifiers().contains(Modifier.STATIC)) {
+			final ExecutableElement method = (ExecutableElement) member;
+			final String name = this.propertyName(method);
+			if (CheckUtil.isNull(name)) {
+				final String methodName = method.getSimpleName().toString();
+				relevant = this.processAnnotations(typeName, method, ConstraintIndex.METHODS, methodName);
+				for (final VariableElement parameter : method.getParameters()) {
+					relevant = this.processAnnotations(typeName, parameter, ConstraintIndex.METHODS, methodName) || relevant;
+				}
+			} else {
+				relevant = this.processAnnotations(typeName, method, ConstraintIndex.CONSTRAINED, name);
+				this.processEmbedded(typeName, method, name, method.getReturnType());
+			}
+		}
+		return relevant;
+	}
+
+	/**
+	 * Process an embedded property.
+	 * 
+	 * @param typeName
+	 *            The indexed type name.
+	 * @param member
+	 *            The member.
+	 * @param name
+	 *            The property name.
+	 * @param type
+	 *            The property type.
+	 */
+	private void processEmbedded(final String typeName, final Element member, final String name, final TypeMirror type) {
+		if (this.hasAnnotation(member, ConstraintIndexProcessor.EMBEDDED) && (type.getKind() == TypeKind.DECLARED)) {
+			final TypeElement embeddedType = (TypeElement) ((DeclaredType) type).asElement();
+			this.add(typeName, ConstraintIndex.EMBEDDED, name + ConstraintIndex.TYPE_SEPARATOR
+					+ this.processingEnv.getElementUtils().getBinaryName(embeddedType));
+		}
+	}
+
+	/**
+	 * Process a type, its nested types and its super types.
+	 * 
+	 * @param type
+	 *            The type.
+	 */
+	private void processType(final TypeElement type) {
+		if (type.getKind() == ElementKind.CLASS) {
+			final String typeName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+			if (this.processTypeHierarchy(typeName, type)) {
+				// Ensures the type is indexed, even if nothing is constrained.
+				this.add(typeName, ConstraintIndex.DYNAMIC, Boolean.FALSE.toString());
+			} else {
+				this.removeType(typeName);
+			}
+		}
+		for (final TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			this.processType(nested);
+		}
+	}
+
+	/**
+	 * Process the members of a type and its super types.
+	 * 
+	 * @param typeName
+	 *            The indexed type name.
+	 * @param type
+	 *            The current type in the hierarchy.
+	 * @return True if and only if any part was relevant.
+	 */
+	private boolean processTypeHierarchy(final String typeName, final TypeElement type) {
+		boolean relevant = this.processAnnotations(typeName, type, ConstraintIndex.DYNAMIC, Boolean.TRUE.toString());
+		for (final String sequence : ConstraintIndexProcessor.SEQUENCES) {
+			if (this.hasAnnotation(type, sequence)) {
+				this.add(typeName, ConstraintIndex.DYNAMIC, Boolean.TRUE.toString());
+			}
+		}
+		for (final Element member : type.getEnclosedElements()) {
+			relevant = this.processMember(typeName, member) || relevant;
+		}
+		final TypeMirror superType = type.getSuperclass();
+		if (superType.getKind() == TypeKind.DECLARED) {
+			relevant = this.processTypeHierarchy(typeName, (TypeElement) ((DeclaredType) superType).asElement()) || relevant;
+		}
+		for (final TypeMirror interfaceType : type.getInterfaces()) {
+			relevant = this.processTypeHierarchy(typeName, (TypeElement) ((DeclaredType) interfaceType).asElement()) || relevant;
+		}
+		return relevant;
+	}
+
+	/**
+	 * Removes all index entries of a type.
+	 * 
+	 * @param typeName
+	 *            The type name.
+	 */
+	private void removeType(final String typeName) {
+		// All keys of the type are between 'type.' and 'type/'.
+		this.index.subMap(typeName.concat("."), typeName.concat("/")).clear();
+	}
+
+	/** Writes the index. */
+	private void writeIndex() {
+		try {
+			final FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+					ConstraintIndex.RESOURCE);
+			final Writer writer = file.openWriter();
+			try {
+				for (final Map.Entry<String, SortedSet<String>> entry : this.index.entrySet()) {
+					writer.append(entry.getKey()).append('=');
+					this.writeValues(writer, entry.getKey(), entry.getValue());
+					writer.append('\n');
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (final IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Could not write constraint index: ".concat(e.getMessage()));
+		}
+	}
+
+	/**
+	 * Writes the values of an entry.
+	 * 
+	 * @param writer
+	 *            The writer.
+	 * @param key
+	 *            The key.
+	 * @param values
+	 *            The values.
+	 * @throws IOException
+	 *             Thrown if the values could not be written.
+	 */
+	private void writeValues(final Writer writer, final String key, final SortedSet<String> values) throws IOException {
+		if (key.endsWith(ConstraintIndex.DYNAMIC)) {
+			writer.append(Boolean.toString(values.contains(Boolean.TRUE.toString())));
+		} else {
+			boolean first = true;
+			for (final String value : values) {
+				if (!first) {
+					writer.append(ConstraintIndex.VALUE_SEPARATOR);
+				}
+				writer.append(value);
+				first = false;
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Locale;
+
+import javax.validation.groups.Default;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
+
+/**
+ * Test the client schema export.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ClientSchemaExporter
+ */
+public class TestClientSchema {
+	/** The exporter. */
+	private ClientSchemaExporter exporter;
+	/** The model. */
+	private Model<Object> model;
+
+	/** Setup the client schema tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity05.class);
+		this.model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), new BeanValidationValidator()).resources(resource).build();
+		this.exporter = ClientSchemaExporter.createBuilder().qualifier(Default.class).qualifier(Qualifier01.class).build();
+	}
+
+	/**
+	 * Test the exported constraints.
+	 * 
+	 * @see ClientSchemaExporter#export(Model, Locale)
+	 */
+	@Test
+	public void testContent() throws Exception {
+		final String content = this.exporter.export(this.model, Locale.ENGLISH).getContent();
+		Assert.assertTrue(content.startsWith("{\"entities\":{"));
+		Assert.assertTrue(content.contains("\"value\":[{\"type\":\"notEmpty\",\"message\":\"may not be empty\"}]"));
+		Assert.assertTrue(content.contains("\"someList\":[{\"type\":\"notEmpty\",\"message\":\"may not be empty\"}]"));
+		Assert.assertTrue(content.contains("\"embedded.checkItem\":[{\"type\":\"assertTrue\",\"message\":\"must be true\"}]"));
+		Assert.assertTrue(content.contains("{\"type\":\"size\",\"min\":2,\"max\":4,\"message\":\"size must be between 2 and 4\"}"));
+		Assert.assertTrue(content.contains("{\"type\":\"pattern\",\"regexp\":\"[A-Z]{3}\",\"flags\":[\"CASE_INSENSITIVE\"]"));
+	}
+
+	/**
+	 * Test the entity tag follows the content.
+	 * 
+	 * @see ClientSchema#getETag()
+	 */
+	@Test
+	public void testETag() throws Exception {
+		final ClientSchema schema = this.exporter.export(this.model, Locale.ENGLISH);
+		Assert.assertTrue(schema.getETag().matches("\"[0-9a-f]{64}\""));
+		Assert.assertEquals(schema.getETag(), this.exporter.export(this.model, Locale.ENGLISH).getETag());
+		Assert.assertFalse(schema.getETag().equals(this.exporter.export(this.model, Locale.GERMAN).getETag()));
+		final ClientSchema defaultSchema = ClientSchemaExporter.createBuilder().build().export(this.model, Locale.ENGLISH);
+		Assert.assertFalse(defaultSchema.getContent().contains("someList"));
+		Assert.assertFalse(schema.getETag().equals(defaultSchema.getETag()));
+	}
+}
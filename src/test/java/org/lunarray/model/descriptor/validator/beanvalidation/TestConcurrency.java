@@ -0,0 +1,453 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.qualifier.QualifierEntityDescriptor;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.util.OperationInvocationBuilder;
+import org.lunarray.model.descriptor.validator.ParameterViolation;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stress test a shared validator under contention. All entry points are
+ * invoked with mixed locales and qualifiers, results are compared to single
+ * threaded runs and throughput is reported per thread count. The stress runs
+ * are skipped unless the system property {@value #STRESS_PROPERTY} is true,
+ * as set by the <code>performance</code> profile. The load may be tuned with
+ * the system properties {@value #THREADS_PROPERTY} and
+ * {@value #ITERATIONS_PROPERTY}.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator
+ */
+public class TestConcurrency {
+	/** The iterations per thread property. */
+	public static final String ITERATIONS_PROPERTY = "lunarray.stress.iterations";
+	/** The property enabling the stress runs. */
+	public static final String STRESS_PROPERTY = "lunarray.stress";
+	/** The maximum thread count property. */
+	public static final String THREADS_PROPERTY = "lunarray.stress.threads";
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(TestConcurrency.class);
+	/** The locales. */
+	private static final Locale[] LOCALES = { null, Locale.ENGLISH, Locale.GERMAN };
+
+	/**
+	 * Describe parameter violations.
+	 * 
+	 * @param violations
+	 *            The violations.
+	 * @return The violation descriptions.
+	 */
+	private static Set<String> describeParameters(final Collection<ParameterViolation<?>> violations) {
+		final Set<String> result = new HashSet<String>();
+		for (final ParameterViolation<?> violation : violations) {
+			result.add(violation.getParameter().getIndex() + ": " + violation.getMessage());
+		}
+		return result;
+	}
+
+	/**
+	 * Describe property violations.
+	 * 
+	 * @param violations
+	 *            The violations.
+	 * @return The violation descriptions.
+	 */
+	private static Set<String> describeProperties(final Collection<? extends PropertyViolation<?, ?>> violations) {
+		final Set<String> result = new HashSet<String>();
+		for (final PropertyViolation<?, ?> violation : violations) {
+			result.add(violation.getProperty().getName() + ": " + violation.getMessage());
+		}
+		return result;
+	}
+
+	/** The model. */
+	private Model<Object> model;
+	/** The operations. */
+	private List<Operation> operations;
+
+	/** Setup the stress tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity05.class);
+		this.model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), new BeanValidationValidator()).resources(resource).build();
+	}
+
+	/**
+	 * Test identical concurrent requests share a validation.
+	 * 
+	 * @see BeanValidationValidator.Builder#coalescing(boolean)
+	 */
+	@Test
+	public void testCoalescing() throws Exception {
+		final BeanValidationValidator validator = BeanValidationValidator.createBuilder().coalescing(true).build();
+		final RequestCoalescer coalescer = validator.getCoalescer();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Object target = new Object();
+		final Callable<ValidationResult<String>> request = new Callable<ValidationResult<String>>() {
+			@Override
+			public ValidationResult<String> call() throws Exception {
+				return coalescer.coalesce(Entity01.class, target, null, new Callable<ValidationResult<String>>() {
+					@Override
+					public ValidationResult<String> call() throws Exception {
+						started.countDown();
+						release.await();
+						final ValidationResult<String> result = new ValidationResult<String>(Integer.MAX_VALUE);
+						result.add("violation");
+						return result;
+					}
+				});
+			}
+		};
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final Future<ValidationResult<String>> first = executor.submit(request);
+		started.await();
+		final Future<ValidationResult<String>> second = executor.submit(request);
+		while (coalescer.getSharedCount() == 0) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		Assert.assertNotSame(first.get(), second.get());
+		Assert.assertEquals(first.get(), second.get());
+		first.get().clear();
+		Assert.assertEquals(1, second.get().size());
+		Assert.assertEquals(1, coalescer.getPerformedCount());
+		Assert.assertEquals(1, coalescer.getSharedCount());
+		final CountDownLatch both = new CountDownLatch(2);
+		final Callable<ValidationResult<String>> equal = new Callable<ValidationResult<String>>() {
+			@Override
+			public ValidationResult<String> call() throws Exception {
+				return coalescer.coalesce(Entity01.class, new String("value"), null, new Callable<ValidationResult<String>>() {
+					@Override
+					public ValidationResult<String> call() throws Exception {
+						both.countDown();
+						both.await();
+						return new ValidationResult<String>(Integer.MAX_VALUE);
+					}
+				});
+			}
+		};
+		final Future<ValidationResult<String>> third = executor.submit(equal);
+		final Future<ValidationResult<String>> fourth = executor.submit(equal);
+		Assert.assertTrue(third.get().isEmpty());
+		Assert.assertTrue(fourth.get().isEmpty());
+		executor.shutdown();
+		Assert.assertEquals(3, coalescer.getPerformedCount());
+		Assert.assertEquals(1, coalescer.getSharedCount());
+		if (Boolean.getBoolean(TestConcurrency.STRESS_PROPERTY)) {
+			this.stress("coalescing", validator);
+			TestConcurrency.LOGGER.info("Validator coalescing: {}", coalescer);
+		}
+	}
+
+	/**
+	 * Test concurrent requests for equal objects share a validation if their
+	 * type has a coalescing key.
+	 * 
+	 * @see BeanValidationValidator.Builder#coalescingKey(Class,
+	 *      CoalescingKeyExtractor)
+	 */
+	@Test
+	public void testCoalescingKey() throws Exception {
+		final BeanValidationValidator validator = BeanValidationValidator.createBuilder().coalescing(true)
+				.coalescingKey(CharSequence.class, new CoalescingKeyExtractor() {
+					@Override
+					public Object getKey(final Object object) {
+						return object.toString();
+					}
+				}).build();
+		final RequestCoalescer coalescer = validator.getCoalescer();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<ValidationResult<String>> request = new Callable<ValidationResult<String>>() {
+			@Override
+			public ValidationResult<String> call() throws Exception {
+				return coalescer.coalesce(Entity01.class, new String("value"), null, new Callable<ValidationResult<String>>() {
+					@Override
+					public ValidationResult<String> call() throws Exception {
+						started.countDown();
+						release.await();
+						final ValidationResult<String> result = new ValidationResult<String>(Integer.MAX_VALUE);
+						result.add("violation");
+						return result;
+					}
+				});
+			}
+		};
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final Future<ValidationResult<String>> first = executor.submit(request);
+		started.await();
+		final Future<ValidationResult<String>> second = executor.submit(request);
+		while (coalescer.getSharedCount() == 0) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+		Assert.assertNotSame(first.get(), second.get());
+		Assert.assertEquals(1, second.get().size());
+		final ValidationResult<String> other = coalescer.coalesce(Entity01.class, Integer.valueOf(1), null,
+				new Callable<ValidationResult<String>>() {
+					@Override
+					public ValidationResult<String> call() throws Exception {
+						return new ValidationResult<String>(Integer.MAX_VALUE);
+					}
+				});
+		executor.shutdown();
+		Assert.assertTrue(other.isEmpty());
+		Assert.assertEquals(2, coalescer.getPerformedCount());
+		Assert.assertEquals(1, coalescer.getSharedCount());
+	}
+
+	/**
+	 * Test the default validator under contention.
+	 * 
+	 * @see BeanValidationValidator
+	 */
+	@Test
+	public void testDefault() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(TestConcurrency.STRESS_PROPERTY));
+		this.stress("default", new BeanValidationValidator());
+	}
+
+	/**
+	 * Test the validator with all optimizations under contention.
+	 * 
+	 * @see BeanValidationValidator
+	 */
+	@Test
+	public void testOptimized() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(TestConcurrency.STRESS_PROPERTY));
+		this.stress("optimized",
+				BeanValidationValidator.createBuilder().constraintIndex(ConstraintIndex.load()).directConstraints(true).build());
+	}
+
+	/**
+	 * Creates the operations.
+	 * 
+	 * @param validator
+	 *            The shared validator.
+	 */
+	private void createOperations(final BeanValidationValidator validator) {
+		final EntityDescriptor<Entity01> descriptor = this.model.getEntity(Entity01.class);
+		@SuppressWarnings("unchecked")
+		final EntityDescriptor<Entity01> qualifierDescriptor = descriptor.adapt(QualifierEntityDescriptor.class).getQualifierEntity(
+				Qualifier01.class);
+		final EntityDescriptor<Entity05> validDescriptor = this.model.getEntity(Entity05.class);
+		final PropertyDescriptor<String, Entity01> value = descriptor.getProperty("value", String.class);
+		@SuppressWarnings("rawtypes")
+		final PropertyDescriptor<List, Entity01> someList = qualifierDescriptor.getProperty("someList", List.class);
+		this.operations = new ArrayList<Operation>();
+		for (final Locale locale : TestConcurrency.LOCALES) {
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validate(descriptor, new Entity01(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validate(qualifierDescriptor, new Entity01(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validate(validDescriptor, new Entity05(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validateProperty(value, new Entity01(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validateProperty(someList, new Entity01(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validateValue(value, "", locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validateValue(value, "value", locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					return TestConcurrency.describeProperties(validator.validateValue(someList, new LinkedList<Object>(), locale));
+				}
+			});
+			this.operations.add(new Operation() {
+				@Override
+				public Set<String> run() {
+					final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(
+							descriptor.getOperation("method"));
+					builder.target(new Entity01());
+					return TestConcurrency.describeParameters(validator.validateInvocation(builder, locale));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Resolves an integer system property.
+	 * 
+	 * @param name
+	 *            The property name.
+	 * @param defaultValue
+	 *            The default value.
+	 * @return The value.
+	 */
+	private int intProperty(final String name, final int defaultValue) {
+		return Integer.parseInt(System.getProperty(name, Integer.toString(defaultValue)));
+	}
+
+	/**
+	 * Runs the operations concurrently.
+	 * 
+	 * @param threads
+	 *            The thread count.
+	 * @param iterations
+	 *            The iterations per thread.
+	 * @param expected
+	 *            The expected, single threaded, results.
+	 * @return The throughput, in operations per second.
+	 * @throws Exception
+	 *             Thrown if a thread failed.
+	 */
+	private double runConcurrently(final int threads, final int iterations, final List<Set<String>> expected) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Future<Integer>> results = new LinkedList<Future<Integer>>();
+		for (int thread = 0; thread < threads; thread++) {
+			final int offset = thread;
+			results.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					start.await();
+					int mismatches = 0;
+					for (int i = 0; i < iterations; i++) {
+						final int index = (offset + i) % TestConcurrency.this.operations.size();
+						if (!expected.get(index).equals(TestConcurrency.this.operations.get(index).run())) {
+							mismatches++;
+						}
+					}
+					return Integer.valueOf(mismatches);
+				}
+			}));
+		}
+		final long begin = System.nanoTime();
+		start.countDown();
+		int mismatches = 0;
+		for (final Future<Integer> result : results) {
+			mismatches += result.get().intValue();
+		}
+		final long elapsed = System.nanoTime() - begin;
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+		Assert.assertEquals("Results differ from single threaded results.", 0, mismatches);
+		return ((double) threads * iterations * TimeUnit.SECONDS.toNanos(1)) / elapsed;
+	}
+
+	/**
+	 * Stress a validator.
+	 * 
+	 * @param name
+	 *            The configuration name.
+	 * @param validator
+	 *            The validator.
+	 * @throws Exception
+	 *             Thrown if the test failed.
+	 */
+	private void stress(final String name, final BeanValidationValidator validator) throws Exception {
+		this.createOperations(validator);
+		final List<Set<String>> expected = new ArrayList<Set<String>>();
+		for (final Operation operation : this.operations) {
+			expected.add(operation.run());
+		}
+		final int maxThreads = this.intProperty(TestConcurrency.THREADS_PROPERTY, Runtime.getRuntime().availableProcessors() * 2);
+		final int iterations = this.intProperty(TestConcurrency.ITERATIONS_PROPERTY, 500);
+		// Warm up.
+		this.runConcurrently(1, iterations, expected);
+		double base = 0;
+		for (int threads = 1; threads <= maxThreads; threads = threads * 2) {
+			final double throughput = this.runConcurrently(threads, iterations, expected);
+			if (threads == 1) {
+				base = throughput;
+			}
+			TestConcurrency.LOGGER.info("Validator {}: {} threads, {} ops/s, scaling {}.", name, threads,
+					String.format("%.0f", throughput), String.format("%.2f", throughput / base));
+		}
+	}
+
+	/**
+	 * A validation operation.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private interface Operation {
+		/**
+		 * Runs the operation.
+		 * 
+		 * @return The violation descriptions.
+		 */
+		Set<String> run();
+	}
+}
@@ -0,0 +1,197 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import javax.validation.groups.Default;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity03;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
+
+/**
+ * Test the constraint index, as generated for the test model.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ConstraintIndex
+ */
+public class TestConstraintIndex {
+	/** A temporary folder. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	/** The constraint index. */
+	private ConstraintIndex index;
+
+	/** Setup the index tests. */
+	@Before
+	public void setup() throws Exception {
+		this.index = ConstraintIndex.load(TestConstraintIndex.class.getClassLoader());
+	}
+
+	/**
+	 * Test the indexed types.
+	 * 
+	 * @see ConstraintIndex#isIndexed(Class)
+	 */
+	@Test
+	public void testIndexed() throws Exception {
+		Assert.assertTrue(this.index.isIndexed(Entity01.class));
+		Assert.assertTrue(this.index.isIndexed(Entity03.class));
+		Assert.assertFalse(this.index.isIndexed(Entity02.class));
+	}
+
+	/**
+	 * Test malformed embedded values are ignored, and the type is no longer
+	 * skipped.
+	 * 
+	 * @see ConstraintIndex#ConstraintIndex(Properties)
+	 */
+	@Test
+	public void testMalformedEmbedded() throws Exception {
+		final Properties properties = new Properties();
+		properties.setProperty(Entity02.class.getName() + ConstraintIndex.CONSTRAINED, "");
+		properties.setProperty(Entity02.class.getName() + ConstraintIndex.EMBEDDED, "malformed");
+		final ConstraintIndex malformed = new ConstraintIndex(properties);
+		Assert.assertTrue(malformed.isIndexed(Entity02.class));
+		Assert.assertFalse(malformed.isTypeSkippable(Entity02.class, Default.class));
+	}
+
+	/**
+	 * Test malformed keys are ignored.
+	 * 
+	 * @see ConstraintIndex#ConstraintIndex(Properties)
+	 */
+	@Test
+	public void testMalformedKey() throws Exception {
+		final Properties properties = new Properties();
+		properties.setProperty("malformed", "value");
+		properties.setProperty(Entity02.class.getName() + ConstraintIndex.CONSTRAINED, "value");
+		final ConstraintIndex malformed = new ConstraintIndex(properties);
+		Assert.assertTrue(malformed.isIndexed(Entity02.class));
+		Assert.assertFalse(malformed.isPropertySkippable(Entity02.class, "value"));
+	}
+
+	/**
+	 * Test nothing is skipped if the validation configuration declares
+	 * constraint mappings.
+	 * 
+	 * @see ConstraintIndex#load(ClassLoader)
+	 */
+	@Test
+	public void testMappings() throws Exception {
+		final File directory = this.folder.newFolder();
+		final File configuration = new File(directory, "META-INF/validation.xml");
+		Assert.assertTrue(configuration.getParentFile().mkdirs());
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(configuration), "UTF-8");
+		try {
+			writer.write("<validation-config><constraint-mapping>mapping.xml</constraint-mapping></validation-config>");
+		} finally {
+			writer.close();
+		}
+		final URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+				TestConstraintIndex.class.getClassLoader());
+		final ConstraintIndex mapped = ConstraintIndex.load(classLoader);
+		Assert.assertFalse(mapped.isIndexed(Entity01.class));
+		Assert.assertFalse(mapped.isPropertySkippable(Entity01.class, "entityList"));
+	}
+
+	/**
+	 * Test skipping of methods.
+	 * 
+	 * @see ConstraintIndex#isMethodSkippable(Class, String)
+	 */
+	@Test
+	public void testMethodSkippable() throws Exception {
+		Assert.assertFalse(this.index.isMethodSkippable(Entity01.class, "method"));
+		Assert.assertTrue(this.index.isMethodSkippable(Entity01.class, "setValue"));
+		Assert.assertFalse(this.index.isMethodSkippable(Entity02.class, "method"));
+	}
+
+	/**
+	 * Test skipping of properties.
+	 * 
+	 * @see ConstraintIndex#isPropertySkippable(Class, String)
+	 */
+	@Test
+	public void testPropertySkippable() throws Exception {
+		Assert.assertFalse(this.index.isPropertySkippable(Entity01.class, "value"));
+		Assert.assertFalse(this.index.isPropertySkippable(Entity01.class, "someList"));
+		Assert.assertTrue(this.index.isPropertySkippable(Entity01.class, "entityList"));
+		Assert.assertFalse(this.index.isPropertySkippable(Entity01.class, "embedded.checkItem"));
+		Assert.assertTrue(this.index.isPropertySkippable(Entity01.class, "embedded.identity"));
+		Assert.assertFalse(this.index.isPropertySkippable(Entity02.class, "value"));
+	}
+
+	/**
+	 * Test skipping of types.
+	 * 
+	 * @see ConstraintIndex#isTypeSkippable(Class, Class)
+	 */
+	@Test
+	public void testTypeSkippable() throws Exception {
+		Assert.assertFalse(this.index.isTypeSkippable(Entity01.class, Default.class));
+		Assert.assertFalse(this.index.isTypeSkippable(Entity03.class, Default.class));
+		Assert.assertTrue(this.index.isTypeSkippable(Entity03.class, Qualifier01.class));
+		Assert.assertFalse(this.index.isTypeSkippable(Entity02.class, Qualifier01.class));
+	}
+
+	/**
+	 * Test validation with an index gives the same results.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object)
+	 */
+	@Test
+	public void testValidation() throws Exception {
+		final BeanValidationValidator validator = BeanValidationValidator.createBuilder().constraintIndex(this.index).build();
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class);
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), validator).resources(resource).build();
+		final EntityDescriptor<Entity01> entityDescriptor = model.getEntity(Entity01.class);
+		final Collection<PropertyViolation<Entity01, ?>> violations = validator.validate(entityDescriptor, new Entity01());
+		Assert.assertEquals(2, violations.size());
+		Assert.assertTrue(validator.validateProperty(entityDescriptor.getProperty("entityList"), new Entity01()).isEmpty());
+		@SuppressWarnings("rawtypes")
+		final ValueValidationResults<Entity01, List> values = validator.validateValues(
+				entityDescriptor.getProperty("entityList", List.class), new List[] { null, null }, null);
+		Assert.assertEquals(0, values.getInvalidCount());
+		Assert.assertNotSame(values.get(0), values.get(1));
+	}
+}
@@ -0,0 +1,188 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+
+/**
+ * Test the direct constraint checks produce the same violations as the
+ * provider.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see DirectConstraintEngine
+ */
+public class TestDirectConstraints {
+	/** A validator checking constraints directly. */
+	private BeanValidationValidator directValidator;
+	/** The entity descriptor. */
+	private EntityDescriptor<Entity05> entityDescriptor;
+	/** The model. */
+	private Model<Object> model;
+	/** A plain validator. */
+	private BeanValidationValidator validator;
+
+	/**
+	 * Describe violations.
+	 * 
+	 * @param violations
+	 *            The violations.
+	 * @return The violation descriptions.
+	 */
+	private static Set<String> describe(final Collection<? extends PropertyViolation<?, ?>> violations) {
+		final Set<String> result = new HashSet<String>();
+		for (final PropertyViolation<?, ?> violation : violations) {
+			result.add(violation.getProperty().getName() + ": " + violation.getMessage());
+		}
+		return result;
+	}
+
+	/** Setup the direct constraint tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity05.class);
+		this.validator = new BeanValidationValidator();
+		this.directValidator = BeanValidationValidator.createBuilder().directConstraints(true).build();
+		this.model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		this.entityDescriptor = this.model.getEntity(Entity05.class);
+	}
+
+	/**
+	 * Test cascaded entities are left to the provider.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object)
+	 */
+	@Test
+	public void testCascaded() throws Exception {
+		final EntityDescriptor<Entity01> descriptor = this.model.getEntity(Entity01.class);
+		Assert.assertEquals(2, this.directValidator.validate(descriptor, new Entity01()).size());
+	}
+
+	/**
+	 * Test entity validation.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object)
+	 */
+	@Test
+	public void testEntity() throws Exception {
+		final Entity05 entity = this.createValid();
+		Assert.assertTrue(this.directValidator.validate(this.entityDescriptor, entity).isEmpty());
+		this.assertSameEntity(entity);
+		entity.setCount(0);
+		entity.setCode("abcd");
+		this.assertSameEntity(entity);
+		entity.setItems(null);
+		entity.setName("");
+		entity.setAccepted(false);
+		this.assertSameEntity(entity);
+		this.assertSameEntity(new Entity05());
+	}
+
+	/**
+	 * Test value validation.
+	 * 
+	 * @see BeanValidationValidator#validateValue(PropertyDescriptor, Object)
+	 */
+	@Test
+	public void testValue() throws Exception {
+		this.assertSameValues("amount", BigDecimal.class, null, BigDecimal.ONE, new BigDecimal("100.5"));
+		this.assertSameValues("code", String.class, null, "abc", "ABC", "AB", "A1C");
+		this.assertSameValues("count", Integer.class, 0, 1, 10, 11);
+		this.assertSameValues("name", String.class, null, "", "name");
+		this.assertSameValues("ratio", Double.class, null, -5.5d, -5d, 0d, Double.NaN, Double.NEGATIVE_INFINITY,
+				Double.POSITIVE_INFINITY);
+		this.assertSameValues("accepted", Boolean.class, null, true, false);
+		this.assertSameValues("items", Object.class, null, new LinkedList<String>(), Arrays.asList("a", "b"),
+				Arrays.asList("a", "b", "c", "d", "e"));
+	}
+
+	/**
+	 * Asserts both validators give the same entity violations.
+	 * 
+	 * @param entity
+	 *            The entity.
+	 */
+	private void assertSameEntity(final Entity05 entity) {
+		Assert.assertEquals(TestDirectConstraints.describe(this.validator.validate(this.entityDescriptor, entity)),
+				TestDirectConstraints.describe(this.directValidator.validate(this.entityDescriptor, entity)));
+		for (final PropertyDescriptor<?, Entity05> property : this.entityDescriptor.getProperties()) {
+			Assert.assertEquals(TestDirectConstraints.describe(this.validator.validateProperty(property, entity)),
+					TestDirectConstraints.describe(this.directValidator.validateProperty(property, entity)));
+		}
+	}
+
+	/**
+	 * Asserts both validators give the same value violations.
+	 * 
+	 * @param name
+	 *            The property name.
+	 * @param type
+	 *            The property type.
+	 * @param values
+	 *            The values.
+	 * @param <P>
+	 *            The property type.
+	 */
+	private <P> void assertSameValues(final String name, final Class<P> type, final Object... values) {
+		@SuppressWarnings("unchecked")
+		final PropertyDescriptor<P, Entity05> property = (PropertyDescriptor<P, Entity05>) this.entityDescriptor.getProperty(name);
+		for (final Object value : values) {
+			final P typedValue = type.cast(value);
+			Assert.assertEquals(TestDirectConstraints.describe(this.validator.validateValue(property, typedValue)),
+					TestDirectConstraints.describe(this.directValidator.validateValue(property, typedValue)));
+		}
+	}
+
+	/**
+	 * Creates a valid entity.
+	 * 
+	 * @return The entity.
+	 */
+	private Entity05 createValid() {
+		final Entity05 entity = new Entity05();
+		entity.setAccepted(true);
+		entity.setAmount(BigDecimal.TEN);
+		entity.setCode("abc");
+		entity.setCount(5);
+		entity.setItems(Arrays.asList("a", "b"));
+		entity.setName("name");
+		entity.setRatio(Double.valueOf(1d));
+		return entity;
+	}
+}
@@ -0,0 +1,244 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Test primitive value validation gives the same violations as boxed value
+ * validation, and measures its allocation and throughput. The measurement is
+ * skipped unless the system property {@value #BENCHMARK_PROPERTY} is true, as
+ * set by the <code>performance</code> profile.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator
+ */
+public class TestPrimitiveValues {
+	/** The property enabling the benchmark. */
+	public static final String BENCHMARK_PROPERTY = "lunarray.benchmark";
+	/** The benchmark iterations. */
+	private static final int ITERATIONS = 100000;
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(TestPrimitiveValues.class);
+
+	/**
+	 * Describe violations.
+	 * 
+	 * @param violations
+	 *            The violations.
+	 * @return The violation descriptions.
+	 */
+	private static Set<String> describe(final Collection<? extends PropertyViolation<?, ?>> violations) {
+		final Set<String> result = new HashSet<String>();
+		for (final PropertyViolation<?, ?> violation : violations) {
+			result.add(violation.getProperty().getName() + ": " + violation.getMessage());
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the allocated bytes of the current thread.
+	 * 
+	 * @return The allocated bytes, or -1 if not supported.
+	 */
+	private static long allocatedBytes() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		long result = -1;
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			result = ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return result;
+	}
+
+	/** The entity descriptor. */
+	private EntityDescriptor<Entity05> entityDescriptor;
+	/** A validator without direct constraints. */
+	private BeanValidationValidator plainValidator;
+	/** The validator. */
+	private BeanValidationValidator validator;
+
+	/** Setup the primitive value tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity05.class);
+		this.validator = BeanValidationValidator.createBuilder().directConstraints(true).build();
+		this.plainValidator = new BeanValidationValidator();
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		this.entityDescriptor = model.getEntity(Entity05.class);
+	}
+
+	/**
+	 * Measure allocation and throughput of valid primitive values.
+	 * 
+	 * @see BeanValidationValidator#validateIntValue(PropertyDescriptor, int)
+	 */
+	@Test
+	public void testBenchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(TestPrimitiveValues.BENCHMARK_PROPERTY));
+		final PropertyDescriptor<Integer, Entity05> count = this.resolve("count");
+		// Warm up.
+		for (int i = 0; i < TestPrimitiveValues.ITERATIONS; i++) {
+			this.validator.validateIntValue(count, 1 + (i % 10));
+			this.validator.validateValue(count, Integer.valueOf(1 + (i % 10)));
+		}
+		long allocated = TestPrimitiveValues.allocatedBytes();
+		long begin = System.nanoTime();
+		for (int i = 0; i < TestPrimitiveValues.ITERATIONS; i++) {
+			Assert.assertTrue(this.validator.validateIntValue(count, 1 + (i % 10)).isEmpty());
+		}
+		final double primitive = this.log("primitive", begin, allocated);
+		allocated = TestPrimitiveValues.allocatedBytes();
+		begin = System.nanoTime();
+		for (int i = 0; i < TestPrimitiveValues.ITERATIONS; i++) {
+			Assert.assertTrue(this.validator.validateValue(count, Integer.valueOf(1 + (i % 10))).isEmpty());
+		}
+		final double boxed = this.log("boxed", begin, allocated);
+		Assert.assertTrue("Primitive validation allocates more than boxed validation.", primitive <= boxed);
+	}
+
+	/**
+	 * Test primitive values are validated by the provider if direct
+	 * constraints are disabled.
+	 * 
+	 * @see BeanValidationValidator.Builder#directConstraints(boolean)
+	 */
+	@Test
+	public void testDisabled() throws Exception {
+		final PropertyDescriptor<Integer, Entity05> count = this.resolve("count");
+		final PropertyDescriptor<Long, Entity05> quantity = this.resolve("quantity");
+		final PropertyDescriptor<Double, Entity05> price = this.resolve("price");
+		for (final int value : new int[] { 0, 5, 11 }) {
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateIntValue(count, value)),
+					TestPrimitiveValues.describe(this.plainValidator.validateIntValue(count, value)));
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateLongValue(quantity, value)),
+					TestPrimitiveValues.describe(this.plainValidator.validateLongValue(quantity, value)));
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateDoubleValue(price, value)),
+					TestPrimitiveValues.describe(this.plainValidator.validateDoubleValue(price, value)));
+		}
+	}
+
+	/**
+	 * Test double values.
+	 * 
+	 * @see BeanValidationValidator#validateDoubleValue(PropertyDescriptor,
+	 *      double)
+	 */
+	@Test
+	public void testDouble() throws Exception {
+		final PropertyDescriptor<Double, Entity05> price = this.resolve("price");
+		for (final double value : new double[] { 0d, -1d, 1000d, 1000.5d, Double.NaN, Double.NEGATIVE_INFINITY,
+				Double.POSITIVE_INFINITY }) {
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateValue(price, Double.valueOf(value))),
+					TestPrimitiveValues.describe(this.validator.validateDoubleValue(price, value)));
+		}
+		Assert.assertTrue(this.validator.validateDoubleValue(price, 1d).isEmpty());
+		Assert.assertEquals(1, this.validator.validateDoubleValue(price, 1001d).size());
+	}
+
+	/**
+	 * Test integer values.
+	 * 
+	 * @see BeanValidationValidator#validateIntValue(PropertyDescriptor, int)
+	 */
+	@Test
+	public void testInt() throws Exception {
+		final PropertyDescriptor<Integer, Entity05> count = this.resolve("count");
+		for (final int value : new int[] { Integer.MIN_VALUE, 0, 1, 10, 11, Integer.MAX_VALUE }) {
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateValue(count, Integer.valueOf(value))),
+					TestPrimitiveValues.describe(this.validator.validateIntValue(count, value)));
+		}
+		Assert.assertTrue(this.validator.validateIntValue(count, 5).isEmpty());
+		Assert.assertEquals(1, this.validator.validateIntValue(count, 0).size());
+	}
+
+	/**
+	 * Test long values.
+	 * 
+	 * @see BeanValidationValidator#validateLongValue(PropertyDescriptor, long)
+	 */
+	@Test
+	public void testLong() throws Exception {
+		final PropertyDescriptor<Long, Entity05> quantity = this.resolve("quantity");
+		for (final long value : new long[] { Long.MIN_VALUE, -1L, 0L, 9999L, 10000L, Long.MAX_VALUE }) {
+			Assert.assertEquals(TestPrimitiveValues.describe(this.validator.validateValue(quantity, Long.valueOf(value))),
+					TestPrimitiveValues.describe(this.validator.validateLongValue(quantity, value)));
+		}
+		Assert.assertTrue(this.validator.validateLongValue(quantity, 9999L).isEmpty());
+		Assert.assertEquals(1, this.validator.validateLongValue(quantity, 10000L).size());
+		Assert.assertEquals(2, this.validator.validateLongValue(quantity, -10000L).size());
+	}
+
+	/**
+	 * Logs a benchmark result.
+	 * 
+	 * @param name
+	 *            The benchmark name.
+	 * @param begin
+	 *            The begin time.
+	 * @param allocated
+	 *            The allocated bytes before the benchmark.
+	 * @return The allocated bytes per operation.
+	 */
+	private double log(final String name, final long begin, final long allocated) {
+		final long elapsed = System.nanoTime() - begin;
+		final double bytes = ((double) (TestPrimitiveValues.allocatedBytes() - allocated)) / TestPrimitiveValues.ITERATIONS;
+		final double throughput = ((double) TestPrimitiveValues.ITERATIONS * TimeUnit.SECONDS.toNanos(1)) / elapsed;
+		TestPrimitiveValues.LOGGER.info("Value validation {}: {} ops/s, {} bytes/op.", name, String.format("%.0f", throughput),
+				String.format("%.1f", bytes));
+		return bytes;
+	}
+
+	/**
+	 * Resolves a property.
+	 * 
+	 * @param name
+	 *            The property name.
+	 * @param <P>
+	 *            The property type.
+	 * @return The property.
+	 */
+	@SuppressWarnings("unchecked")
+	private <P> PropertyDescriptor<P, Entity05> resolve(final String name) {
+		return (PropertyDescriptor<P, Entity05>) this.entityDescriptor.getProperty(name);
+	}
+}
@@ -0,0 +1,175 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.Max;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.model.operation.OperationDescriptor;
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.util.OperationInvocationBuilder;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.DistinctParameters;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.DistinctParametersValidator;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+
+/**
+ * Test constraint profiling.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see ConstraintProfiler
+ */
+public class TestProfiling {
+	/** The entity descriptor. */
+	private EntityDescriptor<Entity05> entityDescriptor;
+	/** The model. */
+	private Model<Object> model;
+	/** The profiling validator. */
+	private BeanValidationValidator validator;
+
+	/** Setup the profiling tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity05.class);
+		this.validator = BeanValidationValidator.createBuilder().profiling(true).build();
+		this.model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		this.entityDescriptor = this.model.getEntity(Entity05.class);
+	}
+
+	/**
+	 * Test the provider validates no further properties once a consumer has
+	 * stopped.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object,
+	 *      java.util.Locale, Deadline, ViolationConsumer)
+	 */
+	@Test
+	public void testConsumerStop() throws Exception {
+		final AtomicInteger consumed = new AtomicInteger();
+		this.validator.validate(this.entityDescriptor, new Entity05(), null, null, new ViolationConsumer<Object>() {
+			@Override
+			public boolean consume(final Object violation) {
+				consumed.incrementAndGet();
+				return false;
+			}
+		});
+		Assert.assertEquals(1, consumed.get());
+		final Set<String> invalid = new HashSet<String>(Arrays.asList("accepted", "count", "items", "name"));
+		int validated = 0;
+		for (final ConstraintProfile profile : this.validator.getProfiler().getTopConstraints(Entity05.class, Integer.MAX_VALUE)) {
+			if (invalid.remove(profile.getPropertyName())) {
+				validated++;
+			}
+		}
+		Assert.assertEquals(1, validated);
+	}
+
+	/**
+	 * Test profiling is off by default.
+	 * 
+	 * @see BeanValidationValidator#getProfiler()
+	 */
+	@Test
+	public void testDisabled() throws Exception {
+		Assert.assertNull(new BeanValidationValidator().getProfiler());
+		Assert.assertNull(BeanValidationValidator.createBuilder().build().getProfiler());
+	}
+
+	/**
+	 * Test constraints that the tracked types do not declare are not booked
+	 * on them.
+	 * 
+	 * @see ConstraintProfiler#getUnattributedCount()
+	 */
+	@Test
+	public void testAttribution() throws Exception {
+		this.validator.validate(this.entityDescriptor, new Entity05());
+		final OperationDescriptor<Entity01> op = this.model.getEntity(Entity01.class).getOperation("range");
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+		builder.target(new Entity01());
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> first = (ParameterDescriptor<String>) op.getParameter(0);
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> second = (ParameterDescriptor<String>) op.getParameter(1);
+		builder.parameter(first, "value");
+		builder.parameter(second, "value");
+		final int invocations = DistinctParametersValidator.INVOCATIONS.get();
+		this.validator.validateInvocation(builder);
+		Assert.assertEquals(invocations + 1, DistinctParametersValidator.INVOCATIONS.get());
+		final ConstraintProfiler profiler = this.validator.getProfiler();
+		for (final ConstraintProfile profile : profiler.getTopConstraints(Entity05.class, Integer.MAX_VALUE)) {
+			Assert.assertFalse(DistinctParameters.class.equals(profile.getConstraintType()));
+		}
+		Assert.assertFalse(profiler.getEntityTypes().contains(Object.class));
+		profiler.reset();
+		Assert.assertEquals(0, profiler.getUnattributedCount());
+	}
+
+	/**
+	 * Test the profile of an entity.
+	 * 
+	 * @see ConstraintProfiler#getTopConstraints(Class, int)
+	 */
+	@Test
+	public void testProfile() throws Exception {
+		final Entity05 entity = new Entity05();
+		for (int i = 0; i < 10; i++) {
+			this.validator.validate(this.entityDescriptor, entity);
+		}
+		final ConstraintProfiler profiler = this.validator.getProfiler();
+		Assert.assertTrue(profiler.getEntityTypes().contains(Entity05.class));
+		final List<ConstraintProfile> profiles = profiler.getTopConstraints(Entity05.class, 3);
+		Assert.assertEquals(3, profiles.size());
+		long previous = Long.MAX_VALUE;
+		for (final ConstraintProfile profile : profiles) {
+			Assert.assertEquals(Entity05.class, profile.getEntityType());
+			Assert.assertTrue(profile.getInvocationCount() >= 10);
+			Assert.assertTrue(profile.getTotalTime(TimeUnit.NANOSECONDS) <= previous);
+			previous = profile.getTotalTime(TimeUnit.NANOSECONDS);
+		}
+		boolean found = false;
+		for (final ConstraintProfile profile : profiler.getTopConstraints(Entity05.class, Integer.MAX_VALUE)) {
+			if ("price".equals(profile.getPropertyName())) {
+				Assert.assertEquals(Max.class, profile.getConstraintType());
+				Assert.assertEquals(10, profile.getInvocationCount());
+				found = true;
+			}
+		}
+		Assert.assertTrue(found);
+		profiler.reset();
+		Assert.assertTrue(profiler.getTopConstraints(Entity05.class, 3).isEmpty());
+	}
+}
@@ -0,0 +1,264 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+
+/**
+ * Test redeploying models does not keep class loaders reachable. Providers
+ * keep metadata through soft references, which the surefire configuration
+ * has cleared on every collection.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see TypeCache
+ */
+public class TestRedeploy {
+	/** The size of a chunk of memory pressure. */
+	private static final int CHUNK = 1 << 20;
+	/** The number of chunks of memory pressure per collection. */
+	private static final int CHUNKS = 16;
+	/** The number of redeploys. */
+	private static final int REDEPLOYS = 20;
+	/** The time to wait for collection, in seconds. */
+	private static final int TIMEOUT = 30;
+
+	/** A long living validator. */
+	private BeanValidationValidator validator;
+
+	/** Setup the redeploy tests. */
+	@Before
+	public void setup() throws Exception {
+		this.validator = BeanValidationValidator.createBuilder().directConstraints(true).profiling(true).build();
+	}
+
+	/**
+	 * Test redeployed class loaders are collected.
+	 * 
+	 * @see BeanValidationValidator#invalidate(Model)
+	 */
+	@Test
+	public void testRedeploy() throws Exception {
+		final List<WeakReference<ClassLoader>> loaders = new LinkedList<WeakReference<ClassLoader>>();
+		for (int i = 0; i < TestRedeploy.REDEPLOYS; i++) {
+			loaders.add(this.deploy(true));
+		}
+		this.collect(loaders);
+		for (final WeakReference<ClassLoader> loader : loaders) {
+			Assert.assertNull(loader.get());
+		}
+	}
+
+	/**
+	 * Test profiled types do not keep their class loaders reachable, even if
+	 * the model is not invalidated.
+	 * 
+	 * @see ConstraintProfiler
+	 */
+	@Test
+	public void testProfiler() throws Exception {
+		final List<WeakReference<ClassLoader>> loaders = new LinkedList<WeakReference<ClassLoader>>();
+		for (int i = 0; i < TestRedeploy.REDEPLOYS; i++) {
+			loaders.add(this.deploy(false));
+		}
+		this.collect(loaders);
+		for (final WeakReference<ClassLoader> loader : loaders) {
+			Assert.assertNull(loader.get());
+		}
+	}
+
+	/**
+	 * Test a type cache loads once and reloads after invalidation.
+	 * 
+	 * @see TypeCache#invalidate(Class)
+	 */
+	@Test
+	public void testTypeCache() throws Exception {
+		final TypeCache<Object> cache = new TypeCache<Object>(new TypeCache.Loader<Object>() {
+			/** {@inheritDoc} */
+			@Override
+			public Object load(final Class<?> type) {
+				return new Object();
+			}
+		});
+		final Object value = cache.get(Entity05.class);
+		Assert.assertSame(value, cache.get(Entity05.class));
+		cache.invalidate(Entity05.class);
+		Assert.assertNotSame(value, cache.get(Entity05.class));
+	}
+
+	/**
+	 * Collects garbage until all loaders are collected, or the timeout
+	 * expires. Every round adds a bounded amount of memory pressure, which is
+	 * released before the next round.
+	 * 
+	 * @param loaders
+	 *            The loaders.
+	 * @throws InterruptedException
+	 *             Thrown if interrupted while waiting.
+	 */
+	private void collect(final List<WeakReference<ClassLoader>> loaders) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TestRedeploy.TIMEOUT);
+		System.gc();
+		while (!this.isCollected(loaders) && (System.nanoTime() < deadline)) {
+			final List<byte[]> pressure = new LinkedList<byte[]>();
+			for (int i = 0; i < TestRedeploy.CHUNKS; i++) {
+				pressure.add(new byte[TestRedeploy.CHUNK]);
+			}
+			pressure.clear();
+			System.gc();
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Deploys a model of a copy of an entity type in a throwaway class
+	 * loader, validates it and undeploys it.
+	 * 
+	 * @param invalidate
+	 *            Whether to invalidate the model on undeploy.
+	 * @return A reference to the class loader.
+	 */
+	private WeakReference<ClassLoader> deploy(final boolean invalidate) throws Exception {
+		final ThrowawayClassLoader loader = new ThrowawayClassLoader(Entity05.class.getName());
+		final Class<?> type = loader.loadClass(Entity05.class.getName());
+		Assert.assertNotSame(Entity05.class, type);
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(type);
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		this.validate(model.getEntity(type));
+		Assert.assertTrue(this.validator.getProfiler().getEntityTypes().contains(type));
+		if (invalidate) {
+			this.validator.invalidate(model);
+			Assert.assertFalse(this.validator.getProfiler().getEntityTypes().contains(type));
+		}
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	/**
+	 * Tests if all loaders are collected.
+	 * 
+	 * @param loaders
+	 *            The loaders.
+	 * @return True if and only if all loaders are collected.
+	 */
+	private boolean isCollected(final List<WeakReference<ClassLoader>> loaders) {
+		boolean result = true;
+		for (final WeakReference<ClassLoader> loader : loaders) {
+			result = result && (loader.get() == null);
+		}
+		return result;
+	}
+
+	/**
+	 * Validates a new entity.
+	 * 
+	 * @param entityDescriptor
+	 *            The entity descriptor.
+	 * @param <E>
+	 *            The entity type.
+	 */
+	private <E> void validate(final EntityDescriptor<E> entityDescriptor) throws Exception {
+		final E entity = entityDescriptor.getEntityType().newInstance();
+		Assert.assertFalse(this.validator.validate(entityDescriptor, entity).isEmpty());
+	}
+
+	/**
+	 * A class loader that defines its own copy of a class.
+	 * 
+	 * @author Pal Hargitai (pal@lunarray.org)
+	 */
+	private static final class ThrowawayClassLoader
+			extends ClassLoader {
+		/** The name of the copied class. */
+		private final String name;
+
+		/**
+		 * Constructs the class loader.
+		 * 
+		 * @param name
+		 *            The name of the copied class.
+		 */
+		protected ThrowawayClassLoader(final String name) {
+			super(TestRedeploy.class.getClassLoader());
+			this.name = name;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		protected Class<?> loadClass(final String className, final boolean resolve) throws ClassNotFoundException {
+			Class<?> result;
+			if (this.name.equals(className)) {
+				result = this.findLoadedClass(className);
+				if (result == null) {
+					final byte[] bytes = this.read(className);
+					result = this.defineClass(className, bytes, 0, bytes.length);
+				}
+			} else {
+				result = super.loadClass(className, resolve);
+			}
+			return result;
+		}
+
+		/**
+		 * Reads the bytes of a class from the parent.
+		 * 
+		 * @param className
+		 *            The class name.
+		 * @return The bytes.
+		 * @throws ClassNotFoundException
+		 *             Thrown if the class could not be read.
+		 */
+		private byte[] read(final String className) throws ClassNotFoundException {
+			final InputStream input = this.getParent().getResourceAsStream(className.replace('.', '/') + ".class");
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			try {
+				try {
+					final byte[] buffer = new byte[4096];
+					int read = input.read(buffer);
+					while (read >= 0) {
+						output.write(buffer, 0, read);
+						read = input.read(buffer);
+					}
+				} finally {
+					input.close();
+				}
+			} catch (final IOException e) {
+				throw new ClassNotFoundException(className, e);
+			}
+			return output.toByteArray();
+		}
+	}
+}
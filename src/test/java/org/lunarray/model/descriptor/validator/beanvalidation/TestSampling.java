@@ -0,0 +1,191 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.qualifier.QualifierEntityDescriptor;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.lunarray.model.descriptor.validator.PropertyViolation;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
+
+/**
+ * Test sampled validation of qualifier groups.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see SamplingPolicy
+ */
+public class TestSampling {
+	/** The entity descriptor. */
+	private EntityDescriptor<Entity01> entityDescriptor;
+	/** The sampled violation counts. */
+	private List<Integer> samples;
+
+	/** Setup the sampling tests. */
+	@Before
+	public void setup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class);
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), new BeanValidationValidator()).resources(resource).build();
+		this.entityDescriptor = model.getEntity(Entity01.class);
+		this.samples = new CopyOnWriteArrayList<Integer>();
+	}
+
+	/**
+	 * Test a policy requires an executor, so the listener never delays the
+	 * sampled call.
+	 * 
+	 * @see SamplingPolicy.Builder#executor(Executor)
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testExecutor() throws Exception {
+		SamplingPolicy.createBuilder().group(Qualifier01.class).listener(this.createListener()).build();
+	}
+
+	/**
+	 * Test no calls are sampled with a zero fraction.
+	 * 
+	 * @see SamplingPolicy.Builder#fraction(double)
+	 */
+	@Test
+	public void testFraction() throws Exception {
+		final BeanValidationValidator validator = this.createValidator(this.createPolicy().fraction(0d));
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(2, validator.validate(this.entityDescriptor, new Entity01()).size());
+		}
+		Assert.assertTrue(this.samples.isEmpty());
+	}
+
+	/**
+	 * Test the rate limits the number of samples.
+	 * 
+	 * @see SamplingPolicy.Builder#ratePerSecond(int)
+	 */
+	@Test
+	public void testRate() throws Exception {
+		final BeanValidationValidator validator = this.createValidator(this.createPolicy().ratePerSecond(1));
+		for (int i = 0; i < 10; i++) {
+			validator.validate(this.entityDescriptor, new Entity01());
+		}
+		Assert.assertTrue(this.samples.size() >= 1);
+		Assert.assertTrue(this.samples.size() <= 2);
+	}
+
+	/**
+	 * Test sampled groups are reported, not validated on the blocking path.
+	 * 
+	 * @see BeanValidationValidator.Builder#samplingPolicy(SamplingPolicy)
+	 */
+	@Test
+	public void testSampled() throws Exception {
+		final BeanValidationValidator validator = this.createValidator(this.createPolicy());
+		Assert.assertEquals(2, validator.validate(this.entityDescriptor, new Entity01()).size());
+		Assert.assertEquals(1, this.samples.size());
+		Assert.assertEquals(Integer.valueOf(1), this.samples.get(0));
+		@SuppressWarnings("unchecked")
+		final EntityDescriptor<Entity01> qualifierDescriptor = this.entityDescriptor.adapt(QualifierEntityDescriptor.class)
+				.getQualifierEntity(Qualifier01.class);
+		Assert.assertEquals(2, validator.validate(qualifierDescriptor, new Entity01()).size());
+		Assert.assertEquals(2, this.samples.size());
+	}
+
+	/**
+	 * Test sampled groups are validated on the sampled call, so that later
+	 * changes of the entity do not affect the reported sample.
+	 * 
+	 * @see EntitySampler
+	 */
+	@Test
+	public void testSampledCall() throws Exception {
+		final List<Runnable> reports = new LinkedList<Runnable>();
+		final Executor executor = new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				reports.add(command);
+			}
+		};
+		final BeanValidationValidator validator = this.createValidator(this.createPolicy().executor(executor));
+		final Entity01 entity = new Entity01();
+		Assert.assertEquals(2, validator.validate(this.entityDescriptor, entity).size());
+		entity.getSomeList().add("value");
+		Assert.assertTrue(this.samples.isEmpty());
+		Assert.assertEquals(1, reports.size());
+		reports.get(0).run();
+		Assert.assertEquals(1, this.samples.size());
+		Assert.assertEquals(Integer.valueOf(1), this.samples.get(0));
+	}
+
+	/**
+	 * Creates a listener, counting the sampled violations.
+	 * 
+	 * @return The listener.
+	 */
+	private SampleListener createListener() {
+		return new SampleListener() {
+			/** {@inheritDoc} */
+			@Override
+			public <E> void sampled(final EntityDescriptor<E> entityDescriptor, final E entity, final Class<?> group,
+					final ValidationResult<PropertyViolation<E, ?>> violations) {
+				Assert.assertEquals(Qualifier01.class, group);
+				TestSampling.this.samples.add(Integer.valueOf(violations.size()));
+			}
+		};
+	}
+
+	/**
+	 * Creates a policy builder, sampling the qualifier on every call. Samples
+	 * are reported in the calling thread, so that they may be counted right
+	 * away.
+	 * 
+	 * @return The builder.
+	 */
+	private SamplingPolicy.Builder createPolicy() {
+		final Executor executor = new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				command.run();
+			}
+		};
+		return SamplingPolicy.createBuilder().group(Qualifier01.class).fraction(1d).executor(executor).listener(this.createListener());
+	}
+
+	/**
+	 * Creates a sampling validator.
+	 * 
+	 * @param policy
+	 *            The policy builder.
+	 * @return The validator.
+	 */
+	private BeanValidationValidator createValidator(final SamplingPolicy.Builder policy) {
+		return BeanValidationValidator.createBuilder().samplingPolicy(policy.build()).build();
+	}
+}
@@ -0,0 +1,438 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.lunarray.model.descriptor.builder.annotation.presentation.builder.PresQualBuilder;
+import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory;
+import org.lunarray.model.descriptor.model.Model;
+import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
+import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
+import org.lunarray.model.descriptor.resource.simpleresource.SimpleClazzResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Soak test the validator on a generated model. The model has a configurable
+ * number of entities and properties, constraint density, embedded nesting
+ * depth and list size. It is compiled at test time, built with the validator
+ * registered and validated for a fixed duration, after which throughput,
+ * latency percentiles, garbage collections and the heap high-water mark are
+ * reported. The soak is skipped unless the system property
+ * {@value #SOAK_PROPERTY} is true, as set by the <code>performance</code>
+ * profile. The size may be tuned with the system properties
+ * {@value #ENTITIES_PROPERTY}, {@value #PROPERTIES_PROPERTY},
+ * {@value #DENSITY_PROPERTY}, {@value #DEPTH_PROPERTY},
+ * {@value #COLLECTION_PROPERTY} and {@value #DURATION_PROPERTY}.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ * @see BeanValidationValidator
+ */
+public class TestSoak {
+	/** The list size property. */
+	public static final String COLLECTION_PROPERTY = "lunarray.soak.collection";
+	/** The constraint density property, in percent of the properties. */
+	public static final String DENSITY_PROPERTY = "lunarray.soak.density";
+	/** The embedded nesting depth property. */
+	public static final String DEPTH_PROPERTY = "lunarray.soak.depth";
+	/** The soak duration property, in milliseconds. */
+	public static final String DURATION_PROPERTY = "lunarray.soak.duration";
+	/** The entity count property. */
+	public static final String ENTITIES_PROPERTY = "lunarray.soak.entities";
+	/** The property count property. */
+	public static final String PROPERTIES_PROPERTY = "lunarray.soak.properties";
+	/** The property enabling the soak. */
+	public static final String SOAK_PROPERTY = "lunarray.soak";
+	/** The number of constraint kinds. */
+	private static final int KINDS = 4;
+	/** The logger. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(TestSoak.class);
+	/** The package of the generated model. */
+	private static final String PACKAGE = "org.lunarray.model.descriptor.validator.beanvalidation.synthetic";
+	/** The reported percentiles. */
+	private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	/**
+	 * Sums the garbage collections.
+	 * 
+	 * @return The collection count and time, in milliseconds.
+	 */
+	private static long[] collections() {
+		final long[] result = new long[2];
+		for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			result[0] += Math.max(0, bean.getCollectionCount());
+			result[1] += Math.max(0, bean.getCollectionTime());
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes a file or directory.
+	 * 
+	 * @param file
+	 *            The file.
+	 */
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				TestSoak.delete(child);
+			}
+		}
+		Assert.assertTrue(file.delete());
+	}
+
+	/**
+	 * Tests if a property is constrained.
+	 * 
+	 * @param index
+	 *            The property index.
+	 * @param density
+	 *            The constraint density.
+	 * @return True if and only if the property is constrained. Constrained
+	 *         properties are spread evenly.
+	 */
+	private static boolean isConstrained(final int index, final int density) {
+		return (((index + 1) * density) / 100) > ((index * density) / 100);
+	}
+
+	/** The collection size. */
+	private int collection;
+	/** The constraint density. */
+	private int density;
+	/** The nesting depth. */
+	private int depth;
+	/** The directory of the generated model. */
+	private File directory;
+	/** The generated entity types. */
+	private List<Class<?>> entityTypes;
+	/** The expected violations per entity. */
+	private int expected;
+	/** The class loader of the generated model. */
+	private URLClassLoader loader;
+	/** The property count. */
+	private int properties;
+
+	/** Cleanup the generated model. */
+	@After
+	public void cleanup() throws Exception {
+		if (this.loader != null) {
+			this.loader.close();
+		}
+		if (this.directory != null) {
+			TestSoak.delete(this.directory);
+		}
+	}
+
+	/** Setup the soak tests. */
+	@Before
+	public void setup() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(TestSoak.SOAK_PROPERTY));
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assume.assumeNotNull(compiler);
+		final int entities = this.intProperty(TestSoak.ENTITIES_PROPERTY, 20);
+		this.properties = this.intProperty(TestSoak.PROPERTIES_PROPERTY, 10);
+		this.density = this.intProperty(TestSoak.DENSITY_PROPERTY, 50);
+		this.depth = this.intProperty(TestSoak.DEPTH_PROPERTY, 2);
+		this.collection = this.intProperty(TestSoak.COLLECTION_PROPERTY, 5);
+		final long begin = System.nanoTime();
+		this.directory = File.createTempFile("soak", "");
+		Assert.assertTrue(this.directory.delete() && this.directory.mkdir());
+		final List<File> sources = new ArrayList<File>();
+		final List<String> rootNames = new ArrayList<String>();
+		for (int i = 0; i < entities; i++) {
+			final String name = "Synthetic" + i;
+			for (int level = this.depth; level > 0; level--) {
+				final String nested = level == this.depth ? null : name + "Level" + (level + 1);
+				sources.add(this.generate(name + "Level" + level, nested, null));
+			}
+			sources.add(this.generate(name + "Item", null, null));
+			sources.add(this.generate(name, this.depth > 0 ? name + "Level1" : null, name + "Item"));
+			rootNames.add(name);
+			rootNames.add(name + "Item");
+		}
+		this.compile(compiler, sources);
+		this.loader = new URLClassLoader(new URL[] { this.directory.toURI().toURL() }, TestSoak.class.getClassLoader());
+		this.entityTypes = new ArrayList<Class<?>>();
+		for (final String name : rootNames) {
+			this.entityTypes.add(this.loader.loadClass(TestSoak.PACKAGE + "." + name));
+		}
+		int constrained = 0;
+		for (int j = 0; j < this.properties; j++) {
+			if (TestSoak.isConstrained(j, this.density)) {
+				constrained++;
+			}
+		}
+		this.expected = ((constrained + 2) / 3) * (1 + this.depth + this.collection);
+		TestSoak.LOGGER.info("Generated {} entities with {} properties, density {}%, depth {}, lists of {} in {} ms.", entities,
+				this.properties, this.density, this.depth, this.collection,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+	}
+
+	/**
+	 * Soak the default validator.
+	 * 
+	 * @see BeanValidationValidator
+	 */
+	@Test
+	public void testDefault() throws Exception {
+		this.soak("default", new BeanValidationValidator());
+	}
+
+	/**
+	 * Soak the validator with direct constraints.
+	 * 
+	 * @see BeanValidationValidator.Builder#directConstraints(boolean)
+	 */
+	@Test
+	public void testDirect() throws Exception {
+		this.soak("direct", BeanValidationValidator.createBuilder().directConstraints(true).build());
+	}
+
+	/**
+	 * Compiles the generated sources.
+	 * 
+	 * @param compiler
+	 *            The compiler.
+	 * @param sources
+	 *            The sources.
+	 * @throws IOException
+	 *             Thrown if the sources could not be read.
+	 */
+	private void compile(final JavaCompiler compiler, final List<File> sources) throws IOException {
+		final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+		try {
+			final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+			final List<String> options = Arrays.asList("-d", this.directory.getPath(), "-classpath",
+					System.getProperty("java.class.path"), "-proc:none", "-nowarn");
+			Assert.assertTrue("Could not compile the model.", compiler.getTask(null, fileManager, null, options, null, units).call()
+					.booleanValue());
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	/**
+	 * Generates the source of a model type. Every type has the configured
+	 * number of properties, cycling through the constraint kinds; every third
+	 * constrained property is invalid.
+	 * 
+	 * @param name
+	 *            The simple type name.
+	 * @param nested
+	 *            The simple name of the embedded type, may be null.
+	 * @param item
+	 *            The simple name of the list item type, may be null.
+	 * @return The source file.
+	 * @throws IOException
+	 *             Thrown if the source could not be written.
+	 */
+	private File generate(final String name, final String nested, final String item) throws IOException {
+		final StringBuilder fields = new StringBuilder();
+		final StringBuilder accessors = new StringBuilder();
+		int constrained = 0;
+		for (int j = 0; j < this.properties; j++) {
+			final String property = "property" + j;
+			String type = "String";
+			String value = "\"value\"";
+			if (TestSoak.isConstrained(j, this.density)) {
+				final boolean invalid = (constrained % 3) == 0;
+				switch (constrained % TestSoak.KINDS) {
+				case 0:
+					fields.append("\t@javax.validation.constraints.NotNull\n");
+					value = invalid ? "null" : value;
+					break;
+				case 1:
+					fields.append("\t@javax.validation.constraints.Size(min = 2, max = 8)\n");
+					value = invalid ? "\"x\"" : value;
+					break;
+				case 2:
+					fields.append("\t@javax.validation.constraints.Pattern(regexp = \"[a-z]+\")\n");
+					value = invalid ? "\"X1\"" : value;
+					break;
+				default:
+					fields.append("\t@javax.validation.constraints.Min(1)\n");
+					type = "int";
+					value = invalid ? "0" : "1";
+					break;
+				}
+				constrained++;
+			}
+			this.generateProperty(fields, accessors, type, property, value);
+		}
+		if (nested != null) {
+			fields.append("\t@javax.validation.Valid\n\t@org.lunarray.model.descriptor.model.annotations.Embedded\n");
+			this.generateProperty(fields, accessors, nested, "nested", "new " + nested + "()");
+		}
+		final StringBuilder constructor = new StringBuilder();
+		if (item != null) {
+			fields.append("\t@javax.validation.Valid\n");
+			this.generateProperty(fields, accessors, "java.util.List<" + item + ">", "items", "new java.util.ArrayList<" + item
+					+ ">()");
+			constructor.append("\tpublic ").append(name).append("() {\n");
+			constructor.append("\t\tfor (int i = 0; i < ").append(this.collection).append("; i++) {\n");
+			constructor.append("\t\t\tthis.items.add(new ").append(item).append("());\n\t\t}\n\t}\n");
+		}
+		final File source = new File(this.directory, name + ".java");
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(source), StandardCharsets.UTF_8);
+		try {
+			writer.append("package ").append(TestSoak.PACKAGE).append(";\n\npublic class ").append(name).append(" {\n");
+			writer.append(fields).append(constructor).append(accessors).append("}\n");
+		} finally {
+			writer.close();
+		}
+		return source;
+	}
+
+	/**
+	 * Generates a property with accessors.
+	 * 
+	 * @param fields
+	 *            The fields to append to.
+	 * @param accessors
+	 *            The accessors to append to.
+	 * @param type
+	 *            The property type.
+	 * @param property
+	 *            The property name.
+	 * @param value
+	 *            The initial value.
+	 */
+	private void generateProperty(final StringBuilder fields, final StringBuilder accessors, final String type,
+			final String property, final String value) {
+		final String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		fields.append("\tprivate ").append(type).append(' ').append(property).append(" = ").append(value).append(";\n");
+		accessors.append("\tpublic ").append(type).append(" get").append(suffix).append("() {\n\t\treturn this.").append(property)
+				.append(";\n\t}\n");
+		accessors.append("\tpublic void set").append(suffix).append('(').append(type).append(" value) {\n\t\tthis.")
+				.append(property).append(" = value;\n\t}\n");
+	}
+
+	/**
+	 * Resolves an integer system property.
+	 * 
+	 * @param name
+	 *            The property name.
+	 * @param defaultValue
+	 *            The default value.
+	 * @return The value.
+	 */
+	private int intProperty(final String name, final int defaultValue) {
+		return Integer.parseInt(System.getProperty(name, Integer.toString(defaultValue)));
+	}
+
+	/**
+	 * Soak a validator.
+	 * 
+	 * @param name
+	 *            The configuration name.
+	 * @param validator
+	 *            The validator.
+	 * @throws Exception
+	 *             Thrown if the test failed.
+	 */
+	private void soak(final String name, final BeanValidationValidator validator) throws Exception {
+		long begin = System.nanoTime();
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(this.entityTypes.toArray(new Class<?>[0]));
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), validator).resources(resource).build();
+		final List<EntityDescriptor<Object>> roots = new ArrayList<EntityDescriptor<Object>>();
+		for (int i = 0; i < this.entityTypes.size(); i = i + 2) {
+			@SuppressWarnings("unchecked")
+			final EntityDescriptor<Object> descriptor = (EntityDescriptor<Object>) model.getEntity(this.entityTypes.get(i));
+			roots.add(descriptor);
+		}
+		TestSoak.LOGGER.info("Validator {}: built the model in {} ms.", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+		// Warm up.
+		for (final EntityDescriptor<Object> descriptor : roots) {
+			Assert.assertEquals(this.expected, validator.validate(descriptor, descriptor.getEntityType().newInstance()).size());
+		}
+		final long duration = TimeUnit.MILLISECONDS.toNanos(this.intProperty(TestSoak.DURATION_PROPERTY, 2000));
+		final List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				pools.add(pool);
+			}
+		}
+		final long[] collectionsBefore = TestSoak.collections();
+		long[] latencies = new long[1024];
+		int count = 0;
+		int mismatches = 0;
+		begin = System.nanoTime();
+		long now = begin;
+		while ((now - begin) < duration) {
+			final EntityDescriptor<Object> descriptor = roots.get(count % roots.size());
+			final Object entity = descriptor.getEntityType().newInstance();
+			final long start = System.nanoTime();
+			final int violations = validator.validate(descriptor, entity).size();
+			now = System.nanoTime();
+			if (violations != this.expected) {
+				mismatches++;
+			}
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count] = now - start;
+			count++;
+		}
+		final long elapsed = now - begin;
+		final long[] collectionsAfter = TestSoak.collections();
+		long heap = 0;
+		for (final MemoryPoolMXBean pool : pools) {
+			heap += pool.getPeakUsage().getUsed();
+		}
+		Assert.assertEquals("Unexpected violation counts.", 0, mismatches);
+		Arrays.sort(latencies, 0, count);
+		final StringBuilder percentiles = new StringBuilder();
+		for (final double percentile : TestSoak.PERCENTILES) {
+			final int index = Math.max(0, (int) Math.ceil(percentile * count) - 1);
+			percentiles.append(String.format(" p%s %.1f us,", percentile * 100, latencies[index] / 1000d));
+		}
+		TestSoak.LOGGER.info("Validator {}: {} ops/s,{} max {} us, {} collections in {} ms, heap high-water {} MB.", name,
+				String.format("%.0f", ((double) count * TimeUnit.SECONDS.toNanos(1)) / elapsed), percentiles,
+				String.format("%.1f", latencies[count - 1] / 1000d), collectionsAfter[0] - collectionsBefore[0], collectionsAfter[1]
+						- collectionsBefore[1], heap >> 20);
+	}
+}
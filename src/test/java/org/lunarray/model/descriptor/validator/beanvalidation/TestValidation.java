@@ -17,11 +17,23 @@
  */
 package org.lunarray.model.descriptor.validator.beanvalidation;
 
+import java.lang.ref.WeakReference;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.validation.constraints.AssertTrue;
+import javax.validation.groups.Default;
+
+import org.hibernate.validator.constraints.NotEmpty;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +42,7 @@ import org.lunarray.model.descriptor.builder.annotation.resolver.ResolverFactory
 import org.lunarray.model.descriptor.model.Model;
 import org.lunarray.model.descriptor.model.entity.EntityDescriptor;
 import org.lunarray.model.descriptor.model.operation.OperationDescriptor;
+import org.lunarray.model.descriptor.model.operation.parameters.ParameterDescriptor;
 import org.lunarray.model.descriptor.model.property.PropertyDescriptor;
 import org.lunarray.model.descriptor.objectfactory.simple.SimpleObjectFactory;
 import org.lunarray.model.descriptor.qualifier.QualifierEntityDescriptor;
@@ -41,8 +54,15 @@ import org.lunarray.model.descriptor.validator.ParameterViolation;
 import org.lunarray.model.descriptor.validator.PropertyValidator;
 import org.lunarray.model.descriptor.validator.PropertyViolation;
 import org.lunarray.model.descriptor.validator.ValueValidator;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.DistinctParametersValidator;
 import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity01;
 import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity02;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity05;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity06;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity07;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity08;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity09;
+import org.lunarray.model.descriptor.validator.beanvalidation.model.Entity10;
 import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
 
 /**
@@ -52,6 +72,13 @@ import org.lunarray.model.descriptor.validator.beanvalidation.model.Qualifier01;
  * @see BeanValidationValidator
  */
 public class TestValidation {
+	/** The size of a chunk of memory pressure. */
+	private static final int CHUNK = 1 << 20;
+	/** The number of chunks of memory pressure per collection. */
+	private static final int CHUNKS = 16;
+	/** The time to wait for collection, in seconds. */
+	private static final int TIMEOUT = 10;
+
 	/** An entity instance. */
 	private Entity01 entity;
 	/** The entity descriptor. */
@@ -75,6 +102,196 @@ public class TestValidation {
 		this.entityDescriptor = model.getEntity(Entity01.class);
 	}
 
+	/**
+	 * Test incremental validation of a cascaded collection.
+	 * 
+	 * @see BeanValidationValidator#createCollectionSession(PropertyDescriptor,
+	 *      Locale, VersionExtractor)
+	 */
+	@Test
+	public void testCollectionSession() throws Exception {
+		@SuppressWarnings("rawtypes")
+		final PropertyDescriptor<List, Entity01> prop = this.entityDescriptor.getProperty("entityList", List.class);
+		@SuppressWarnings("rawtypes")
+		final CollectionValidationSession<Entity01, List> session = this.validator.createCollectionSession(prop, Locale.ENGLISH,
+				null);
+		final Entity02 element = new Entity02();
+		this.entity.getEntityList().add(element);
+		this.entity.getEntityList().add(new Entity02());
+		Assert.assertTrue(session.validate(this.entity).isEmpty());
+		Assert.assertEquals(2, session.getValidatedCount());
+		this.entity.getEntityList().add(new Entity02());
+		Assert.assertTrue(session.validate(this.entity).isEmpty());
+		Assert.assertEquals(3, session.getValidatedCount());
+		Assert.assertEquals(2, session.getReusedCount());
+		this.entity.getEntityList().remove(element);
+		this.entity.getEntityList().add(element);
+		session.validate(this.entity);
+		Assert.assertEquals(3, session.getValidatedCount());
+		session.invalidate();
+		session.validate(this.entity);
+		Assert.assertEquals(6, session.getValidatedCount());
+	}
+
+	/**
+	 * Test the elements of a collection are validated in the converted group.
+	 * 
+	 * @see BeanValidationValidator#createCollectionSession(PropertyDescriptor,
+	 *      Locale, VersionExtractor)
+	 */
+	@Test
+	public void testCollectionSessionConvertGroup() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity01.class, Entity02.class, Entity10.class);
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		final EntityDescriptor<Entity10> descriptor = model.getEntity(Entity10.class);
+		@SuppressWarnings("rawtypes")
+		final PropertyDescriptor<List, Entity10> prop = descriptor.getProperty("entries", List.class);
+		@SuppressWarnings("rawtypes")
+		final CollectionValidationSession<Entity10, List> session = this.validator.createCollectionSession(prop, Locale.ENGLISH,
+				null);
+		final Entity10 entity = new Entity10();
+		entity.getEntries().add(new Entity01());
+		final ValidationResult<PropertyViolation<Entity10, ?>> expected = this.validator.validate(descriptor, entity);
+		Assert.assertEquals(1, expected.size());
+		final ValidationResult<PropertyViolation<Entity10, List>> violations = session.validate(entity);
+		Assert.assertEquals(1, violations.size());
+		Assert.assertEquals(expected.iterator().next().getMessage(), violations.iterator().next().getMessage());
+	}
+
+	/**
+	 * Test equal violations of distinct set elements are all kept, though
+	 * they share their path.
+	 * 
+	 * @see BeanValidationValidator#createCollectionSession(PropertyDescriptor,
+	 *      Locale, VersionExtractor)
+	 */
+	@Test
+	public void testCollectionSessionSet() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity05.class, Entity09.class);
+		final BeanValidationValidator detached = BeanValidationValidator.createBuilder().detached(true).build();
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), detached).resources(resource).build();
+		@SuppressWarnings("rawtypes")
+		final PropertyDescriptor<Set, Entity09> prop = model.getEntity(Entity09.class).getProperty("entries", Set.class);
+		@SuppressWarnings("rawtypes")
+		final CollectionValidationSession<Entity09, Set> session = detached.createCollectionSession(prop, Locale.ENGLISH, null);
+		final Entity09 entity = new Entity09();
+		entity.getEntries().add(new Entity05());
+		final int single = session.validate(entity).size();
+		Assert.assertTrue(single > 0);
+		entity.getEntries().add(new Entity05());
+		Assert.assertEquals(2 * single, session.validate(entity).size());
+		final ValidationResult<PropertyViolation<Entity09, ?>> violations = detached.validate(model.getEntity(Entity09.class),
+				entity);
+		Assert.assertEquals(2 * single, violations.size());
+	}
+
+	/**
+	 * Test streaming violations to a consumer.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object, Locale,
+	 *      Deadline, ViolationConsumer)
+	 */
+	@Test
+	public void testConsumer() throws Exception {
+		final List<String> messages = new LinkedList<String>();
+		this.validator.validate(this.entityDescriptor, this.entity, Locale.ENGLISH, null,
+				new ViolationConsumer<PropertyViolation<Entity01, ?>>() {
+					@Override
+					public boolean consume(final PropertyViolation<Entity01, ?> violation) {
+						messages.add(violation.getMessage());
+						return true;
+					}
+				});
+		Assert.assertEquals(2, messages.size());
+		Assert.assertTrue(messages.contains("may not be empty"));
+		messages.clear();
+		final ViolationConsumer<Object> first = new ViolationConsumer<Object>() {
+			@Override
+			public boolean consume(final Object violation) {
+				messages.add(violation.toString());
+				return false;
+			}
+		};
+		this.validator.validate(this.entityDescriptor, this.entity, null, null, first);
+		Assert.assertEquals(1, messages.size());
+		final PropertyDescriptor<String, Entity01> prop = this.entityDescriptor.getProperty("value", String.class);
+		this.validator.validateProperty(prop, this.entity, null, null, first);
+		this.validator.validateValue(prop, "", null, null, first);
+		this.validator.validateValue(prop, "value", null, null, first);
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(
+				this.entityDescriptor.getOperation("method"));
+		builder.target(this.entity);
+		this.validator.validateInvocation(builder, null, null, first);
+		Assert.assertEquals(4, messages.size());
+	}
+
+	/**
+	 * Test validation within a deadline.
+	 * 
+	 * @see BeanValidationValidator#validate(EntityDescriptor, Object, Locale,
+	 *      Deadline)
+	 */
+	@Test
+	public void testDeadline() throws Exception {
+		final ValidationResult<PropertyViolation<Entity01, ?>> complete = this.validator.validate(this.entityDescriptor, this.entity,
+				null, Deadline.after(1, TimeUnit.MINUTES));
+		Assert.assertEquals(2, complete.size());
+		Assert.assertFalse(complete.isIncomplete());
+		final ValidationResult<PropertyViolation<Entity01, ?>> expired = this.validator.validate(this.entityDescriptor, this.entity,
+				null, Deadline.after(0, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(expired.isEmpty());
+		Assert.assertTrue(expired.isIncomplete());
+		final OperationDescriptor<Entity01> op = this.entityDescriptor.getOperation("method");
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+		builder.target(new Entity01());
+		Assert.assertTrue(this.validator.validateInvocation(builder, null, Deadline.after(0, TimeUnit.MILLISECONDS)).isIncomplete());
+	}
+
+	/**
+	 * Test detached violations do not refer to the entity and are only equal
+	 * to themselves.
+	 * 
+	 * @see BeanValidationValidator.Builder#detached(boolean)
+	 */
+	@Test
+	public void testDetached() throws Exception {
+		final BeanValidationValidator detached = BeanValidationValidator.createBuilder().detached(true).build();
+		Entity01 validated = new Entity01();
+		final WeakReference<Entity01> reference = new WeakReference<Entity01>(validated);
+		final Collection<PropertyViolation<Entity01, ?>> violations = detached.validate(this.entityDescriptor, validated);
+		validated = null;
+		Assert.assertEquals(2, violations.size());
+		Assert.assertEquals(violations.size(), detached.validate(this.entityDescriptor, new Entity01()).size());
+		for (final PropertyViolation<Entity01, ?> violation : violations) {
+			final DetachedPropertyViolation<Entity01, ?> detachedViolation = (DetachedPropertyViolation<Entity01, ?>) violation;
+			if (violation.getProperty() == this.entityDescriptor.getProperty("value")) {
+				Assert.assertEquals("value", detachedViolation.getPath());
+				Assert.assertEquals("{org.hibernate.validator.constraints.NotEmpty.message}", detachedViolation.getMessageTemplate());
+				Assert.assertEquals("may not be empty", detachedViolation.getMessage());
+				Assert.assertEquals(NotEmpty.class.getName(), detachedViolation.getConstraintType());
+			}
+		}
+		final ValidationResult<PropertyViolation<Entity01, ?>> elements = new ValidationResult<PropertyViolation<Entity01, ?>>(
+				Integer.MAX_VALUE);
+		for (int i = 0; i < 2; i++) {
+			elements.add(new DetachedPropertyViolation<Entity01, String>(null, NotEmpty.class.getName(), "message", "template",
+					"items[].name"));
+		}
+		Assert.assertEquals(2, elements.size());
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(
+				this.entityDescriptor.getOperation("method"));
+		builder.target(this.entity);
+		final ParameterViolation<?> violation = detached.validateInvocation(builder).iterator().next();
+		Assert.assertTrue(violation instanceof DetachedParameterViolation);
+		Assert.assertEquals(0, violation.getParameter().getIndex());
+		this.awaitCollection(reference);
+		Assert.assertNull(reference.get());
+	}
+
 	/**
 	 * Test validation of an entity.
 	 * 
@@ -109,6 +326,115 @@ public class TestValidation {
 		Assert.assertEquals(1, violations.size());
 	}
 
+	/**
+	 * Test validation of an invocation while its parameters are set.
+	 * 
+	 * @see BeanValidationValidator#createInvocationSession(OperationInvocationBuilder,
+	 *      Locale)
+	 */
+	@Test
+	public void testInvocationSession() throws Exception {
+		final OperationDescriptor<Entity01> op = this.entityDescriptor.getOperation("method");
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> param = (ParameterDescriptor<String>) op.getParameter(0);
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+		builder.target(new Entity01());
+		final InvocationValidationSession<Entity01> session = BeanValidationValidator.createBuilder().directConstraints(true)
+				.build().createInvocationSession(builder, Locale.ENGLISH);
+		Assert.assertEquals(1, session.getViolations().size());
+		Assert.assertEquals(1, session.getViolations(param).size());
+		Assert.assertTrue(session.setParameter(param, "value").isEmpty());
+		Assert.assertEquals(1, session.getDirectCount());
+		Assert.assertEquals(1, session.setParameter(param, "").size());
+		Assert.assertEquals(2, session.getProviderCount());
+		Assert.assertEquals(1, this.validator.validateInvocation(builder).size());
+	}
+
+	/**
+	 * Test an invocation session validates cross-parameter constraints with
+	 * the provider whenever a parameter is set.
+	 * 
+	 * @see BeanValidationValidator#createInvocationSession(OperationInvocationBuilder,
+	 *      Locale)
+	 */
+	@Test
+	public void testInvocationSessionCrossParameter() throws Exception {
+		final OperationDescriptor<Entity01> op = this.entityDescriptor.getOperation("range");
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> first = (ParameterDescriptor<String>) op.getParameter(0);
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> second = (ParameterDescriptor<String>) op.getParameter(1);
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+		builder.target(new Entity01());
+		final InvocationValidationSession<Entity01> session = BeanValidationValidator.createBuilder().directConstraints(true)
+				.build().createInvocationSession(builder, Locale.ENGLISH);
+		final int invocations = DistinctParametersValidator.INVOCATIONS.get();
+		Assert.assertTrue(session.setParameter(first, "value").isEmpty());
+		Assert.assertTrue(session.setParameter(second, "other").isEmpty());
+		Assert.assertEquals(0, session.getDirectCount());
+		Assert.assertEquals(3, session.getProviderCount());
+		Assert.assertEquals(invocations + 2, DistinctParametersValidator.INVOCATIONS.get());
+	}
+
+	/**
+	 * Test an invocation session reports cross-parameter violations apart
+	 * from the parameters.
+	 * 
+	 * @see InvocationValidationSession#getCrossParameterViolations()
+	 */
+	@Test
+	public void testInvocationSessionCrossParameterViolation() throws Exception {
+		final OperationDescriptor<Entity01> op = this.entityDescriptor.getOperation("range");
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> first = (ParameterDescriptor<String>) op.getParameter(0);
+		@SuppressWarnings("unchecked")
+		final ParameterDescriptor<String> second = (ParameterDescriptor<String>) op.getParameter(1);
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+		builder.target(new Entity01());
+		final InvocationValidationSession<Entity01> session = BeanValidationValidator.createBuilder().build()
+				.createInvocationSession(builder, Locale.ENGLISH);
+		Assert.assertTrue(session.setParameter(first, "x").isEmpty());
+		final ValidationResult<ParameterViolation<?>> violations = session.setParameter(second, "x");
+		Assert.assertEquals(1, violations.size());
+		final ParameterViolation<?> violation = violations.iterator().next();
+		Assert.assertNull(violation.getParameter());
+		Assert.assertEquals("parameters must differ", violation.getMessage());
+		Assert.assertEquals(1, session.getCrossParameterViolations().size());
+		Assert.assertTrue(session.getViolations(first).isEmpty());
+		Assert.assertTrue(session.getViolations(second).isEmpty());
+		Assert.assertTrue(session.setParameter(second, "y").isEmpty());
+		Assert.assertTrue(session.getCrossParameterViolations().isEmpty());
+	}
+
+	/**
+	 * Test the batch validation of invocations.
+	 * 
+	 * @see BeanValidationValidator#validateInvocations(OperationDescriptor,
+	 *      Collection, Locale, ExecutorService)
+	 */
+	@Test
+	public void testInvocations() throws Exception {
+		final OperationDescriptor<Entity01> op = this.entityDescriptor.getOperation("method");
+		final List<OperationInvocationBuilder<Entity01>> builders = new LinkedList<OperationInvocationBuilder<Entity01>>();
+		for (int i = 0; i < 100; i++) {
+			final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(op);
+			builder.target(new Entity01());
+			builders.add(builder);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final Map<OperationInvocationBuilder<Entity01>, Collection<ParameterViolation<?>>> parallel = this.validator
+				.validateInvocations(op, builders, Locale.GERMAN, executor);
+		executor.shutdown();
+		final Map<OperationInvocationBuilder<Entity01>, Collection<ParameterViolation<?>>> sequential = this.validator
+				.validateInvocations(op, builders, Locale.GERMAN);
+		Assert.assertEquals(100, parallel.size());
+		Assert.assertEquals(100, sequential.size());
+		for (final OperationInvocationBuilder<Entity01> builder : builders) {
+			Assert.assertEquals(1, parallel.get(builder).size());
+			Assert.assertEquals(1, sequential.get(builder).size());
+		}
+	}
+
 	/**
 	 * Test locale entity validation.
 	 * 
@@ -130,6 +456,36 @@ public class TestValidation {
 		}
 	}
 
+	/**
+	 * Test rendering messages in other locales.
+	 * 
+	 * @see BeanValidationPropertyViolation#getMessage(Locale)
+	 * @see BeanValidationParameterViolation#getMessage(Locale)
+	 */
+	@Test
+	public void testLocaleMessages() throws Exception {
+		final Collection<PropertyViolation<Entity01, ?>> violations = this.validator.validate(this.entityDescriptor, this.entity,
+				Locale.ENGLISH);
+		Assert.assertEquals(2, violations.size());
+		for (final PropertyViolation<Entity01, ?> violation : violations) {
+			final BeanValidationPropertyViolation<Entity01, ?> localized = (BeanValidationPropertyViolation<Entity01, ?>) violation;
+			if (violation.getProperty() == this.entityDescriptor.getProperty("value")) {
+				Assert.assertEquals("may not be empty", localized.getMessage());
+				Assert.assertEquals("darf nicht leer sein", localized.getMessage(Locale.GERMAN));
+				Assert.assertSame(localized.getMessage(Locale.GERMAN), localized.getMessage(Locale.GERMAN));
+				Assert.assertEquals("may not be empty", localized.getMessage(Locale.ENGLISH));
+			}
+			if (violation.getProperty() == this.entityDescriptor.getProperty("embedded.checkItem")) {
+				Assert.assertEquals("muss wahr sein", localized.getMessage(Locale.GERMAN));
+			}
+		}
+		final OperationInvocationBuilder<Entity01> builder = new OperationInvocationBuilder<Entity01>(
+				this.entityDescriptor.getOperation("method"));
+		builder.target(this.entity);
+		final ParameterViolation<?> violation = this.validator.validateInvocation(builder, Locale.ENGLISH).iterator().next();
+		Assert.assertEquals("darf nicht leer sein", ((BeanValidationParameterViolation<?>) violation).getMessage(Locale.GERMAN));
+	}
+
 	/**
 	 * Test locale property validation.
 	 * 
@@ -160,6 +516,46 @@ public class TestValidation {
 		Assert.assertEquals("darf nicht leer sein", violation.getMessage());
 	}
 
+	/**
+	 * Test the maximum number of violations.
+	 * 
+	 * @see BeanValidationValidator.Builder#maximumViolations(int)
+	 */
+	@Test
+	public void testMaximumViolations() throws Exception {
+		final ValidationResult<PropertyViolation<Entity01, ?>> unlimited = this.validator.validate(this.entityDescriptor, this.entity);
+		Assert.assertFalse(unlimited.isTruncated());
+		Assert.assertEquals(2, unlimited.getTotalCount());
+		final BeanValidationValidator limitedValidator = BeanValidationValidator.createBuilder().maximumViolations(1).build();
+		final ValidationResult<PropertyViolation<Entity01, ?>> limited = limitedValidator.validate(this.entityDescriptor, this.entity);
+		Assert.assertEquals(1, limited.size());
+		Assert.assertTrue(limited.isTruncated());
+		Assert.assertTrue(limited.getTotalCount() >= 1);
+		final PropertyDescriptor<String, Entity01> prop = this.entityDescriptor.getProperty("value", String.class);
+		Assert.assertEquals(1, limitedValidator.validateValue(prop, "").size());
+		Assert.assertFalse(limitedValidator.validateValue(prop, "").isTruncated());
+	}
+
+	/**
+	 * Test the validation of several properties.
+	 * 
+	 * @see BeanValidationValidator#validateProperties(Object, Collection,
+	 *      Locale)
+	 */
+	@Test
+	public void testProperties() throws Exception {
+		final List<PropertyDescriptor<?, Entity01>> props = new LinkedList<PropertyDescriptor<?, Entity01>>();
+		props.add(this.entityDescriptor.getProperty("value"));
+		props.add(this.entityDescriptor.getProperty("someList"));
+		props.add(this.entityDescriptor.getProperty("embedded.checkItem"));
+		final Map<PropertyDescriptor<?, Entity01>, ValidationResult<PropertyViolation<Entity01, ?>>> violations = this.validator
+				.validateProperties(this.entity, props, Locale.ENGLISH);
+		Assert.assertEquals(props, new LinkedList<PropertyDescriptor<?, Entity01>>(violations.keySet()));
+		Assert.assertEquals("may not be empty", violations.get(props.get(0)).iterator().next().getMessage());
+		Assert.assertTrue(violations.get(props.get(1)).isEmpty());
+		Assert.assertEquals("must be true", violations.get(props.get(2)).iterator().next().getMessage());
+	}
+
 	/**
 	 * Test validation of a property.
 	 * 
@@ -225,6 +621,199 @@ public class TestValidation {
 		Assert.assertEquals(1, this.validator.validateValue(prop, new LinkedList<Object>()).size());
 	}
 
+	/**
+	 * Test validation under several qualifiers in a single pass.
+	 * 
+	 * @see BeanValidationValidator#validateQualifiers(EntityDescriptor, Object,
+	 *      Collection)
+	 */
+	@Test
+	public void testQualifiers() throws Exception {
+		final List<Class<?>> qualifiers = new LinkedList<Class<?>>();
+		qualifiers.add(Qualifier01.class);
+		qualifiers.add(Default.class);
+		final Map<Class<?>, ValidationResult<PropertyViolation<Entity01, ?>>> violations = this.validator.validateQualifiers(
+				this.entityDescriptor, this.entity, qualifiers);
+		Assert.assertEquals(qualifiers, new LinkedList<Class<?>>(violations.keySet()));
+		Assert.assertEquals(1, violations.get(Qualifier01.class).size());
+		for (final PropertyViolation<Entity01, ?> violation : violations.get(Qualifier01.class)) {
+			Assert.assertEquals("someList", violation.getProperty().getName());
+		}
+		Assert.assertEquals(2, violations.get(Default.class).size());
+	}
+
+	/**
+	 * Test validation under several qualifiers falls back to a pass per
+	 * qualifier if a cascaded bean redefines the default group.
+	 * 
+	 * @see BeanValidationValidator#validateQualifiers(EntityDescriptor, Object,
+	 *      Collection)
+	 */
+	@Test
+	public void testQualifiersCascadedSequence() throws Exception {
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity07.class, Entity08.class);
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), this.validator).resources(resource).build();
+		final EntityDescriptor<Entity07> descriptor = model.getEntity(Entity07.class);
+		final Entity07 parent = new Entity07();
+		final List<Class<?>> qualifiers = new LinkedList<Class<?>>();
+		qualifiers.add(Qualifier01.class);
+		qualifiers.add(Default.class);
+		final Map<Class<?>, ValidationResult<PropertyViolation<Entity07, ?>>> violations = this.validator.validateQualifiers(
+				descriptor, parent, qualifiers);
+		final ValidationResult<PropertyViolation<Entity07, ?>> expected = this.validator.validate(descriptor, parent);
+		Assert.assertEquals(1, expected.size());
+		Assert.assertEquals(1, violations.get(Default.class).size());
+		Assert.assertEquals(expected.iterator().next().getMessage(), violations.get(Default.class).iterator().next().getMessage());
+		Assert.assertEquals(1, violations.get(Qualifier01.class).size());
+	}
+
+	/**
+	 * Test cached results are used while the entity version is unchanged.
+	 * 
+	 * @see BeanValidationValidator.Builder#resultCache(ResultCache)
+	 */
+	@Test
+	public void testResultCache() throws Exception {
+		final AtomicInteger version = new AtomicInteger();
+		final ResultCache cache = ResultCache.createBuilder().maximumSize(1).versionExtractor(Entity01.class, new VersionExtractor() {
+			@Override
+			public Object getVersion(final Object object) {
+				return Integer.valueOf(version.get());
+			}
+		}).build();
+		final BeanValidationValidator cached = BeanValidationValidator.createBuilder().detached(true).resultCache(cache).build();
+		final ValidationResult<PropertyViolation<Entity01, ?>> first = cached.validate(this.entityDescriptor, this.entity,
+				Locale.ENGLISH);
+		Assert.assertEquals(2, first.size());
+		final ValidationResult<PropertyViolation<Entity01, ?>> hit = cached.validate(this.entityDescriptor, this.entity,
+				Locale.ENGLISH);
+		Assert.assertNotSame(first, hit);
+		Assert.assertEquals(first, hit);
+		Assert.assertEquals(1, cache.getHitCount());
+		first.clear();
+		hit.clear();
+		Assert.assertEquals(2, cached.validate(this.entityDescriptor, this.entity, Locale.ENGLISH).size());
+		Assert.assertEquals(2, cache.getHitCount());
+		version.incrementAndGet();
+		Assert.assertEquals(2, cached.validate(this.entityDescriptor, this.entity, Locale.ENGLISH).size());
+		Assert.assertEquals(2, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(2, cached.validate(this.entityDescriptor, this.entity, Locale.GERMAN).size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertEquals(0.4d, cache.getHitRate(), 0d);
+		Assert.assertEquals(Integer.valueOf(1), cache.getVersion(new Entity01() {
+			// A subtype of a declared type.
+		}));
+		Entity01 validated = new Entity01();
+		final WeakReference<Entity01> reference = new WeakReference<Entity01>(validated);
+		cached.validate(this.entityDescriptor, validated, Locale.ENGLISH);
+		validated = null;
+		this.awaitCollection(reference);
+		Assert.assertNull(reference.get());
+		Assert.assertEquals(0, cache.size());
+		final long misses = cache.getMissCount();
+		final BeanValidationValidator attached = BeanValidationValidator.createBuilder().resultCache(cache).build();
+		Assert.assertEquals(2, attached.validate(this.entityDescriptor, this.entity, Locale.ENGLISH).size());
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(misses, cache.getMissCount());
+	}
+
+	/**
+	 * Test the summary of a stream of entities.
+	 * 
+	 * @see BeanValidationValidator#summarize(EntityDescriptor, Iterable)
+	 */
+	@Test
+	public void testSummary() throws Exception {
+		final List<Entity01> entities = new LinkedList<Entity01>();
+		for (int i = 0; i < 3; i++) {
+			entities.add(new Entity01());
+		}
+		final ViolationSummary summary = this.validator.summarize(this.entityDescriptor, entities);
+		Assert.assertEquals(3, summary.getEntityCount());
+		Assert.assertEquals(3, summary.getInvalidCount());
+		Assert.assertEquals(6, summary.getViolationCount());
+		Assert.assertEquals(3, summary.getCount("value", NotEmpty.class));
+		Assert.assertEquals(3, summary.getCount("embedded.checkItem", AssertTrue.class));
+		Assert.assertEquals(0, summary.getCount("value", AssertTrue.class));
+		final ViolationSummary other = this.validator.summarize(this.entityDescriptor, entities.subList(0, 1));
+		summary.merge(other);
+		Assert.assertEquals(4, summary.getEntityCount());
+		Assert.assertEquals(4, summary.getCount("value", NotEmpty.class));
+		Assert.assertEquals(8, summary.getViolationCount());
+		@SuppressWarnings("unchecked")
+		final SimpleClazzResource<Object> resource = new SimpleClazzResource<Object>(Entity05.class, Entity06.class);
+		final BeanValidationValidator limited = BeanValidationValidator.createBuilder().maximumViolations(1).build();
+		final Model<Object> model = PresQualBuilder.createBuilder().propertyResolver(ResolverFactory.accessorPropertyResolver())
+				.extensions(new SimpleObjectFactory(), limited).resources(resource).build();
+		final Entity06 nested = new Entity06();
+		for (int i = 0; i < 3; i++) {
+			nested.getEntries().add(new Entity05());
+		}
+		final ViolationSummary nestedSummary = limited.summarize(model.getEntity(Entity06.class), Collections.singleton(nested));
+		Assert.assertEquals(12, nestedSummary.getViolationCount());
+		Assert.assertEquals(3, nestedSummary.getCount("entries.name", NotEmpty.class));
+		Assert.assertEquals(4, nestedSummary.getPropertyPaths().size());
+	}
+
+	/**
+	 * Test the batch validation of entities.
+	 * 
+	 * @see BeanValidationValidator#validateAll(EntityDescriptor, Iterable)
+	 */
+	@Test
+	public void testValidateAll() throws Exception {
+		final List<Entity01> entities = new LinkedList<Entity01>();
+		for (int i = 0; i < 3; i++) {
+			entities.add(new Entity01());
+		}
+		final ColumnarViolations<Entity01> violations = this.validator.validateAll(this.entityDescriptor, entities);
+		Assert.assertEquals(3, violations.getRecordCount());
+		Assert.assertEquals(6, violations.size());
+		for (int i = 0; i < violations.size(); i++) {
+			Assert.assertEquals(i / 2, violations.getRecordIndex(i));
+			if (violations.getProperty(i) == this.entityDescriptor.getProperty("value")) {
+				Assert.assertEquals("may not be empty", violations.getMessage(i));
+			}
+		}
+		final List<PropertyViolation<Entity01, ?>> record = violations.getViolations(1);
+		Assert.assertEquals(2, record.size());
+		for (final PropertyViolation<Entity01, ?> violation : record) {
+			if (violation.getProperty() == this.entityDescriptor.getProperty("embedded.checkItem")) {
+				Assert.assertEquals("must be true", violation.getMessage());
+			}
+		}
+		Assert.assertTrue(violations.getViolations(3).isEmpty());
+		Assert.assertEquals(0, violations.getTruncatedCount());
+		Assert.assertFalse(violations.isTruncated(0));
+	}
+
+	/**
+	 * Test the batch validation of entities with a maximum number of
+	 * violations.
+	 * 
+	 * @see BeanValidationValidator#validateAll(EntityDescriptor, Iterable)
+	 */
+	@Test
+	public void testValidateAllTruncated() throws Exception {
+		final BeanValidationValidator limited = BeanValidationValidator.createBuilder().maximumViolations(1).build();
+		final Entity01 valid = new Entity01();
+		valid.setValue("value");
+		valid.getEmbedded().setCheckItem(true);
+		final List<Entity01> entities = new LinkedList<Entity01>();
+		entities.add(new Entity01());
+		entities.add(valid);
+		final ColumnarViolations<Entity01> violations = limited.validateAll(this.entityDescriptor, entities);
+		Assert.assertEquals(2, violations.getRecordCount());
+		Assert.assertTrue(violations.isTruncated(0));
+		Assert.assertFalse(violations.getViolations(0).isEmpty());
+		Assert.assertFalse(violations.isTruncated(1));
+		Assert.assertTrue(violations.getViolations(1).isEmpty());
+		Assert.assertEquals(1, violations.getTruncatedCount());
+	}
+
 	/**
 	 * Test validation of a value.
 	 * 
@@ -239,4 +828,53 @@ public class TestValidation {
 		Assert.assertEquals(prop, violation.getProperty());
 		Assert.assertEquals("may not be empty", violation.getMessage());
 	}
+
+	/**
+	 * Test the bulk validation of candidate values.
+	 * 
+	 * @see BeanValidationValidator#validateValues(PropertyDescriptor,
+	 *      Collection, Locale, ExecutorService)
+	 */
+	@Test
+	public void testValues() throws Exception {
+		final PropertyDescriptor<String, Entity01> prop = this.entityDescriptor.getProperty("value", String.class);
+		final List<String> values = new LinkedList<String>();
+		for (int i = 0; i < 200; i++) {
+			values.add(i % 3 == 0 ? "" : "value");
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final ValueValidationResults<Entity01, String> parallel = this.validator.validateValues(prop, values, Locale.ENGLISH, executor);
+		executor.shutdown();
+		final ValueValidationResults<Entity01, String> sequential = this.validator.validateValues(prop, values, Locale.ENGLISH);
+		Assert.assertEquals(200, parallel.size());
+		Assert.assertEquals(67, parallel.getInvalidCount());
+		Assert.assertEquals(parallel.getValid(), sequential.getValid());
+		for (int i = 0; i < values.size(); i++) {
+			Assert.assertEquals(i % 3 != 0, parallel.isValid(i));
+			Assert.assertEquals(i % 3 == 0 ? 1 : 0, parallel.get(i).size());
+		}
+		Assert.assertEquals("may not be empty", parallel.get(0).iterator().next().getMessage());
+		final ValueValidationResults<Entity01, String> array = this.validator.validateValues(prop, new String[] { "value", "" }, null);
+		Assert.assertTrue(array.isValid(0));
+		Assert.assertFalse(array.isValid(1));
+	}
+
+	/**
+	 * Awaits the collection of a referent, under memory pressure.
+	 * 
+	 * @param reference
+	 *            The reference.
+	 */
+	private void awaitCollection(final WeakReference<?> reference) throws Exception {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TestValidation.TIMEOUT);
+		while ((reference.get() != null) && (System.nanoTime() < deadline)) {
+			final List<byte[]> pressure = new LinkedList<byte[]>();
+			for (int i = 0; i < TestValidation.CHUNKS; i++) {
+				pressure.add(new byte[TestValidation.CHUNK]);
+			}
+			pressure.clear();
+			System.gc();
+			Thread.sleep(10);
+		}
+	}
 }
@@ -0,0 +1,50 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.constraintvalidation.SupportedValidationTarget;
+import javax.validation.constraintvalidation.ValidationTarget;
+
+import org.apache.commons.lang.ObjectUtils;
+
+/**
+ * Validates the first two parameters differ, counting its invocations.
+ * 
+ * @author Pal Hargitai (pal@lunarray.org)
+ */
+@SupportedValidationTarget(ValidationTarget.PARAMETERS)
+public class DistinctParametersValidator
+		implements ConstraintValidator<DistinctParameters, Object[]> {
+
+	public static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+	@Override
+	public void initialize(final DistinctParameters constraintAnnotation) {
+		// Nothing to initialize.
+	}
+
+	@Override
+	public boolean isValid(final Object[] value, final ConstraintValidatorContext context) {
+		DistinctParametersValidator.INVOCATIONS.incrementAndGet();
+		return (value.length < 2) || (value[0] == null) || !ObjectUtils.equals(value[0], value[1]);
+	}
+}
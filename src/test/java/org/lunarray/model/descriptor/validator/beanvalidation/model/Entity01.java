@@ -59,6 +59,10 @@ public class Entity01 {
 	public void method(@NotEmpty String param) {
 	}
 
+	@DistinctParameters
+	public void range(@NotEmpty final String first, final String second) {
+	}
+
 	public Entity03 getEmbedded() {
 		return this.embedded;
 	}
@@ -0,0 +1,138 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+import org.hibernate.validator.constraints.NotEmpty;
+import org.lunarray.model.descriptor.presentation.annotations.PresentationHint;
+
+public class Entity05 {
+
+	@AssertTrue
+	private boolean accepted;
+
+	@Max(100)
+	private BigDecimal amount;
+
+	@Pattern(regexp = "[A-Z]{3}", flags = Pattern.Flag.CASE_INSENSITIVE)
+	private String code;
+
+	@Min(1)
+	@Max(10)
+	private int count;
+
+	@NotNull
+	@Size(min = 2, max = 4)
+	private List<String> items;
+
+	@PresentationHint(labelKey = "Name")
+	@NotEmpty
+	private String name;
+
+	@Max(1000)
+	private double price;
+
+	@Digits(integer = 4, fraction = 0)
+	@Min(0)
+	private long quantity;
+
+	@Min(-5)
+	private Double ratio;
+
+	public BigDecimal getAmount() {
+		return this.amount;
+	}
+
+	public String getCode() {
+		return this.code;
+	}
+
+	public int getCount() {
+		return this.count;
+	}
+
+	public List<String> getItems() {
+		return this.items;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public double getPrice() {
+		return this.price;
+	}
+
+	public long getQuantity() {
+		return this.quantity;
+	}
+
+	public Double getRatio() {
+		return this.ratio;
+	}
+
+	public boolean isAccepted() {
+		return this.accepted;
+	}
+
+	public void setAccepted(final boolean accepted) {
+		this.accepted = accepted;
+	}
+
+	public void setAmount(final BigDecimal amount) {
+		this.amount = amount;
+	}
+
+	public void setCode(final String code) {
+		this.code = code;
+	}
+
+	public void setCount(final int count) {
+		this.count = count;
+	}
+
+	public void setItems(final List<String> items) {
+		this.items = items;
+	}
+
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	public void setPrice(final double price) {
+		this.price = price;
+	}
+
+	public void setQuantity(final long quantity) {
+		this.quantity = quantity;
+	}
+
+	public void setRatio(final Double ratio) {
+		this.ratio = ratio;
+	}
+}
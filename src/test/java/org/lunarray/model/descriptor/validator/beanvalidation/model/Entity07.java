@@ -0,0 +1,38 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.model;
+
+import javax.validation.Valid;
+
+public class Entity07 {
+
+	@Valid
+	private Entity08 child;
+
+	public Entity07() {
+		this.child = new Entity08();
+	}
+
+	public Entity08 getChild() {
+		return this.child;
+	}
+
+	protected void setChild(final Entity08 child) {
+		this.child = child;
+	}
+}
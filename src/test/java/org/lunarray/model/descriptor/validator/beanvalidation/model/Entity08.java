@@ -0,0 +1,48 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.model;
+
+import javax.validation.GroupSequence;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+
+@GroupSequence({ Qualifier01.class, Entity08.class })
+public class Entity08 {
+
+	@AssertTrue(groups = Qualifier01.class)
+	private boolean first;
+
+	@NotNull
+	private String second;
+
+	public boolean getFirst() {
+		return this.first;
+	}
+
+	public String getSecond() {
+		return this.second;
+	}
+
+	protected void setFirst(final boolean first) {
+		this.first = first;
+	}
+
+	protected void setSecond(final String second) {
+		this.second = second;
+	}
+}
@@ -0,0 +1,44 @@
+/* 
+ * Model Tools.
+ * Copyright (C) 2013 Pal Hargitai (pal@lunarray.org)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.lunarray.model.descriptor.validator.beanvalidation.model;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.groups.ConvertGroup;
+import javax.validation.groups.Default;
+
+public class Entity10 {
+
+	@Valid
+	@ConvertGroup(from = Default.class, to = Qualifier01.class)
+	private List<Entity01> entries;
+
+	public Entity10() {
+		this.entries = new LinkedList<Entity01>();
+	}
+
+	public List<Entity01> getEntries() {
+		return this.entries;
+	}
+
+	protected void setEntries(final List<Entity01> entries) {
+		this.entries = entries;
+	}
+}